@@ -0,0 +1,157 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.benchmark;
+
+import de.adorsys.keycloak.config.util.CloneUtil;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clone, patch and compare all users, clients and groups of a realm the way the import services do. One operation
+ * processes all entities of one type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class CloneUtilBenchmark {
+    private static final String[] USER_IGNORED_PROPERTIES = {"realmRoles", "clientRoles"};
+    private static final String[] CLIENT_IGNORED_PROPERTIES = {"authenticationFlowBindingOverrides", "authorizationSettings", "id", "access"};
+
+    private List<UserRepresentation> users;
+    private List<UserRepresentation> existingUsers;
+    private List<UserRepresentation> patchedUsers;
+
+    private List<ClientRepresentation> clients;
+    private List<ClientRepresentation> existingClients;
+    private List<ClientRepresentation> patchedClients;
+
+    private List<GroupRepresentation> groups;
+    private List<GroupRepresentation> existingGroups;
+    private List<GroupRepresentation> clonedGroups;
+
+    @Setup
+    public void setup() {
+        users = Fixtures.users();
+        existingUsers = Fixtures.existingUsers(users);
+        patchedUsers = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            patchedUsers.add(CloneUtil.patch(existingUsers.get(i), users.get(i), USER_IGNORED_PROPERTIES));
+        }
+
+        clients = Fixtures.clients();
+        existingClients = Fixtures.existingClients(clients);
+        patchedClients = new ArrayList<>(clients.size());
+        for (int i = 0; i < clients.size(); i++) {
+            patchedClients.add(CloneUtil.patch(existingClients.get(i), clients.get(i), CLIENT_IGNORED_PROPERTIES));
+        }
+
+        groups = Fixtures.groups();
+        existingGroups = Fixtures.existingGroups(groups);
+
+        // compared with clones, which are equal in the whole tree, so the comparison never stops at the first level
+        clonedGroups = new ArrayList<>(groups.size());
+        for (GroupRepresentation existingGroup : existingGroups) {
+            clonedGroups.add(CloneUtil.deepClone(existingGroup));
+        }
+    }
+
+    @Benchmark
+    public void deepCloneUsers(Blackhole blackhole) {
+        for (UserRepresentation user : users) {
+            blackhole.consume(CloneUtil.deepClone(user));
+        }
+    }
+
+    @Benchmark
+    public void patchUsers(Blackhole blackhole) {
+        for (int i = 0; i < users.size(); i++) {
+            blackhole.consume(CloneUtil.patch(existingUsers.get(i), users.get(i), USER_IGNORED_PROPERTIES));
+        }
+    }
+
+    @Benchmark
+    public void deepEqualsUsers(Blackhole blackhole) {
+        for (int i = 0; i < users.size(); i++) {
+            blackhole.consume(CloneUtil.deepEquals(existingUsers.get(i), patchedUsers.get(i), "access"));
+        }
+    }
+
+    @Benchmark
+    public void deepCloneClients(Blackhole blackhole) {
+        for (ClientRepresentation client : clients) {
+            blackhole.consume(CloneUtil.deepClone(client));
+        }
+    }
+
+    @Benchmark
+    public void patchClients(Blackhole blackhole) {
+        for (int i = 0; i < clients.size(); i++) {
+            blackhole.consume(CloneUtil.patch(existingClients.get(i), clients.get(i), CLIENT_IGNORED_PROPERTIES));
+        }
+    }
+
+    @Benchmark
+    public void deepEqualsClients(Blackhole blackhole) {
+        for (int i = 0; i < clients.size(); i++) {
+            blackhole.consume(CloneUtil.deepEquals(existingClients.get(i), patchedClients.get(i), CLIENT_IGNORED_PROPERTIES));
+        }
+    }
+
+    @Benchmark
+    public void deepCloneGroupTrees(Blackhole blackhole) {
+        for (GroupRepresentation group : groups) {
+            blackhole.consume(CloneUtil.deepClone(group));
+        }
+    }
+
+    @Benchmark
+    public void patchGroupTrees(Blackhole blackhole) {
+        for (int i = 0; i < groups.size(); i++) {
+            blackhole.consume(CloneUtil.patch(existingGroups.get(i), groups.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void deepEqualsGroupTrees(Blackhole blackhole) {
+        for (int i = 0; i < groups.size(); i++) {
+            blackhole.consume(CloneUtil.deepEquals(existingGroups.get(i), clonedGroups.get(i)));
+        }
+    }
+}
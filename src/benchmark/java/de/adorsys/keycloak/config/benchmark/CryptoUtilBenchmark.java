@@ -0,0 +1,70 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.benchmark;
+
+import de.adorsys.keycloak.config.util.CryptoUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encrypts and decrypts remote state of the size of a small realm and of the managed entities of a large realm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class CryptoUtilBenchmark {
+    @Param({"1024", "262144"})
+    public int size;
+
+    private String data;
+    private String encryptedData;
+
+    @Setup
+    public void setup() {
+        String names = String.join(",", Fixtures.managedNames());
+        data = names.repeat(size / names.length() + 1).substring(0, size);
+        encryptedData = CryptoUtil.encrypt(data, Fixtures.ENCRYPTION_KEY, Fixtures.ENCRYPTION_SALT);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return CryptoUtil.encrypt(data, Fixtures.ENCRYPTION_KEY, Fixtures.ENCRYPTION_SALT);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return CryptoUtil.decrypt(encryptedData, Fixtures.ENCRYPTION_KEY, Fixtures.ENCRYPTION_SALT);
+    }
+}
@@ -0,0 +1,280 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.benchmark;
+
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportCacheProperties;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportFilesProperties;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportRemoteStateProperties;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportVarSubstitutionProperties;
+import de.adorsys.keycloak.config.util.CloneUtil;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.ProtocolMapperRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.RolesRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Generated realms of the size of large installations: 10k users, 500 clients and a group tree five levels deep.
+ * The same seed always generates the same realm, so results of different runs are comparable.
+ */
+final class Fixtures {
+    static final int USERS = 10_000;
+    static final int CLIENTS = 500;
+    static final int REALM_ROLES = 50;
+    static final int CLIENT_ROLES = 20;
+    static final int GROUP_DEPTH = 5;
+    static final int GROUP_WIDTH = 4;
+
+    static final String REALM = "benchmark";
+    static final String ENCRYPTION_KEY = "benchmark-encryption-key";
+    static final String ENCRYPTION_SALT = "2B521C795FBE2F2425DB150CD3700BA9";
+
+    private Fixtures() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    static RealmImport realm() {
+        RealmImport realm = new RealmImport();
+        realm.setRealm(REALM);
+        realm.setEnabled(true);
+
+        List<RoleRepresentation> realmRoles = new ArrayList<>();
+        for (int i = 0; i < REALM_ROLES; i++) {
+            realmRoles.add(new RoleRepresentation("role-" + i, "Realm role " + i, false));
+        }
+
+        RolesRepresentation roles = new RolesRepresentation();
+        roles.setRealm(realmRoles);
+        realm.setRoles(roles);
+
+        realm.setUsers(users());
+        realm.setClients(clients());
+        realm.setGroups(groups());
+        return realm;
+    }
+
+    static List<UserRepresentation> users() {
+        List<UserRepresentation> users = new ArrayList<>(USERS);
+
+        for (int i = 0; i < USERS; i++) {
+            UserRepresentation user = new UserRepresentation();
+            user.setUsername("user-" + i);
+            user.setEmail("user-" + i + "@example.com");
+            user.setFirstName("First " + i);
+            user.setLastName("Last " + i);
+            user.setEnabled(true);
+            user.setEmailVerified(i % 2 == 0);
+
+            Map<String, List<String>> attributes = new HashMap<>();
+            attributes.put("locale", List.of(i % 3 == 0 ? "de" : "en"));
+            attributes.put("department", List.of("department-" + i % 20));
+            attributes.put("employeeNumber", List.of(String.valueOf(100_000 + i)));
+            user.setAttributes(attributes);
+
+            user.setRealmRoles(List.of("role-" + i % REALM_ROLES, "role-" + (i + 1) % REALM_ROLES, "role-" + (i + 2) % REALM_ROLES));
+            user.setClientRoles(Map.of("client-" + i % CLIENTS, List.of("client-role-0", "client-role-1")));
+            user.setGroups(List.of("/group-" + i % GROUP_WIDTH, "/group-" + (i + 1) % GROUP_WIDTH + "/group-" + i % GROUP_WIDTH));
+            users.add(user);
+        }
+
+        return users;
+    }
+
+    static List<ClientRepresentation> clients() {
+        List<ClientRepresentation> clients = new ArrayList<>(CLIENTS);
+
+        for (int i = 0; i < CLIENTS; i++) {
+            ClientRepresentation client = new ClientRepresentation();
+            client.setClientId("client-" + i);
+            client.setName("Client " + i);
+            client.setEnabled(true);
+            client.setPublicClient(i % 4 == 0);
+            client.setStandardFlowEnabled(true);
+            client.setDirectAccessGrantsEnabled(i % 2 == 0);
+            client.setRootUrl("https://client-" + i + ".example.com");
+            client.setRedirectUris(List.of("/*", "https://client-" + i + ".example.com/callback", "http://localhost:" + (8000 + i) + "/*"));
+            client.setWebOrigins(List.of("+"));
+            client.setDefaultClientScopes(List.of("web-origins", "profile", "roles", "email"));
+            client.setOptionalClientScopes(List.of("address", "phone", "offline_access", "microprofile-jwt"));
+
+            Map<String, String> attributes = new HashMap<>();
+            attributes.put("pkce.code.challenge.method", "S256");
+            attributes.put("post.logout.redirect.uris", "+");
+            attributes.put("access.token.lifespan", String.valueOf(300 + i));
+            attributes.put("backchannel.logout.session.required", "true");
+            attributes.put("display.on.consent.screen", "false");
+            attributes.put("exclude.session.state.from.auth.response", "false");
+            attributes.put("oauth2.device.authorization.grant.enabled", "false");
+            attributes.put("oidc.ciba.grant.enabled", "false");
+            attributes.put("saml.force.name.id.format", "false");
+            attributes.put("tls.client.certificate.bound.access.tokens", "false");
+            client.setAttributes(attributes);
+
+            List<ProtocolMapperRepresentation> protocolMappers = new ArrayList<>();
+            for (int j = 0; j < 5; j++) {
+                ProtocolMapperRepresentation protocolMapper = new ProtocolMapperRepresentation();
+                protocolMapper.setName("mapper-" + j);
+                protocolMapper.setProtocol("openid-connect");
+                protocolMapper.setProtocolMapper("oidc-usermodel-attribute-mapper");
+                protocolMapper.setConfig(new HashMap<>(Map.of(
+                        "user.attribute", "attribute-" + j,
+                        "claim.name", "claim_" + j,
+                        "jsonType.label", "String",
+                        "id.token.claim", "true",
+                        "access.token.claim", "true",
+                        "userinfo.token.claim", "true"
+                )));
+                protocolMappers.add(protocolMapper);
+            }
+            client.setProtocolMappers(protocolMappers);
+
+            clients.add(client);
+        }
+
+        return clients;
+    }
+
+    static List<GroupRepresentation> groups() {
+        return groups("", 1);
+    }
+
+    private static List<GroupRepresentation> groups(String parentPath, int level) {
+        if (level > GROUP_DEPTH) {
+            return Collections.emptyList();
+        }
+
+        List<GroupRepresentation> groups = new ArrayList<>(GROUP_WIDTH);
+        for (int i = 0; i < GROUP_WIDTH; i++) {
+            GroupRepresentation group = new GroupRepresentation();
+            group.setName("group-" + i);
+            group.setPath(parentPath + "/group-" + i);
+            group.setAttributes(new HashMap<>(Map.of("level", List.of(String.valueOf(level)))));
+            group.setRealmRoles(List.of("role-" + (level * GROUP_WIDTH + i) % REALM_ROLES));
+            group.setClientRoles(Map.of("client-" + i, List.of("client-role-0")));
+            group.setSubGroups(groups(group.getPath(), level + 1));
+            groups.add(group);
+        }
+
+        return groups;
+    }
+
+    /**
+     * The users as read back from Keycloak: with ids and the properties Keycloak sets on its own.
+     */
+    static List<UserRepresentation> existingUsers(List<UserRepresentation> users) {
+        List<UserRepresentation> existingUsers = new ArrayList<>(users.size());
+
+        for (UserRepresentation user : users) {
+            UserRepresentation existingUser = CloneUtil.deepClone(user, "realmRoles", "clientRoles", "groups");
+            existingUser.setId(uuid("user", user.getUsername()));
+            existingUser.setCreatedTimestamp(1_600_000_000_000L);
+            existingUser.setNotBefore(0);
+            existingUser.setDisableableCredentialTypes(Collections.emptySet());
+            existingUser.setRequiredActions(Collections.emptyList());
+            existingUser.setAccess(Map.of("manageGroupMembership", true, "view", true, "mapRoles", true, "impersonate", false, "manage", true));
+            existingUsers.add(existingUser);
+        }
+
+        return existingUsers;
+    }
+
+    static List<ClientRepresentation> existingClients(List<ClientRepresentation> clients) {
+        List<ClientRepresentation> existingClients = new ArrayList<>(clients.size());
+
+        for (ClientRepresentation client : clients) {
+            ClientRepresentation existingClient = CloneUtil.deepClone(client);
+            existingClient.setId(uuid("client", client.getClientId()));
+            existingClient.setSurrogateAuthRequired(false);
+            existingClient.setAlwaysDisplayInConsole(false);
+            existingClient.setClientAuthenticatorType("client-secret");
+            existingClient.setNotBefore(0);
+            existingClient.setBearerOnly(false);
+            existingClient.setConsentRequired(false);
+            existingClient.setImplicitFlowEnabled(false);
+            existingClient.setServiceAccountsEnabled(false);
+            existingClient.setFrontchannelLogout(true);
+            existingClient.setProtocol("openid-connect");
+            existingClient.setFullScopeAllowed(true);
+            existingClient.setNodeReRegistrationTimeout(-1);
+            existingClient.getProtocolMappers().forEach(protocolMapper -> protocolMapper.setId(uuid("mapper", protocolMapper.getName())));
+            existingClient.setAccess(Map.of("view", true, "configure", true, "manage", true));
+            existingClients.add(existingClient);
+        }
+
+        return existingClients;
+    }
+
+    static List<GroupRepresentation> existingGroups(List<GroupRepresentation> groups) {
+        List<GroupRepresentation> existingGroups = new ArrayList<>(groups.size());
+
+        for (GroupRepresentation group : groups) {
+            GroupRepresentation existingGroup = CloneUtil.deepClone(group);
+            existingGroup.setId(uuid("group", group.getPath()));
+            existingGroup.setSubGroups(existingGroups(group.getSubGroups()));
+            existingGroups.add(existingGroup);
+        }
+
+        return existingGroups;
+    }
+
+    /**
+     * Names of managed entities as kept in the remote state, as many as a large realm has client roles.
+     */
+    static List<String> managedNames() {
+        List<String> names = new ArrayList<>(CLIENTS * CLIENT_ROLES);
+
+        for (int i = 0; i < CLIENTS; i++) {
+            for (int j = 0; j < CLIENT_ROLES; j++) {
+                names.add(String.format("client-%d-role-%d", i, j));
+            }
+        }
+
+        return names;
+    }
+
+    static ImportConfigProperties importConfigProperties(boolean encrypted) {
+        return new ImportConfigProperties(
+                true, false, null,
+                new ImportFilesProperties(Collections.emptyList(), Collections.emptyList(), false),
+                new ImportVarSubstitutionProperties(false, false, true, "$(", ")"),
+                null,
+                new ImportCacheProperties(true, "default", false, Duration.ZERO, null),
+                null,
+                new ImportRemoteStateProperties(true, encrypted ? ENCRYPTION_KEY : null, ENCRYPTION_SALT),
+                null
+        );
+    }
+
+    private static String uuid(String type, String name) {
+        return UUID.nameUUIDFromBytes((type + ":" + name).getBytes()).toString();
+    }
+}
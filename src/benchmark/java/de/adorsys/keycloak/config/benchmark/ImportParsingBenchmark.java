@@ -0,0 +1,97 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.keycloak.config.model.KeycloakImport;
+import de.adorsys.keycloak.config.provider.KeycloakImportProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a realm file with all fixtures from disk, parses it and computes its checksums, as done once per file and run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ImportParsingBenchmark {
+    @Param({"json", "yaml"})
+    public String format;
+
+    private Path directory;
+    private String location;
+    private KeycloakImportProvider keycloakImportProvider;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().setSerializationInclusion(Include.NON_NULL);
+        Map<?, ?> realm = objectMapper.convertValue(Fixtures.realm(), Map.class);
+
+        String content = "json".equals(format)
+                ? objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(realm)
+                : new Yaml().dump(realm);
+
+        directory = Files.createTempDirectory("keycloak-config-cli-benchmark");
+        Path file = Files.writeString(directory.resolve("realm." + format), content, StandardCharsets.UTF_8);
+        location = file.toString();
+
+        keycloakImportProvider = new KeycloakImportProvider(
+                new StandardEnvironment(),
+                new PathMatchingResourcePatternResolver(),
+                Fixtures.importConfigProperties(false)
+        );
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(Path.of(location));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public KeycloakImport readFromLocations() {
+        return keycloakImportProvider.readFromLocations(location);
+    }
+}
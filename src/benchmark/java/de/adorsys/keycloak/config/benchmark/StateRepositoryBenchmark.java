@@ -0,0 +1,87 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.benchmark;
+
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.model.RealmImportContext;
+import de.adorsys.keycloak.config.repository.StateRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes the names of the managed entities of a large realm into realm attributes and decodes them again, as the
+ * remote state does on every import.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class StateRepositoryBenchmark {
+    private static final String ENTITY = "roles-client";
+
+    @Param({"false", "true"})
+    public boolean encrypted;
+
+    private List<String> names;
+    private StateRepository stateRepository;
+    private RealmImportContext context;
+
+    @Setup
+    public void setup() {
+        names = Fixtures.managedNames();
+
+        // only the realm attributes of the context are used, the realm itself is never read
+        stateRepository = new StateRepository(null, Fixtures.importConfigProperties(encrypted));
+
+        RealmImport realmImport = new RealmImport();
+        realmImport.setRealm(Fixtures.REALM);
+        context = new RealmImportContext(realmImport);
+        context.setStateAttributes(new HashMap<>());
+
+        stateRepository.setState(context, ENTITY, names);
+    }
+
+    @Benchmark
+    public RealmImportContext setState() {
+        stateRepository.setState(context, ENTITY, names);
+        return context;
+    }
+
+    @Benchmark
+    public List<String> getState() {
+        return stateRepository.getState(context, ENTITY);
+    }
+}
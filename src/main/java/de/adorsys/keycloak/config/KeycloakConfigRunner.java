@@ -20,11 +20,21 @@
 
 package de.adorsys.keycloak.config;
 
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.model.KeycloakImport;
 import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.provider.AccessTokenManager;
 import de.adorsys.keycloak.config.provider.KeycloakImportProvider;
+import de.adorsys.keycloak.config.provider.KeycloakProvider;
 import de.adorsys.keycloak.config.service.RealmImportService;
+import de.adorsys.keycloak.config.util.resteasy.AdaptiveConcurrencyLimiter;
+import de.adorsys.keycloak.config.util.resteasy.AffinityLane;
+import de.adorsys.keycloak.config.util.resteasy.ConnectionPoolStatistics;
+import de.adorsys.keycloak.config.util.resteasy.RetryInterceptor;
+import de.adorsys.keycloak.config.util.resteasy.TransferStatistics;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,10 +43,17 @@ import org.springframework.boot.ExitCodeGenerator;
 import org.springframework.stereotype.Component;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 public class KeycloakConfigRunner implements CommandLineRunner, ExitCodeGenerator {
@@ -46,6 +63,7 @@ public class KeycloakConfigRunner implements CommandLineRunner, ExitCodeGenerato
     private final KeycloakImportProvider keycloakImportProvider;
     private final RealmImportService realmImportService;
     private final ImportConfigProperties importConfigProperties;
+    private final KeycloakProvider keycloakProvider;
 
     private int exitCode = 0;
 
@@ -53,10 +71,12 @@ public class KeycloakConfigRunner implements CommandLineRunner, ExitCodeGenerato
     public KeycloakConfigRunner(
             KeycloakImportProvider keycloakImportProvider,
             RealmImportService realmImportService,
-            ImportConfigProperties importConfigProperties) {
+            ImportConfigProperties importConfigProperties,
+            KeycloakProvider keycloakProvider) {
         this.keycloakImportProvider = keycloakImportProvider;
         this.realmImportService = realmImportService;
         this.importConfigProperties = importConfigProperties;
+        this.keycloakProvider = keycloakProvider;
     }
 
     @Override
@@ -72,6 +92,11 @@ public class KeycloakConfigRunner implements CommandLineRunner, ExitCodeGenerato
 
             Map<String, Map<String, List<RealmImport>>> realmImports = keycloakImport.getRealmImports();
 
+            if (importConfigProperties.getExecutor().getRealmConcurrency() > 1) {
+                importRealmsConcurrently(realmImports);
+                return;
+            }
+
             for (Map<String, List<RealmImport>> realmImportLocations : realmImports.values()) {
                 for (Map.Entry<String, List<RealmImport>> realmImport : realmImportLocations.entrySet()) {
                     logger.info("Importing file '{}'", realmImport.getKey());
@@ -91,9 +116,110 @@ public class KeycloakConfigRunner implements CommandLineRunner, ExitCodeGenerato
                 throw e;
             }
         } finally {
+            logHttpStatistics();
+
             long totalTime = System.currentTimeMillis() - START_TIME;
             String formattedTime = new SimpleDateFormat("mm:ss.SSS").format(new Date(totalTime));
             logger.info("keycloak-config-cli running in {}.", formattedTime);
         }
     }
+
+    private void logHttpStatistics() {
+        // leases waiting on a saturated pool point to keycloak.connection-pool.* as bottleneck instead of Keycloak
+        ConnectionPoolStatistics connectionPoolStatistics = keycloakProvider.getConnectionPoolStatistics();
+        if (connectionPoolStatistics.getLeases() > 0) {
+            logger.info("HTTP connection pool: {}", connectionPoolStatistics);
+        }
+
+        TransferStatistics transferStatistics = keycloakProvider.getTransferStatistics();
+        if (transferStatistics.getResponseWireBytes() > 0 || transferStatistics.getRequestWireBytes() > 0) {
+            logger.info("HTTP transfer: {}", transferStatistics);
+        }
+
+        // a limit far below keycloak.adaptive-concurrency.max-limit means Keycloak was the bottleneck of the run
+        AdaptiveConcurrencyLimiter concurrencyLimiter = keycloakProvider.getConcurrencyLimiter();
+        if (concurrencyLimiter != null && concurrencyLimiter.getRequests() > 0) {
+            logger.info("Adaptive concurrency: {}", concurrencyLimiter);
+        }
+
+        RetryInterceptor retryInterceptor = keycloakProvider.getRetryInterceptor();
+        if (retryInterceptor.getRetries() > 0) {
+            logger.info("Retries: {}", retryInterceptor);
+        }
+
+        AccessTokenManager accessTokenManager = keycloakProvider.getAccessTokenManager();
+        if (accessTokenManager != null) {
+            logger.info("Access token: refreshed {} times in background, {} requests waited for a token",
+                    accessTokenManager.getBackgroundRefreshes(), accessTokenManager.getWaits());
+        }
+    }
+
+    private void importRealmsConcurrently(Map<String, Map<String, List<RealmImport>>> realmImports) {
+        // the documents of a realm are imported one after another, in order of their files
+        Map<String, List<Pair<String, RealmImport>>> realmImportsByRealm = new LinkedHashMap<>();
+        for (Map<String, List<RealmImport>> realmImportLocations : realmImports.values()) {
+            for (Map.Entry<String, List<RealmImport>> realmImport : realmImportLocations.entrySet()) {
+                for (RealmImport realmImportParts : realmImport.getValue()) {
+                    realmImportsByRealm
+                            .computeIfAbsent(realmImportParts.getRealm(), realm -> new ArrayList<>())
+                            .add(new ImmutablePair<>(realmImport.getKey(), realmImportParts));
+                }
+            }
+        }
+
+        if (realmImportsByRealm.isEmpty()) {
+            return;
+        }
+
+        int realmConcurrency = Math.min(importConfigProperties.getExecutor().getRealmConcurrency(), realmImportsByRealm.size());
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService realmExecutor = Executors.newFixedThreadPool(realmConcurrency, runnable -> {
+            // realms start on different affinity lanes, their own requests are spread over different Keycloak nodes
+            int number = threadNumber.getAndIncrement();
+            return new Thread(() -> {
+                AffinityLane.assign(number);
+                runnable.run();
+            }, "realm-import-" + (number + 1));
+        });
+
+        Map<String, Throwable> failures = new LinkedHashMap<>();
+        try {
+            Map<String, Future<?>> results = new LinkedHashMap<>();
+            for (Map.Entry<String, List<Pair<String, RealmImport>>> realmImport : realmImportsByRealm.entrySet()) {
+                results.put(realmImport.getKey(), realmExecutor.submit(() -> importRealm(realmImport.getKey(), realmImport.getValue())));
+            }
+
+            for (Map.Entry<String, Future<?>> result : results.entrySet()) {
+                try {
+                    result.getValue().get();
+                } catch (ExecutionException e) {
+                    failures.put(result.getKey(), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImportProcessingException("Import of realms interrupted", e);
+        } finally {
+            realmExecutor.shutdownNow();
+        }
+
+        if (!failures.isEmpty()) {
+            for (Map.Entry<String, Throwable> failure : failures.entrySet()) {
+                logger.error("Import of realm '{}' failed: {}", failure.getKey(), failure.getValue().getMessage());
+                logger.debug("Import of realm '{}' failed", failure.getKey(), failure.getValue());
+            }
+
+            throw new ImportProcessingException(
+                    "Import of %d of %d realms failed: %s",
+                    failures.size(), realmImportsByRealm.size(), String.join(", ", failures.keySet())
+            );
+        }
+    }
+
+    private void importRealm(String realm, List<Pair<String, RealmImport>> realmImports) {
+        for (Pair<String, RealmImport> realmImport : realmImports) {
+            logger.info("Importing file '{}' into realm '{}'", realmImport.getKey(), realm);
+            realmImportService.doImport(realmImport.getValue());
+        }
+    }
 }
@@ -35,6 +35,8 @@ public class RealmImport extends RealmRepresentation {
 
     private String checksum;
 
+    private SectionChecksums sectionChecksums = SectionChecksums.empty();
+
     @Override
     @SuppressWarnings("java:S1168")
     public List<AuthenticationFlowRepresentation> getAuthenticationFlows() {
@@ -58,4 +60,14 @@ public class RealmImport extends RealmRepresentation {
     public void setChecksum(String checksum) {
         this.checksum = checksum;
     }
+
+    @JsonIgnore
+    public SectionChecksums getSectionChecksums() {
+        return sectionChecksums;
+    }
+
+    @JsonIgnore
+    public void setSectionChecksums(SectionChecksums sectionChecksums) {
+        this.sectionChecksums = sectionChecksums;
+    }
 }
@@ -0,0 +1,118 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Everything one import of a realm document works on besides the document itself: the realm attributes holding the
+ * remote state and the checksums of the document and its phases. A new context is created for every document, so nothing is carried
+ * over to the next import of the same or another realm.
+ */
+public class RealmImportContext {
+    private final String realmName;
+    private final String checksum;
+    private final SectionChecksums sectionChecksums;
+
+    // phases may run in parallel
+    private final Map<String, String> phaseChecksums = new ConcurrentHashMap<>();
+    private final Map<String, String> referenceChecksums = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> entityChecksums = new ConcurrentHashMap<>();
+
+    private Map<String, String> stateAttributes;
+    private boolean fullReconcile;
+
+    public RealmImportContext(RealmImport realmImport) {
+        this.realmName = realmImport.getRealm();
+        this.checksum = realmImport.getChecksum();
+        this.sectionChecksums = realmImport.getSectionChecksums();
+    }
+
+    public String getRealmName() {
+        return realmName;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public SectionChecksums getSectionChecksums() {
+        return sectionChecksums;
+    }
+
+    /**
+     * Checksums of the phases computed during the import, stored with the checksum of the document after the import
+     * succeeded.
+     */
+    public Map<String, String> getPhaseChecksums() {
+        return phaseChecksums;
+    }
+
+    /**
+     * Checksums of everything the entities of a phase depend on besides their own definition, e.g. the names of the
+     * roles and groups users refer to.
+     */
+    public Map<String, String> getReferenceChecksums() {
+        return referenceChecksums;
+    }
+
+    /**
+     * Checksums of the entities of each phase by their key, stored in the entity checksums file after the import succeeded.
+     */
+    public Map<String, Map<String, String>> getEntityChecksums() {
+        return entityChecksums;
+    }
+
+    /**
+     * A full reconcile imports all phases and entities, even if unchanged since the last import, to revert changes made
+     * outside of keycloak-config-cli.
+     */
+    public boolean isFullReconcile() {
+        return fullReconcile;
+    }
+
+    public void setFullReconcile(boolean fullReconcile) {
+        this.fullReconcile = fullReconcile;
+    }
+
+    /**
+     * Realm attributes including the remote state, as loaded from the realm and updated during the import.
+     */
+    public Map<String, String> getStateAttributes() {
+        if (stateAttributes == null) {
+            throw new IllegalStateException(String.format("State of realm '%s' is not loaded.", realmName));
+        }
+
+        return stateAttributes;
+    }
+
+    public void setStateAttributes(Map<String, String> stateAttributes) {
+        // work on a copy, the attributes may belong to a realm representation shared with other readers
+        this.stateAttributes = new HashMap<>(stateAttributes);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("realm '%s'", realmName);
+    }
+}
@@ -0,0 +1,133 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.adorsys.keycloak.config.exception.InvalidImportException;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Checksums of the top level fields of a realm document, e.g. {@code clients} or {@code users}, computed when the
+ * document is read. Map entries are compared independent of their order.
+ * <p>
+ * Besides the checksum of the whole section there is a checksum of the names of its entities, for phases which only
+ * refer to the entities of a section. Changing the redirect URIs of a client changes the content of {@code clients},
+ * but not its names.
+ */
+public class SectionChecksums {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    // fields other entities use to refer to an entity
+    private static final Set<String> IDENTITY_FIELDS = Set.of("id", "name", "alias", "clientId", "username", "path");
+
+    // fields containing entities of the same kind, which can be referred to as well
+    private static final Set<String> NESTED_ENTITY_FIELDS = Set.of("subGroups");
+
+    private final Map<String, String> contents = new HashMap<>();
+    private final Map<String, String> identities = new HashMap<>();
+
+    public SectionChecksums(Map<String, Object> document) {
+        document.forEach((section, value) -> {
+            contents.put(section, checksum(value));
+            identities.put(section, checksum(identityOf(value)));
+        });
+    }
+
+    public static SectionChecksums empty() {
+        return new SectionChecksums(Collections.emptyMap());
+    }
+
+    /**
+     * Returns the checksum of the whole section or {@code null}, if the document does not contain the section.
+     */
+    public String getContent(String section) {
+        return contents.get(section);
+    }
+
+    /**
+     * Returns the checksum of the names of all entities of the section or {@code null}, if the document does not
+     * contain the section.
+     */
+    public String getIdentity(String section) {
+        return identities.get(section);
+    }
+
+    /*
+     * Maps with an identity field are entities, only their identity and nested entities are kept. Other maps, like
+     * the realm and client roles of "roles", are containers of entities and kept with all their keys.
+     */
+    private static Object identityOf(Object value) {
+        if (value instanceof List) {
+            List<Object> identities = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                Object identity = identityOf(item);
+                if (identity != null) identities.add(identity);
+            }
+
+            return identities.isEmpty() ? null : identities;
+        }
+
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            boolean entity = map.entrySet().stream()
+                    .anyMatch(entry -> IDENTITY_FIELDS.contains(String.valueOf(entry.getKey())) && isScalar(entry.getValue()));
+
+            Map<String, Object> identity = new TreeMap<>();
+            map.forEach((key, item) -> {
+                String field = String.valueOf(key);
+
+                if (entity && IDENTITY_FIELDS.contains(field) && isScalar(item)) {
+                    identity.put(field, item);
+                } else if (!entity || NESTED_ENTITY_FIELDS.contains(field)) {
+                    Object nestedIdentity = identityOf(item);
+                    if (nestedIdentity != null) identity.put(field, nestedIdentity);
+                }
+            });
+
+            return identity.isEmpty() ? null : identity;
+        }
+
+        return null;
+    }
+
+    private static boolean isScalar(Object value) {
+        return value != null && !(value instanceof Map) && !(value instanceof List);
+    }
+
+    private static String checksum(Object value) {
+        try {
+            return DigestUtils.sha256Hex(OBJECT_MAPPER.writeValueAsBytes(value));
+        } catch (JsonProcessingException e) {
+            throw new InvalidImportException("Unable to compute checksum of import section: " + e.getMessage(), e);
+        }
+    }
+}
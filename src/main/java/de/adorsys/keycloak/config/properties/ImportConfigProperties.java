@@ -24,8 +24,11 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.ConstructorBinding;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
 import java.util.Collection;
 import javax.validation.Valid;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 
@@ -36,6 +39,9 @@ import javax.validation.constraints.Pattern;
 public class ImportConfigProperties {
     public static final String REALM_STATE_ATTRIBUTE_COMMON_PREFIX = "de.adorsys.keycloak.config";
     public static final String REALM_CHECKSUM_ATTRIBUTE_PREFIX_KEY = REALM_STATE_ATTRIBUTE_COMMON_PREFIX + ".import-checksum-{0}";
+    public static final String REALM_PHASE_CHECKSUM_ATTRIBUTE_PREFIX_KEY = REALM_STATE_ATTRIBUTE_COMMON_PREFIX + ".import-checksum-{0}-phase-{1}";
+    public static final String REALM_RECONCILED_ATTRIBUTE_PREFIX_KEY = REALM_STATE_ATTRIBUTE_COMMON_PREFIX + ".import-checksum-{0}-reconciled";
+    public static final String REALM_ENTITY_CHECKSUMS_ATTRIBUTE_PREFIX_KEY = REALM_STATE_ATTRIBUTE_COMMON_PREFIX + ".import-checksum-{0}-entities";
     public static final String REALM_STATE_ATTRIBUTE_PREFIX_KEY = REALM_STATE_ATTRIBUTE_COMMON_PREFIX + ".state-{0}-{1}";
 
     @NotNull
@@ -44,6 +50,9 @@ public class ImportConfigProperties {
     @NotNull
     private final boolean parallel;
 
+    @Valid
+    private final ImportExecutorProperties executor;
+
     @Valid
     private final ImportFilesProperties files;
 
@@ -62,19 +71,24 @@ public class ImportConfigProperties {
     @Valid
     private final ImportRemoteStateProperties remoteState;
 
-    public ImportConfigProperties(boolean validate, boolean parallel,
+    @Valid
+    private final ImportUsersProperties users;
+
+    public ImportConfigProperties(boolean validate, boolean parallel, ImportExecutorProperties executor,
                                   ImportFilesProperties files, ImportVarSubstitutionProperties varSubstitution,
                                   ImportBehaviorsProperties behaviors, ImportCacheProperties cache, ImportManagedProperties managed,
-                                  ImportRemoteStateProperties remoteState
+                                  ImportRemoteStateProperties remoteState, ImportUsersProperties users
     ) {
         this.validate = validate;
         this.parallel = parallel;
+        this.executor = executor;
         this.files = files;
         this.varSubstitution = varSubstitution;
         this.behaviors = behaviors;
         this.cache = cache;
         this.managed = managed;
         this.remoteState = remoteState;
+        this.users = users;
     }
 
     public boolean isValidate() {
@@ -85,6 +99,10 @@ public class ImportConfigProperties {
         return parallel;
     }
 
+    public ImportExecutorProperties getExecutor() {
+        return executor;
+    }
+
     public ImportFilesProperties getFiles() {
         return files;
     }
@@ -109,6 +127,10 @@ public class ImportConfigProperties {
         return remoteState;
     }
 
+    public ImportUsersProperties getUsers() {
+        return users;
+    }
+
     @SuppressWarnings("unused")
     public static class ImportManagedProperties {
         @NotNull
@@ -229,6 +251,36 @@ public class ImportConfigProperties {
         }
     }
 
+    @SuppressWarnings("unused")
+    public static class ImportExecutorProperties {
+        @Min(1)
+        private final int threads;
+
+        @Min(1)
+        private final int phaseConcurrency;
+
+        @Min(1)
+        private final int realmConcurrency;
+
+        public ImportExecutorProperties(int threads, int phaseConcurrency, int realmConcurrency) {
+            this.threads = threads;
+            this.phaseConcurrency = phaseConcurrency;
+            this.realmConcurrency = realmConcurrency;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public int getPhaseConcurrency() {
+            return phaseConcurrency;
+        }
+
+        public int getRealmConcurrency() {
+            return realmConcurrency;
+        }
+    }
+
     @SuppressWarnings("unused")
     public static class ImportFilesProperties {
         @NotNull
@@ -343,9 +395,20 @@ public class ImportConfigProperties {
         @NotNull
         private final String key;
 
-        public ImportCacheProperties(boolean enabled, String key) {
+        @NotNull
+        private final boolean force;
+
+        @NotNull
+        private final Duration fullReconcileInterval;
+
+        private final String entityChecksumsFile;
+
+        public ImportCacheProperties(boolean enabled, String key, boolean force, Duration fullReconcileInterval, String entityChecksumsFile) {
             this.enabled = enabled;
             this.key = key;
+            this.force = force;
+            this.fullReconcileInterval = fullReconcileInterval;
+            this.entityChecksumsFile = entityChecksumsFile;
         }
 
         public boolean isEnabled() {
@@ -355,6 +418,18 @@ public class ImportConfigProperties {
         public String getKey() {
             return key;
         }
+
+        public boolean isForce() {
+            return force;
+        }
+
+        public Duration getFullReconcileInterval() {
+            return fullReconcileInterval;
+        }
+
+        public String getEntityChecksumsFile() {
+            return entityChecksumsFile;
+        }
     }
 
     @SuppressWarnings("unused")
@@ -385,4 +460,63 @@ public class ImportConfigProperties {
             return encryptionSalt;
         }
     }
+
+    @SuppressWarnings("unused")
+    public static class ImportUsersProperties {
+        @NotNull
+        private final boolean bulkCreate;
+
+        @Min(1)
+        private final int bulkSize;
+
+        @NotNull
+        private final ImportUsersBulkPolicy bulkPolicy;
+
+        @Min(1)
+        private final int prefetchPageSize;
+
+        @Min(1)
+        private final int prefetchConcurrency;
+
+        @DecimalMin("0.0")
+        private final double prefetchMinRatio;
+
+        public ImportUsersProperties(boolean bulkCreate, int bulkSize, ImportUsersBulkPolicy bulkPolicy,
+                                     int prefetchPageSize, int prefetchConcurrency, double prefetchMinRatio) {
+            this.bulkCreate = bulkCreate;
+            this.bulkSize = bulkSize;
+            this.bulkPolicy = bulkPolicy;
+            this.prefetchPageSize = prefetchPageSize;
+            this.prefetchConcurrency = prefetchConcurrency;
+            this.prefetchMinRatio = prefetchMinRatio;
+        }
+
+        public boolean isBulkCreate() {
+            return bulkCreate;
+        }
+
+        public int getBulkSize() {
+            return bulkSize;
+        }
+
+        public ImportUsersBulkPolicy getBulkPolicy() {
+            return bulkPolicy;
+        }
+
+        public int getPrefetchPageSize() {
+            return prefetchPageSize;
+        }
+
+        public int getPrefetchConcurrency() {
+            return prefetchConcurrency;
+        }
+
+        public double getPrefetchMinRatio() {
+            return prefetchMinRatio;
+        }
+
+        public enum ImportUsersBulkPolicy {
+            SKIP, OVERWRITE, FAIL
+        }
+    }
 }
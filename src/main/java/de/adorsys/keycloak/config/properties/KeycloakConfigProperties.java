@@ -22,11 +22,14 @@ package de.adorsys.keycloak.config.properties;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
 import java.net.URL;
 import java.time.Duration;
 import javax.validation.Valid;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
@@ -69,6 +72,24 @@ public class KeycloakConfigProperties {
     @Valid
     private final KeycloakAvailabilityCheck availabilityCheck;
 
+    @NotNull
+    private final HttpEngine httpEngine;
+
+    @Min(1)
+    private final int affinityLanes;
+
+    @Valid
+    private final ConnectionPool connectionPool;
+
+    @Valid
+    private final Compression compression;
+
+    @Valid
+    private final AdaptiveConcurrency adaptiveConcurrency;
+
+    @Valid
+    private final Retry retry;
+
     public KeycloakConfigProperties(
             String loginRealm,
             String clientId,
@@ -81,7 +102,13 @@ public class KeycloakConfigProperties {
             URL httpProxy,
             KeycloakAvailabilityCheck availabilityCheck,
             Duration connectTimeout,
-            Duration readTimeout
+            Duration readTimeout,
+            HttpEngine httpEngine,
+            int affinityLanes,
+            ConnectionPool connectionPool,
+            Compression compression,
+            AdaptiveConcurrency adaptiveConcurrency,
+            Retry retry
     ) {
         this.loginRealm = loginRealm;
         this.clientId = clientId;
@@ -96,6 +123,12 @@ public class KeycloakConfigProperties {
         this.availabilityCheck = availabilityCheck;
         this.connectTimeout = connectTimeout;
         this.readTimeout = readTimeout;
+        this.httpEngine = httpEngine;
+        this.affinityLanes = affinityLanes;
+        this.connectionPool = connectionPool;
+        this.compression = compression;
+        this.adaptiveConcurrency = adaptiveConcurrency;
+        this.retry = retry;
     }
 
     public String getLoginRealm() {
@@ -150,6 +183,30 @@ public class KeycloakConfigProperties {
         return readTimeout;
     }
 
+    public HttpEngine getHttpEngine() {
+        return httpEngine;
+    }
+
+    public int getAffinityLanes() {
+        return affinityLanes;
+    }
+
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public AdaptiveConcurrency getAdaptiveConcurrency() {
+        return adaptiveConcurrency;
+    }
+
+    public Retry getRetry() {
+        return retry;
+    }
+
     public static class KeycloakAvailabilityCheck {
         @NotNull
         private final boolean enabled;
@@ -179,4 +236,152 @@ public class KeycloakConfigProperties {
             return retryDelay;
         }
     }
+
+    public enum HttpEngine {
+        APACHE, JDK
+    }
+
+    public static class ConnectionPool {
+        @Min(1)
+        private final int size;
+
+        @Min(1)
+        private final int maxPerRoute;
+
+        @NotNull
+        private final Duration ttl;
+
+        @NotNull
+        private final Duration idleTimeout;
+
+        @SuppressWarnings("unused")
+        public ConnectionPool(int size, int maxPerRoute, Duration ttl, Duration idleTimeout) {
+            this.size = size;
+            this.maxPerRoute = maxPerRoute;
+            this.ttl = ttl;
+            this.idleTimeout = idleTimeout;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getMaxPerRoute() {
+            return maxPerRoute;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+    }
+
+    public static class Compression {
+        @NotNull
+        private final boolean enabled;
+
+        @NotNull
+        private final boolean requestBodies;
+
+        @NotNull
+        private final DataSize requestThreshold;
+
+        @SuppressWarnings("unused")
+        public Compression(boolean enabled, boolean requestBodies, DataSize requestThreshold) {
+            this.enabled = enabled;
+            this.requestBodies = requestBodies;
+            this.requestThreshold = requestThreshold;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public boolean isRequestBodies() {
+            return requestBodies;
+        }
+
+        public DataSize getRequestThreshold() {
+            return requestThreshold;
+        }
+    }
+
+    public static class AdaptiveConcurrency {
+        @NotNull
+        private final boolean enabled;
+
+        @Min(1)
+        private final int initialLimit;
+
+        @Min(1)
+        private final int minLimit;
+
+        @Min(1)
+        private final int maxLimit;
+
+        @DecimalMin("1.0")
+        private final double latencyTolerance;
+
+        @SuppressWarnings("unused")
+        public AdaptiveConcurrency(boolean enabled, int initialLimit, int minLimit, int maxLimit, double latencyTolerance) {
+            this.enabled = enabled;
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.latencyTolerance = latencyTolerance;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public double getLatencyTolerance() {
+            return latencyTolerance;
+        }
+    }
+
+    public static class Retry {
+        @Min(0)
+        private final int maxRetries;
+
+        @NotNull
+        private final Duration delay;
+
+        @NotNull
+        private final Duration maxDelay;
+
+        @SuppressWarnings("unused")
+        public Retry(int maxRetries, Duration delay, Duration maxDelay) {
+            this.maxRetries = maxRetries;
+            this.delay = delay;
+            this.maxDelay = maxDelay;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public Duration getDelay() {
+            return delay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+    }
 }
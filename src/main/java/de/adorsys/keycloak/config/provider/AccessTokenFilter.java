@@ -0,0 +1,122 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.provider;
+
+import de.adorsys.keycloak.config.util.resteasy.ClientHttpEngineInterceptor;
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.internal.ClientInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.function.Supplier;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+
+/**
+ * Replaces the bearer token set by the admin client with the current token of the {@link AccessTokenManager}.
+ * <p>
+ * The admin client is built with a fixed token, its own filter adds it to every request. This filter runs after it and
+ * only touches requests which carry a bearer token, requests to the token endpoint or the logout stay as they are.
+ * <p>
+ * As an interceptor it sends a request rejected with {@code 401} once more with a new token, e.g. after the token was
+ * revoked or the session ended before the background refresh noticed.
+ */
+@Priority(Priorities.USER + 100)
+class AccessTokenFilter implements ClientRequestFilter, ClientHttpEngineInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(AccessTokenFilter.class);
+
+    private static final String BEARER = "Bearer ";
+
+    // the filter is registered once at the client, the token manager changes with every new admin client instance
+    private final Supplier<AccessTokenManager> accessTokenManager;
+
+    AccessTokenFilter(Supplier<AccessTokenManager> accessTokenManager) {
+        this.accessTokenManager = accessTokenManager;
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        AccessTokenManager tokenManager = accessTokenManager.get();
+        if (tokenManager != null && getBearerToken(requestContext.getHeaders()) != null) {
+            requestContext.getHeaders().putSingle(HttpHeaders.AUTHORIZATION, BEARER + tokenManager.getAccessTokenString());
+        }
+    }
+
+    @Override
+    public Response invoke(Invocation invocation, ClientHttpEngine engine) {
+        Response response = engine.invoke(invocation);
+        if (response.getStatus() != Response.Status.UNAUTHORIZED.getStatusCode()) {
+            return response;
+        }
+
+        AccessTokenManager tokenManager = accessTokenManager.get();
+        MultivaluedMap<String, Object> headers = ((ClientInvocation) invocation).getHeaders().getHeaders();
+        String rejectedToken = getBearerToken(headers);
+        if (tokenManager == null || rejectedToken == null) {
+            return response;
+        }
+
+        tokenManager.invalidate(rejectedToken);
+
+        String token;
+        try {
+            token = tokenManager.getAccessTokenString();
+        } catch (RuntimeException e) {
+            response.close();
+            throw e;
+        }
+
+        if (token.equals(rejectedToken)) {
+            return response;
+        }
+
+        logger.debug("Retry {} {} with a new access token", ((ClientInvocation) invocation).getMethod(),
+                ((ClientInvocation) invocation).getUri());
+
+        // releases the connection of the rejected attempt
+        response.close();
+        headers.putSingle(HttpHeaders.AUTHORIZATION, BEARER + token);
+
+        return engine.invoke(invocation);
+    }
+
+    private static String getBearerToken(MultivaluedMap<String, Object> headers) {
+        List<Object> values = headers.get(HttpHeaders.AUTHORIZATION);
+        if (values == null) {
+            return null;
+        }
+
+        for (Object value : values) {
+            if (value instanceof String && ((String) value).startsWith(BEARER)) {
+                return ((String) value).substring(BEARER.length());
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,173 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.provider;
+
+import org.keycloak.admin.client.token.TokenManager;
+import org.keycloak.representations.AccessTokenResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out the access token of the admin client without locking and refreshes it in background before it expires.
+ * <p>
+ * The {@link TokenManager} of the admin client is synchronized on every request and refreshes an expired token inline,
+ * so all request threads queue behind one refresh. Here the token endpoint is only called by the refresh thread, a
+ * request thread only waits for a token if the background refresh did not finish in time.
+ */
+public class AccessTokenManager implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AccessTokenManager.class);
+
+    private static final long MIN_REFRESH_AHEAD_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final long RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private final TokenManager tokenManager;
+    private final ScheduledExecutorService scheduler;
+    private final LongAdder backgroundRefreshes = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+
+    private volatile Token token;
+    private ScheduledFuture<?> scheduledRefresh;
+
+    public AccessTokenManager(TokenManager tokenManager) {
+        this.tokenManager = tokenManager;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Grants the first access token. Fails if the login is not possible.
+     */
+    public synchronized AccessTokenResponse grantToken() {
+        publish(tokenManager.getAccessToken());
+        return token.response;
+    }
+
+    public String getAccessTokenString() {
+        Token current = token;
+        if (current != null && System.currentTimeMillis() < current.staleAt) {
+            return current.response.getToken();
+        }
+
+        waits.increment();
+        return refreshIfStale().response.getToken();
+    }
+
+    public AccessTokenResponse getAccessToken() {
+        getAccessTokenString();
+        return token.response;
+    }
+
+    /**
+     * Refreshes the token immediately, e.g. after a realm is created to get a token including the roles of the realm.
+     */
+    public synchronized AccessTokenResponse refreshToken() {
+        publish(tokenManager.refreshToken());
+        return token.response;
+    }
+
+    /**
+     * Marks the token as stale after it was rejected by Keycloak, the next request waits for a new one.
+     */
+    public synchronized void invalidate(String accessToken) {
+        Token current = token;
+        if (current != null && current.response.getToken().equals(accessToken)) {
+            token = new Token(current.response, 0);
+        }
+    }
+
+    public long getBackgroundRefreshes() {
+        return backgroundRefreshes.sum();
+    }
+
+    /**
+     * Number of requests which had to wait for a token, because the background refresh was late or the token was rejected.
+     */
+    public long getWaits() {
+        return waits.sum();
+    }
+
+    private synchronized Token refreshIfStale() {
+        if (token == null) {
+            publish(tokenManager.getAccessToken());
+        } else if (System.currentTimeMillis() >= token.staleAt) {
+            publish(tokenManager.refreshToken());
+        }
+
+        return token;
+    }
+
+    private synchronized void refreshInBackground() {
+        try {
+            publish(tokenManager.refreshToken());
+            backgroundRefreshes.increment();
+        } catch (RuntimeException e) {
+            logger.warn("Unable to refresh access token, retry in {} seconds: {}",
+                    TimeUnit.MILLISECONDS.toSeconds(RETRY_DELAY_MILLIS), e.getMessage());
+            schedule(RETRY_DELAY_MILLIS);
+        }
+    }
+
+    private void publish(AccessTokenResponse response) {
+        long now = System.currentTimeMillis();
+        long lifetime = TimeUnit.SECONDS.toMillis(response.getExpiresIn());
+
+        // refresh a quarter of the lifetime ahead, but at least 10 seconds and at most half of the lifetime
+        long refreshAhead = Math.min(Math.max(lifetime / 4, MIN_REFRESH_AHEAD_MILLIS), lifetime / 2);
+
+        // requests use the token until half of that time is left, afterwards they wait for a new one
+        token = new Token(response, now + lifetime - refreshAhead / 2);
+        schedule(lifetime - refreshAhead);
+    }
+
+    private void schedule(long delayMillis) {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+
+        if (!scheduler.isShutdown()) {
+            scheduledRefresh = scheduler.schedule(this::refreshInBackground, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        scheduler.shutdownNow();
+    }
+
+    private static final class Token {
+        private final AccessTokenResponse response;
+        private final long staleAt;
+
+        private Token(AccessTokenResponse response, long staleAt) {
+            this.response = response;
+            this.staleAt = staleAt;
+        }
+    }
+}
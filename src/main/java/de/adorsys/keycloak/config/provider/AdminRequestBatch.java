@@ -0,0 +1,157 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.provider;
+
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.util.resteasy.AffinityLane;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriBuilder;
+
+/**
+ * Independent write requests to the admin API of one realm, e.g. the role and group mappings of a user. All requests
+ * are sent right away without waiting for the responses of the previous ones, {@link #await(String, Object...)} waits
+ * for all of them and reports all failed requests at once.
+ * <p>
+ * The requests run on the async executor of the RESTEasy client and pass the same filters and interceptors as the
+ * requests of the admin client. The affinity lane of the creating thread is kept.
+ */
+public class AdminRequestBatch {
+    private final Client client;
+    private final URI realmUri;
+    private final String accessToken;
+    private final int lane = AffinityLane.current();
+    private final List<PendingRequest> pending = new ArrayList<>();
+
+    AdminRequestBatch(Client client, URI realmUri, String accessToken) {
+        this.client = client;
+        this.realmUri = realmUri;
+        this.accessToken = accessToken;
+    }
+
+    /**
+     * Sends a {@code PUT} without body to the path below the realm, given as unencoded segments.
+     */
+    public AdminRequestBatch put(String... path) {
+        return send("PUT", null, path);
+    }
+
+    public AdminRequestBatch post(Object entity, String... path) {
+        return send("POST", Entity.json(entity), path);
+    }
+
+    public AdminRequestBatch delete(String... path) {
+        return send("DELETE", null, path);
+    }
+
+    /**
+     * Sends a {@code DELETE} with body, like the removal of role mappings.
+     */
+    public AdminRequestBatch delete(Object entity, String... path) {
+        return send("DELETE", Entity.json(entity), path);
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Waits for all requests sent so far. Throws if any of them failed, listing all failed requests.
+     */
+    public void await(String format, Object... args) {
+        List<String> failures = new ArrayList<>();
+        List<Throwable> causes = new ArrayList<>();
+
+        for (PendingRequest request : pending) {
+            try {
+                checkResponse(request, request.response.join());
+            } catch (RequestFailedException e) {
+                failures.add(e.getMessage());
+            } catch (CompletionException e) {
+                failures.add(request.description + ": " + e.getCause().getMessage());
+                causes.add(e.getCause());
+            }
+        }
+
+        int requests = pending.size();
+        pending.clear();
+
+        if (!failures.isEmpty()) {
+            ImportProcessingException error = new ImportProcessingException(
+                    "%s: %d of %d requests failed: %s", String.format(format, args), failures.size(), requests, failures
+            );
+            causes.forEach(error::addSuppressed);
+            throw error;
+        }
+    }
+
+    private AdminRequestBatch send(String method, Entity<?> entity, String... path) {
+        URI uri = UriBuilder.fromUri(realmUri).segment(path).build();
+
+        // the token is replaced by the current one when the request is sent
+        Invocation.Builder request = client.target(uri)
+                .request(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                .property(AffinityLane.PROPERTY, lane);
+
+        CompletableFuture<Response> response = (entity == null ? request.rx().method(method) : request.rx().method(method, entity))
+                .toCompletableFuture();
+
+        pending.add(new PendingRequest(method + " " + uri.getPath(), response));
+        return this;
+    }
+
+    private static void checkResponse(PendingRequest request, Response response) {
+        try (response) {
+            if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                String body = response.hasEntity() ? response.readEntity(String.class).trim() : "";
+                throw new RequestFailedException(String.format("%s: HTTP %d %s %s",
+                        request.description, response.getStatus(), response.getStatusInfo().getReasonPhrase(), body).trim());
+            }
+        }
+    }
+
+    private static final class PendingRequest {
+        private final String description;
+        private final CompletableFuture<Response> response;
+
+        private PendingRequest(String description, CompletableFuture<Response> response) {
+            this.description = description;
+            this.response = response;
+        }
+    }
+
+    private static final class RequestFailedException extends RuntimeException {
+        private RequestFailedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -26,6 +26,7 @@ import de.adorsys.keycloak.config.exception.InvalidImportException;
 import de.adorsys.keycloak.config.model.ImportResource;
 import de.adorsys.keycloak.config.model.KeycloakImport;
 import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.model.SectionChecksums;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -223,7 +224,15 @@ public class KeycloakImportProvider {
         Iterable<Object> yamlDocuments = yaml.loadAll(content);
 
         for (Object yamlDocument : yamlDocuments) {
-            realmImports.add(OBJECT_MAPPER.convertValue(yamlDocument, RealmImport.class));
+            RealmImport realmImport = OBJECT_MAPPER.convertValue(yamlDocument, RealmImport.class);
+
+            if (yamlDocument instanceof Map) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> document = (Map<String, Object>) yamlDocument;
+                realmImport.setSectionChecksums(new SectionChecksums(document));
+            }
+
+            realmImports.add(realmImport);
         }
 
         return realmImports;
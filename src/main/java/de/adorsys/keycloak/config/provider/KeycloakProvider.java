@@ -23,13 +23,21 @@ package de.adorsys.keycloak.config.provider;
 import de.adorsys.keycloak.config.exception.KeycloakProviderException;
 import de.adorsys.keycloak.config.properties.KeycloakConfigProperties;
 import de.adorsys.keycloak.config.util.ResteasyUtil;
+import de.adorsys.keycloak.config.util.resteasy.AdaptiveConcurrencyLimiter;
+import de.adorsys.keycloak.config.util.resteasy.ClientHttpEngineInterceptor;
+import de.adorsys.keycloak.config.util.resteasy.CompressionClientFilter;
+import de.adorsys.keycloak.config.util.resteasy.ConnectionPoolStatistics;
+import de.adorsys.keycloak.config.util.resteasy.RetryInterceptor;
+import de.adorsys.keycloak.config.util.resteasy.TransferStatistics;
 import net.jodah.failsafe.Failsafe;
 import net.jodah.failsafe.RetryPolicy;
 import org.jboss.resteasy.client.jaxrs.ResteasyClient;
 import org.jboss.resteasy.client.jaxrs.ResteasyWebTarget;
 import org.jboss.resteasy.client.jaxrs.internal.BasicAuthentication;
+import org.keycloak.admin.client.Config;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.KeycloakBuilder;
+import org.keycloak.admin.client.token.TokenManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,13 +45,15 @@ import org.springframework.stereotype.Component;
 
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
 import java.text.MessageFormat;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.Form;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriBuilder;
 
 /**
  * This class exists because we need to create a single keycloak instance or to close the keycloak before using a new one
@@ -54,31 +64,79 @@ public class KeycloakProvider implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(KeycloakProvider.class);
 
     private final KeycloakConfigProperties properties;
+    private final ConnectionPoolStatistics connectionPoolStatistics = new ConnectionPoolStatistics();
+    private final TransferStatistics transferStatistics = new TransferStatistics();
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final RetryInterceptor retryInterceptor;
     private final ResteasyClient resteasyClient;
 
-    private Keycloak keycloak;
+    private volatile Keycloak keycloak;
+    private volatile AccessTokenManager accessTokenManager;
 
     private String version;
 
     @Autowired
     private KeycloakProvider(KeycloakConfigProperties properties) {
         this.properties = properties;
+
+        KeycloakConfigProperties.AdaptiveConcurrency adaptiveConcurrency = this.properties.getAdaptiveConcurrency();
+        this.concurrencyLimiter = adaptiveConcurrency.isEnabled() ? new AdaptiveConcurrencyLimiter(
+                adaptiveConcurrency.getInitialLimit(),
+                adaptiveConcurrency.getMinLimit(),
+                adaptiveConcurrency.getMaxLimit(),
+                adaptiveConcurrency.getLatencyTolerance()
+        ) : null;
+
+        KeycloakConfigProperties.Retry retry = this.properties.getRetry();
+        this.retryInterceptor = new RetryInterceptor(retry.getMaxRetries(), retry.getDelay(), retry.getMaxDelay());
+
+        AccessTokenFilter accessTokenFilter = new AccessTokenFilter(() -> this.accessTokenManager);
+
+        // each retry passes the concurrency limit again, a request sent again with a new token is retried as well
+        List<ClientHttpEngineInterceptor> interceptors = new ArrayList<>();
+        interceptors.add(accessTokenFilter);
+        interceptors.add(this.retryInterceptor);
+        if (this.concurrencyLimiter != null) {
+            interceptors.add(this.concurrencyLimiter);
+        }
+
         this.resteasyClient = ResteasyUtil.getClient(
                 !this.properties.isSslVerify(),
                 this.properties.getHttpProxy(),
                 this.properties.getConnectTimeout(),
-                this.properties.getReadTimeout()
+                this.properties.getReadTimeout(),
+                this.properties.getHttpEngine(),
+                this.properties.getAffinityLanes(),
+                this.properties.getConnectionPool(),
+                this.connectionPoolStatistics,
+                interceptors
         );
+
+        KeycloakConfigProperties.Compression compression = this.properties.getCompression();
+        this.resteasyClient.register(new CompressionClientFilter(
+                compression.isEnabled(),
+                compression.isEnabled() && compression.isRequestBodies() ? compression.getRequestThreshold().toBytes() : -1,
+                this.transferStatistics
+        ));
+        this.resteasyClient.register(accessTokenFilter);
     }
 
     public Keycloak getInstance() {
-        if (keycloak == null || keycloak.isClosed()) {
-            keycloak = createKeycloak();
-
-            checkServerVersion();
+        Keycloak instance = keycloak;
+        if (instance != null && !instance.isClosed()) {
+            return instance;
         }
 
-        return keycloak;
+        // realms may be imported concurrently, only one of them creates the instance
+        synchronized (this) {
+            if (keycloak == null || keycloak.isClosed()) {
+                keycloak = createKeycloak();
+
+                checkServerVersion();
+            }
+
+            return keycloak;
+        }
     }
 
     public String getKeycloakVersion() {
@@ -89,8 +147,42 @@ public class KeycloakProvider implements AutoCloseable {
         return version;
     }
 
+    public ConnectionPoolStatistics getConnectionPoolStatistics() {
+        return connectionPoolStatistics;
+    }
+
+    public TransferStatistics getTransferStatistics() {
+        return transferStatistics;
+    }
+
+    /**
+     * Limiter of the admin requests in flight, {@code null} if {@code keycloak.adaptive-concurrency.enabled} is off.
+     */
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    public RetryInterceptor getRetryInterceptor() {
+        return retryInterceptor;
+    }
+
+    public AccessTokenManager getAccessTokenManager() {
+        return accessTokenManager;
+    }
+
     public void refreshToken() {
-        getInstance().tokenManager().refreshToken();
+        getInstance();
+        accessTokenManager.refreshToken();
+    }
+
+    public AdminRequestBatch newAdminRequestBatch(String realmName) {
+        getInstance();
+
+        URI realmUri = UriBuilder.fromUri(properties.getUrl().toString())
+                .path("admin").path("realms").segment(realmName)
+                .build();
+
+        return new AdminRequestBatch(resteasyClient, realmUri, accessTokenManager.getAccessTokenString());
     }
 
     public <T> T getCustomApiProxy(Class<T> proxyClass) {
@@ -138,27 +230,45 @@ public class KeycloakProvider implements AutoCloseable {
     }
 
     private Keycloak getKeycloak() {
-        URL serverUrl = properties.getUrl();
+        String serverUrl = properties.getUrl().toString();
 
-        Keycloak keycloakInstance = getKeycloakInstance(serverUrl.toString());
-        keycloakInstance.tokenManager().getAccessToken();
+        AccessTokenManager tokenManager = createAccessTokenManager(serverUrl);
+        String accessToken;
+        try {
+            accessToken = tokenManager.grantToken().getToken();
+        } catch (RuntimeException e) {
+            tokenManager.close();
+            throw e;
+        }
 
-        return keycloakInstance;
-    }
+        if (accessTokenManager != null) {
+            accessTokenManager.close();
+        }
+        accessTokenManager = tokenManager;
 
-    private Keycloak getKeycloakInstance(String serverUrl) {
+        // the admin client gets a fixed token, the AccessTokenFilter replaces it with the current one on every request
         return KeycloakBuilder.builder()
                 .serverUrl(serverUrl)
-                .realm(properties.getLoginRealm())
-                .clientId(properties.getClientId())
-                .grantType(properties.getGrantType())
-                .clientSecret(properties.getClientSecret())
-                .username(properties.getUser())
-                .password(properties.getPassword())
+                .authorization(accessToken)
                 .resteasyClient(resteasyClient)
                 .build();
     }
 
+    private AccessTokenManager createAccessTokenManager(String serverUrl) {
+        Config config = new Config(
+                serverUrl,
+                properties.getLoginRealm(),
+                properties.getUser(),
+                properties.getPassword(),
+                properties.getClientId(),
+                properties.getClientSecret(),
+                properties.getGrantType(),
+                null
+        );
+
+        return new AccessTokenManager(new TokenManager(config, resteasyClient));
+    }
+
     private void checkServerVersion() {
         if (properties.getVersion().equals("@keycloak.version@")) return;
 
@@ -179,6 +289,7 @@ public class KeycloakProvider implements AutoCloseable {
         if (!isClosed()) {
             logout();
             keycloak.close();
+            accessTokenManager.close();
         }
     }
 
@@ -197,7 +308,7 @@ public class KeycloakProvider implements AutoCloseable {
      * returns 204 if successful, 400 if not with a json error response.
      */
     private void logout() {
-        String refreshToken = this.keycloak.tokenManager().getAccessToken().getRefreshToken();
+        String refreshToken = this.accessTokenManager.getAccessToken().getRefreshToken();
         // if we do not have a refreshToken, we are not able ot logout (grant_type=client_credentials)
         if (refreshToken == null) {
             return;
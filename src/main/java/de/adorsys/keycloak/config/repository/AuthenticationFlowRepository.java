@@ -95,6 +95,8 @@ public class AuthenticationFlowRepository {
 
             throw new ImportProcessingException(errorMessage, error);
         }
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public void update(String realmName, AuthenticationFlowRepresentation flow) {
@@ -106,6 +108,8 @@ public class AuthenticationFlowRepository {
 
             throw new ImportProcessingException(errorMessage, error);
         }
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public AuthenticationFlowRepresentation getFlowById(String realmName, String id) {
@@ -138,6 +142,8 @@ public class AuthenticationFlowRepository {
                     e
             );
         }
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public AuthenticationManagementResource getFlowResources(String realmName) {
@@ -156,8 +162,7 @@ public class AuthenticationFlowRepository {
     }
 
     public List<AuthenticationFlowRepresentation> getAll(String realmName) {
-        RealmRepresentation realmExport = realmRepository
-                .partialExport(realmName, false, false);
+        RealmRepresentation realmExport = realmRepository.partialExport(realmName, false, false);
 
         return realmExport.getAuthenticationFlows();
     }
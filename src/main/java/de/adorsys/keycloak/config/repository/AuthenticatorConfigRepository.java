@@ -55,6 +55,8 @@ public class AuthenticatorConfigRepository {
     public void delete(String realmName, String id) {
         AuthenticationManagementResource flowsResource = authenticationFlowRepository.getFlowResources(realmName);
         flowsResource.removeAuthenticatorConfig(id);
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public void create(
@@ -64,6 +66,8 @@ public class AuthenticatorConfigRepository {
     ) {
         AuthenticationManagementResource flowsResource = authenticationFlowRepository.getFlowResources(realmName);
         flowsResource.newExecutionConfig(executionId, authenticatorConfigRepresentation);
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public void update(
@@ -72,6 +76,8 @@ public class AuthenticatorConfigRepository {
     ) {
         AuthenticationManagementResource flowsResource = authenticationFlowRepository.getFlowResources(realmName);
         flowsResource.updateAuthenticatorConfig(authenticatorConfigRepresentation.getId(), authenticatorConfigRepresentation);
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public List<AuthenticatorConfigRepresentation> getAll(String realmName) {
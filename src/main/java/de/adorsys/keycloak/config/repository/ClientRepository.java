@@ -22,6 +22,7 @@ package de.adorsys.keycloak.config.repository;
 
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.exception.KeycloakRepositoryException;
+import de.adorsys.keycloak.config.provider.AdminRequestBatch;
 import de.adorsys.keycloak.config.util.ResponseUtil;
 import org.keycloak.admin.client.CreatedResponseUtil;
 import org.keycloak.admin.client.resource.ClientResource;
@@ -37,10 +38,15 @@ import org.keycloak.representations.idm.authorization.ScopeRepresentation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
@@ -50,37 +56,19 @@ public class ClientRepository {
 
     private final RealmRepository realmRepository;
 
+    private final Map<String, ClientCatalog> clientCatalogs = new ConcurrentHashMap<>();
+
     @Autowired
     public ClientRepository(RealmRepository realmRepository) {
         this.realmRepository = realmRepository;
     }
 
     public Optional<ClientRepresentation> searchByClientId(String realmName, String clientId) {
-        List<ClientRepresentation> foundClients = getResource(realmName).findByClientId(Objects.requireNonNull(clientId));
-
-        Optional<ClientRepresentation> client;
-        if (foundClients.isEmpty()) {
-            client = Optional.empty();
-        } else {
-            client = Optional.of(foundClients.get(0));
-        }
-
-        return client;
+        return getCatalog(realmName).getByClientId(Objects.requireNonNull(clientId));
     }
 
     public Optional<ClientRepresentation> searchByName(String realmName, String name) {
-        Objects.requireNonNull(name);
-
-        // this is expensive, but easy to implement.
-        // if this too expensive, please provide a PR which implement a pagination for findAll()
-        Optional<ClientRepresentation> foundClients = realmRepository.getResource(realmName)
-                .partialExport(false, true)
-                .getClients()
-                .stream()
-                .filter(client -> Objects.equals(name, client.getName()))
-                .findAny();
-
-        return foundClients.map(clientRepresentation -> getByClientId(realmName, clientRepresentation.getId()));
+        return getCatalog(realmName).getByName(Objects.requireNonNull(name));
     }
 
     public ClientRepresentation getByClientId(String realmName, String clientId) {
@@ -114,7 +102,8 @@ public class ClientRepository {
 
     public void create(String realmName, ClientRepresentation client) {
         try (Response response = getResource(realmName).create(client)) {
-            CreatedResponseUtil.getCreatedId(response);
+            String id = CreatedResponseUtil.getCreatedId(response);
+            refresh(realmName, id);
         } catch (WebApplicationException error) {
             String errorMessage = ResponseUtil.getErrorMessage(error);
 
@@ -123,16 +112,29 @@ public class ClientRepository {
                     error
             );
         }
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public void update(String realmName, ClientRepresentation client) {
         ClientResource clientResource = getResourceById(realmName, client.getId());
         clientResource.update(client);
+        refresh(realmName, client.getId());
     }
 
     public void remove(String realmName, ClientRepresentation client) {
         ClientResource clientResource = getResourceById(realmName, client.getId());
         clientResource.remove();
+        getCatalog(realmName).remove(client.getId());
+
+        realmRepository.invalidatePartialExport(realmName);
+    }
+
+    /**
+     * Drops the client catalog of the realm, it will be loaded again on the next access.
+     */
+    public void invalidate(String realmName) {
+        clientCatalogs.remove(realmName);
     }
 
     private ClientsResource getResource(String realmName) {
@@ -163,7 +165,7 @@ public class ClientRepository {
     }
 
     public final List<ClientRepresentation> getAll(String realmName) {
-        return getResource(realmName).findAll();
+        return getCatalog(realmName).getAll();
     }
 
     public void updateAuthorizationSettings(String realmName, String id, ResourceServerRepresentation authorizationSettings) {
@@ -232,6 +234,8 @@ public class ClientRepository {
                 .getScopeMappings()
                 .clientLevel(clientLevelId)
                 .add(roles);
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public void removeScopeMapping(String realmName, String clientId,
@@ -241,42 +245,64 @@ public class ClientRepository {
                 .getScopeMappings()
                 .clientLevel(clientLevelId)
                 .remove(roles);
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public void addDefaultClientScopes(String realmName, String clientId,
                                        List<ClientScopeRepresentation> defaultClientScopes) {
-        ClientResource clientResource = getResourceByClientId(realmName, clientId);
+        ClientRepresentation client = getByClientId(realmName, clientId);
 
+        // one request per scope, all of them in flight at the same time
+        AdminRequestBatch batch = realmRepository.newRequestBatch(realmName);
         for (ClientScopeRepresentation defaultClientScope : defaultClientScopes) {
-            clientResource.addDefaultClientScope(defaultClientScope.getId());
+            batch.put("clients", client.getId(), "default-client-scopes", defaultClientScope.getId());
         }
+        batch.await("Add default client scopes to client '%s' in realm '%s'", clientId, realmName);
+
+        getCatalog(realmName).put(getResourceById(realmName, client.getId()).toRepresentation());
     }
 
     public void removeDefaultClientScopes(String realmName, String clientId,
                                           List<ClientScopeRepresentation> defaultClientScopes) {
-        ClientResource clientResource = getResourceByClientId(realmName, clientId);
+        ClientRepresentation client = getByClientId(realmName, clientId);
 
+        // one request per scope, all of them in flight at the same time
+        AdminRequestBatch batch = realmRepository.newRequestBatch(realmName);
         for (ClientScopeRepresentation defaultClientScope : defaultClientScopes) {
-            clientResource.removeDefaultClientScope(defaultClientScope.getId());
+            batch.delete("clients", client.getId(), "default-client-scopes", defaultClientScope.getId());
         }
+        batch.await("Remove default client scopes from client '%s' in realm '%s'", clientId, realmName);
+
+        getCatalog(realmName).put(getResourceById(realmName, client.getId()).toRepresentation());
     }
 
     public void addOptionalClientScopes(String realmName, String clientId,
                                         List<ClientScopeRepresentation> optionalClientScopes) {
-        ClientResource clientResource = getResourceByClientId(realmName, clientId);
+        ClientRepresentation client = getByClientId(realmName, clientId);
 
+        // one request per scope, all of them in flight at the same time
+        AdminRequestBatch batch = realmRepository.newRequestBatch(realmName);
         for (ClientScopeRepresentation optionalClientScope : optionalClientScopes) {
-            clientResource.addOptionalClientScope(optionalClientScope.getId());
+            batch.put("clients", client.getId(), "optional-client-scopes", optionalClientScope.getId());
         }
+        batch.await("Add optional client scopes to client '%s' in realm '%s'", clientId, realmName);
+
+        getCatalog(realmName).put(getResourceById(realmName, client.getId()).toRepresentation());
     }
 
     public void removeOptionalClientScopes(String realmName, String clientId,
                                            List<ClientScopeRepresentation> optionalClientScopes) {
-        ClientResource clientResource = getResourceByClientId(realmName, clientId);
+        ClientRepresentation client = getByClientId(realmName, clientId);
 
+        // one request per scope, all of them in flight at the same time
+        AdminRequestBatch batch = realmRepository.newRequestBatch(realmName);
         for (ClientScopeRepresentation optionalClientScope : optionalClientScopes) {
-            clientResource.removeOptionalClientScope(optionalClientScope.getId());
+            batch.delete("clients", client.getId(), "optional-client-scopes", optionalClientScope.getId());
         }
+        batch.await("Remove optional client scopes from client '%s' in realm '%s'", clientId, realmName);
+
+        getCatalog(realmName).put(getResourceById(realmName, client.getId()).toRepresentation());
     }
 
     public void enablePermission(String realmName, String id) {
@@ -290,4 +316,63 @@ public class ClientRepository {
 
         return clientResource.getPermissions().isEnabled();
     }
+
+    private ClientCatalog getCatalog(String realmName) {
+        return clientCatalogs.computeIfAbsent(realmName, name -> new ClientCatalog(getResource(name).findAll()));
+    }
+
+    private void refresh(String realmName, String id) {
+        getCatalog(realmName).put(getResourceById(realmName, id).toRepresentation());
+    }
+
+    /**
+     * All clients of a realm, loaded by one findAll() call and indexed by id, clientId and name.
+     * Kept up to date by the write operations of this repository. The representations are shared
+     * with all callers and must not be modified, callers which change a client work on a clone.
+     */
+    private static final class ClientCatalog {
+        private final Map<String, ClientRepresentation> byId = new LinkedHashMap<>();
+        private final Map<String, ClientRepresentation> byClientId = new HashMap<>();
+        private final Map<String, ClientRepresentation> byName = new HashMap<>();
+
+        private ClientCatalog(List<ClientRepresentation> clients) {
+            clients.forEach(this::put);
+        }
+
+        private synchronized Optional<ClientRepresentation> getByClientId(String clientId) {
+            return Optional.ofNullable(byClientId.get(clientId));
+        }
+
+        private synchronized Optional<ClientRepresentation> getByName(String name) {
+            return Optional.ofNullable(byName.get(name));
+        }
+
+        private synchronized List<ClientRepresentation> getAll() {
+            return new ArrayList<>(byId.values());
+        }
+
+        private synchronized void put(ClientRepresentation client) {
+            remove(client.getId());
+
+            byId.put(client.getId(), client);
+            byClientId.put(client.getClientId(), client);
+            if (client.getName() != null) {
+                byName.putIfAbsent(client.getName(), client);
+            }
+        }
+
+        private synchronized void remove(String id) {
+            ClientRepresentation client = byId.remove(id);
+            if (client == null) return;
+
+            byClientId.remove(client.getClientId());
+            if (client.getName() != null && byName.get(client.getName()) == client) {
+                byName.remove(client.getName());
+                byId.values().stream()
+                        .filter(other -> Objects.equals(other.getName(), client.getName()))
+                        .findFirst()
+                        .ifPresent(other -> byName.put(other.getName(), other));
+            }
+        }
+    }
 }
@@ -81,11 +81,15 @@ public class ClientScopeRepository {
         try (Response response = realmRepository.getResource(realmName).clientScopes().create(clientScope)) {
             CreatedResponseUtil.getCreatedId(response);
         }
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public void delete(String realmName, String id) {
         ClientScopeResource clientScopeResource = getResourceById(realmName, id);
         clientScopeResource.remove();
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public void update(String realmName, ClientScopeRepresentation clientScope) {
@@ -45,10 +45,15 @@ public class ExecutionFlowRepository {
     private static final Logger logger = LoggerFactory.getLogger(ExecutionFlowRepository.class);
 
     private final AuthenticationFlowRepository authenticationFlowRepository;
+    private final RealmRepository realmRepository;
 
     @Autowired
-    public ExecutionFlowRepository(AuthenticationFlowRepository authenticationFlowRepository) {
+    public ExecutionFlowRepository(
+            AuthenticationFlowRepository authenticationFlowRepository,
+            RealmRepository realmRepository
+    ) {
         this.authenticationFlowRepository = authenticationFlowRepository;
+        this.realmRepository = realmRepository;
     }
 
     public List<AuthenticationExecutionInfoRepresentation> getExecutionFlowsByAlias(
@@ -87,6 +92,8 @@ public class ExecutionFlowRepository {
 
         AuthenticationManagementResource flowsResource = authenticationFlowRepository.getFlowResources(realmName);
         flowsResource.addExecutionFlow(topLevelFlowAlias, executionFlowData);
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public void updateExecutionFlow(
@@ -99,6 +106,8 @@ public class ExecutionFlowRepository {
 
         AuthenticationManagementResource flowsResource = authenticationFlowRepository.getFlowResources(realmName);
         flowsResource.updateExecutions(flowAlias, executionFlowToUpdate);
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public String createTopLevelFlowExecution(
@@ -112,7 +121,9 @@ public class ExecutionFlowRepository {
                 .getFlowResources(realmName);
 
         try (Response response = flowsResource.addExecution(executionToCreate)) {
-            return CreatedResponseUtil.getCreatedId(response);
+            String executionId = CreatedResponseUtil.getCreatedId(response);
+            realmRepository.invalidatePartialExport(realmName);
+            return executionId;
         } catch (WebApplicationException error) {
             AuthenticationFlowRepresentation parentFlow = authenticationFlowRepository
                     .getFlowById(realmName, executionToCreate.getParentFlow());
@@ -140,6 +151,8 @@ public class ExecutionFlowRepository {
 
         logger.trace("Created flow-execution in realm '{}' and non-top-level-flow '{}'",
                 realmName, subFlowAlias);
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     private List<AuthenticationExecutionInfoRepresentation> searchByAlias(
@@ -21,12 +21,12 @@
 package de.adorsys.keycloak.config.repository;
 
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.provider.AdminRequestBatch;
 import org.keycloak.admin.client.CreatedResponseUtil;
 import org.keycloak.admin.client.resource.GroupResource;
 import org.keycloak.admin.client.resource.GroupsResource;
 import org.keycloak.admin.client.resource.RoleMappingResource;
 import org.keycloak.admin.client.resource.RoleScopeResource;
-import org.keycloak.admin.client.resource.UserResource;
 import org.keycloak.representations.idm.ClientRepresentation;
 import org.keycloak.representations.idm.GroupRepresentation;
 import org.keycloak.representations.idm.ManagementPermissionRepresentation;
@@ -35,9 +35,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import javax.ws.rs.core.Response;
 
@@ -49,6 +52,8 @@ public class GroupRepository {
     private final ClientRepository clientRepository;
     private final UserRepository userRepository;
 
+    private final Map<String, GroupTree> groupTrees = new ConcurrentHashMap<>();
+
     @Autowired
     public GroupRepository(
             RealmRepository realmRepository,
@@ -65,7 +70,10 @@ public class GroupRepository {
         GroupsResource groupsResource = realmRepository.getResource(realmName)
                 .groups();
 
-        return groupsResource.groups();
+        List<GroupRepresentation> groups = groupsResource.groups();
+        groupTrees.put(realmName, new GroupTree(groups));
+
+        return groups;
     }
 
     public List<GroupRepresentation> findGroupsByGroupPath(String realmName, List<String> groupPaths) {
@@ -86,29 +94,32 @@ public class GroupRepository {
     }
 
     public Optional<GroupRepresentation> searchByName(String realmName, String groupName) {
-        GroupsResource groupsResource = realmRepository.getResource(realmName)
-                .groups();
-
-        return groupsResource.groups()
-                .stream()
-                .filter(g -> Objects.equals(g.getName(), groupName))
-                .findFirst();
+        return getGroupTree(realmName).getTopLevelGroup(groupName);
     }
 
     public void createGroup(String realmName, GroupRepresentation group) {
         GroupsResource groupsResource = realmRepository.getResource(realmName).groups();
         try (Response response = groupsResource.add(group)) {
-            CreatedResponseUtil.getCreatedId(response);
+            String id = CreatedResponseUtil.getCreatedId(response);
+            getGroupTree(realmName).add(id, group.getName(), null);
         }
     }
 
     public void addSubGroup(String realmName, String parentGroupId, GroupRepresentation subGroup) {
         GroupResource groupResource = getResourceById(realmName, parentGroupId);
         try (Response response = groupResource.subGroup(subGroup)) {
-            CreatedResponseUtil.getCreatedId(response);
+            String id = CreatedResponseUtil.getCreatedId(response);
+            getGroupTree(realmName).add(id, subGroup.getName(), parentGroupId);
         }
     }
 
+    /**
+     * Drops the group index of the realm, it will be loaded again on the next access.
+     */
+    public void invalidate(String realmName) {
+        groupTrees.remove(realmName);
+    }
+
     public GroupRepresentation getSubGroupByName(String realmName, String parentGroupId, String name) {
         GroupRepresentation existingGroup = getResourceById(realmName, parentGroupId).toRepresentation();
 
@@ -146,19 +157,20 @@ public class GroupRepository {
     public void deleteGroup(String realmName, String id) {
         GroupResource groupResource = getResourceById(realmName, id);
         groupResource.remove();
+        getGroupTree(realmName).remove(id);
     }
 
-    public void addGroupsToUser(String realmName, String username, List<GroupRepresentation> groups) {
-        UserResource userResource = userRepository.getResource(realmName, username);
+    public void addGroupsToUser(AdminRequestBatch batch, String realmName, String username, List<GroupRepresentation> groups) {
+        String userId = userRepository.getUserId(realmName, username);
         for (GroupRepresentation group : groups) {
-            userResource.joinGroup(group.getId());
+            batch.put("users", userId, "groups", group.getId());
         }
     }
 
-    public void removeGroupsFromUser(String realmName, String username, List<GroupRepresentation> groups) {
-        UserResource userResource = userRepository.getResource(realmName, username);
+    public void removeGroupsFromUser(AdminRequestBatch batch, String realmName, String username, List<GroupRepresentation> groups) {
+        String userId = userRepository.getUserId(realmName, username);
         for (GroupRepresentation group : groups) {
-            userResource.leaveGroup(group.getId());
+            batch.delete("users", userId, "groups", group.getId());
         }
     }
 
@@ -206,7 +218,8 @@ public class GroupRepository {
     }
 
     public GroupRepresentation getGroupByPath(String realmName, String groupPath) {
-        return realmRepository.getResource(realmName).getGroupByPath(groupPath);
+        return getGroupTree(realmName).getGroupByPath(groupPath)
+                .orElseGet(() -> realmRepository.getResource(realmName).getGroupByPath(groupPath));
     }
 
     public void enablePermission(String realmName, String id) {
@@ -238,4 +251,74 @@ public class GroupRepository {
                 .groups()
                 .group(groupId);
     }
+
+    private GroupTree getGroupTree(String realmName) {
+        return groupTrees.computeIfAbsent(realmName, name -> new GroupTree(realmRepository.getResource(name).groups().groups()));
+    }
+
+    /**
+     * Index of the group hierarchy of a realm by id, path and top-level name, built from one full group listing.
+     * The index holds brief representations (id, name and path) only.
+     */
+    private static final class GroupTree {
+        private final Map<String, GroupRepresentation> byId = new HashMap<>();
+        private final Map<String, GroupRepresentation> byPath = new HashMap<>();
+        private final Map<String, GroupRepresentation> topLevelByName = new HashMap<>();
+
+        private GroupTree(List<GroupRepresentation> topLevelGroups) {
+            topLevelGroups.forEach(group -> addRecursive(group, null));
+        }
+
+        private void addRecursive(GroupRepresentation group, String parentPath) {
+            put(group.getId(), group.getName(), parentPath);
+
+            if (group.getSubGroups() != null) {
+                group.getSubGroups().forEach(subGroup -> addRecursive(subGroup, byId.get(group.getId()).getPath()));
+            }
+        }
+
+        private synchronized Optional<GroupRepresentation> getTopLevelGroup(String name) {
+            return Optional.ofNullable(topLevelByName.get(name));
+        }
+
+        private synchronized Optional<GroupRepresentation> getGroupByPath(String path) {
+            return Optional.ofNullable(byPath.get(path));
+        }
+
+        private synchronized void add(String id, String name, String parentId) {
+            GroupRepresentation parent = parentId == null ? null : byId.get(parentId);
+            if (parentId != null && parent == null) return;
+
+            put(id, name, parent == null ? null : parent.getPath());
+        }
+
+        private void put(String id, String name, String parentPath) {
+            GroupRepresentation group = new GroupRepresentation();
+            group.setId(id);
+            group.setName(name);
+            group.setPath((parentPath == null ? "" : parentPath) + "/" + name);
+
+            byId.put(id, group);
+            byPath.put(group.getPath(), group);
+            if (parentPath == null) {
+                topLevelByName.putIfAbsent(name, group);
+            }
+        }
+
+        private synchronized void remove(String id) {
+            GroupRepresentation group = byId.get(id);
+            if (group == null) return;
+
+            String subGroupPathPrefix = group.getPath() + "/";
+            List<GroupRepresentation> removedGroups = byId.values().stream()
+                    .filter(g -> g == group || g.getPath().startsWith(subGroupPathPrefix))
+                    .collect(Collectors.toList());
+
+            for (GroupRepresentation removedGroup : removedGroups) {
+                byId.remove(removedGroup.getId());
+                byPath.remove(removedGroup.getPath());
+                topLevelByName.remove(removedGroup.getName(), removedGroup);
+            }
+        }
+    }
 }
@@ -78,6 +78,8 @@ public class IdentityProviderRepository {
         try (Response response = identityProvidersResource.create(identityProvider)) {
             CreatedResponseUtil.getCreatedId(response);
         }
+
+        realmRepository.invalidate(realmName);
     }
 
     public void update(String realmName, IdentityProviderRepresentation identityProviderToUpdate) {
@@ -86,6 +88,7 @@ public class IdentityProviderRepository {
                 .get(identityProviderToUpdate.getAlias());
 
         identityProviderResource.update(identityProviderToUpdate);
+        realmRepository.invalidate(realmName);
     }
 
     public void delete(String realmName, IdentityProviderRepresentation identityProviderToDelete) {
@@ -94,6 +97,7 @@ public class IdentityProviderRepository {
                 .get(identityProviderToDelete.getInternalId());
 
         identityProviderResource.remove();
+        realmRepository.invalidate(realmName);
     }
 
     public boolean isPermissionEnabled(String realmName, String alias) {
@@ -21,7 +21,9 @@
 package de.adorsys.keycloak.config.repository;
 
 import de.adorsys.keycloak.config.exception.KeycloakRepositoryException;
+import de.adorsys.keycloak.config.provider.AdminRequestBatch;
 import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.util.CloneUtil;
 import de.adorsys.keycloak.config.util.ResponseUtil;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.resource.RealmResource;
@@ -30,12 +32,30 @@ import org.keycloak.representations.idm.RealmRepresentation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.ws.rs.WebApplicationException;
 
 @Service
 public class RealmRepository {
     private final KeycloakProvider keycloakProvider;
 
+    /*
+     * Snapshot of the realm representation per realm, shared by all readers of an import run.
+     * Any write through this repository drops the snapshot, so the next reader fetches it again.
+     */
+    private final Map<String, RealmRepresentation> realmSnapshots = new ConcurrentHashMap<>();
+
+    /*
+     * Partial exports per realm and export options. Authentication flows and authenticator configs
+     * are read from the light export, scope mappings and client scope mappings from the one including
+     * groups, roles and clients. Repositories writing one of these entity types (or clients, client
+     * scopes and roles, which own scope mappings) drop all exports of the realm by calling
+     * invalidatePartialExport().
+     */
+    private final Map<String, Map<List<Boolean>, RealmRepresentation>> partialExports = new ConcurrentHashMap<>();
+
     @Autowired
     public RealmRepository(KeycloakProvider keycloakProvider) {
         this.keycloakProvider = keycloakProvider;
@@ -43,7 +63,7 @@ public class RealmRepository {
 
     public boolean exists(String realmName) {
         try {
-            get(realmName);
+            getSnapshot(realmName);
         } catch (javax.ws.rs.NotFoundException e) {
             return false;
         }
@@ -55,8 +75,39 @@ public class RealmRepository {
         return keycloakProvider.getInstance().realms().realm(realmName);
     }
 
+    /**
+     * Starts a batch of independent requests to the realm, which are sent without waiting for each other.
+     */
+    public AdminRequestBatch newRequestBatch(String realmName) {
+        return keycloakProvider.newAdminRequestBatch(realmName);
+    }
+
+    /**
+     * Returns a copy of the realm representation. The representation is fetched once and then shared
+     * until the realm gets written by this repository or {@link #invalidate(String)} is called.
+     * Changes to the returned copy only reach the snapshot by passing it to {@link #update(RealmRepresentation)}.
+     */
     public RealmRepresentation get(String realmName) {
-        return getResource(realmName).toRepresentation();
+        return CloneUtil.deepClone(getSnapshot(realmName));
+    }
+
+    private RealmRepresentation getSnapshot(String realmName) {
+        return realmSnapshots.computeIfAbsent(realmName, name -> getResource(name).toRepresentation());
+    }
+
+    /**
+     * Drops the cached realm representation and partial export, e.g. after realm level data was changed through another resource.
+     */
+    public void invalidate(String realmName) {
+        realmSnapshots.remove(realmName);
+        partialExports.remove(realmName);
+    }
+
+    /**
+     * Drops the cached partial export after an entity contained in it was changed.
+     */
+    public void invalidatePartialExport(String realmName) {
+        partialExports.remove(realmName);
     }
 
     public void create(RealmRepresentation realm) {
@@ -71,6 +122,8 @@ public class RealmRepository {
                     String.format("Cannot create realm '%s': %s", realm.getRealm(), errorMessage),
                     error
             );
+        } finally {
+            invalidate(realm.getRealm());
         }
     }
 
@@ -83,26 +136,41 @@ public class RealmRepository {
                     String.format("Cannot update realm '%s': %s", realm.getRealm(), errorMessage),
                     error
             );
+        } finally {
+            invalidate(realm.getRealm());
         }
     }
 
+    /**
+     * Returns a partial export of the realm. The export is fetched once per export options and shared until
+     * {@link #invalidatePartialExport(String)} is called. The returned instance must not be modified.
+     */
     public RealmRepresentation partialExport(String realmName, boolean exportGroupsAndRoles, boolean exportClients) {
-        return getResource(realmName).partialExport(exportGroupsAndRoles, exportClients);
+        return partialExports
+                .computeIfAbsent(realmName, name -> new ConcurrentHashMap<>())
+                .computeIfAbsent(
+                        List.of(exportGroupsAndRoles, exportClients),
+                        options -> getResource(realmName).partialExport(exportGroupsAndRoles, exportClients)
+                );
     }
 
     public void addDefaultDefaultClientScope(String realmName, String scopeId) {
         getResource(realmName).addDefaultDefaultClientScope(scopeId);
+        invalidate(realmName);
     }
 
     public void addDefaultOptionalClientScope(String realmName, String scopeId) {
         getResource(realmName).addDefaultOptionalClientScope(scopeId);
+        invalidate(realmName);
     }
 
     public void removeDefaultDefaultClientScope(String realmName, String scopeId) {
         getResource(realmName).removeDefaultDefaultClientScope(scopeId);
+        invalidate(realmName);
     }
 
     public void removeDefaultOptionalClientScope(String realmName, String scopeId) {
         getResource(realmName).removeDefaultOptionalClientScope(scopeId);
+        invalidate(realmName);
     }
 }
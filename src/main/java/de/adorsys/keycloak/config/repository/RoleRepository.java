@@ -22,6 +22,7 @@ package de.adorsys.keycloak.config.repository;
 
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.exception.KeycloakRepositoryException;
+import de.adorsys.keycloak.config.provider.AdminRequestBatch;
 import de.adorsys.keycloak.config.provider.KeycloakProvider;
 import de.adorsys.keycloak.config.resource.ManagementPermissions;
 import org.keycloak.admin.client.resource.*;
@@ -31,6 +32,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -40,6 +42,14 @@ public class RoleRepository {
     private final UserRepository userRepository;
     private final KeycloakProvider keycloakProvider;
 
+    /*
+     * Role catalogs, role name to (brief) role representation. Realm roles are kept per realm,
+     * client roles per realm and client id (the internal one, so a re-created client gets a new catalog).
+     * A catalog is loaded by one list call; names missing in a catalog are looked up one by one.
+     */
+    private final Map<String, Map<String, RoleRepresentation>> realmRoleCatalogs = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Map<String, RoleRepresentation>>> clientRoleCatalogs = new ConcurrentHashMap<>();
+
     @Autowired
     public RoleRepository(
             RealmRepository realmRepository,
@@ -53,6 +63,11 @@ public class RoleRepository {
     }
 
     public Optional<RoleRepresentation> searchRealmRole(String realmName, String name) {
+        Map<String, RoleRepresentation> catalog = getRealmRoleCatalog(realmName);
+
+        RoleRepresentation cachedRole = catalog.get(name);
+        if (cachedRole != null) return Optional.of(cachedRole);
+
         Optional<RoleRepresentation> maybeRole;
 
         RolesResource rolesResource = realmRepository.getResource(realmName).roles();
@@ -64,12 +79,24 @@ public class RoleRepository {
             maybeRole = Optional.empty();
         }
 
+        maybeRole.ifPresent(role -> catalog.put(role.getName(), role));
+
         return maybeRole;
     }
 
     public void createRealmRole(String realmName, RoleRepresentation role) {
         RolesResource rolesResource = realmRepository.getResource(realmName).roles();
         rolesResource.create(role);
+
+        forgetRealmRole(realmName, role.getName());
+    }
+
+    /**
+     * Drops all role catalogs of the realm, they will be loaded again on the next access.
+     */
+    public void invalidate(String realmName) {
+        realmRoleCatalogs.remove(realmName);
+        clientRoleCatalogs.remove(realmName);
     }
 
     public void updateRealmRole(String realmName, RoleRepresentation roleToUpdate) {
@@ -78,12 +105,18 @@ public class RoleRepository {
                 .get(roleToUpdate.getName());
 
         roleResource.update(roleToUpdate);
+
+        forgetRealmRole(realmName, roleToUpdate.getName());
     }
 
     public void deleteRealmRole(String realmName, RoleRepresentation roleToUpdate) {
         realmRepository.getResource(realmName)
                 .roles()
                 .deleteRole(roleToUpdate.getName());
+
+        forgetRealmRole(realmName, roleToUpdate.getName());
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public RoleRepresentation getRealmRole(String realmName, String roleName) {
@@ -94,8 +127,12 @@ public class RoleRepository {
     }
 
     public List<RoleRepresentation> getRealmRoles(String realmName) {
-        return realmRepository.getResource(realmName)
+        List<RoleRepresentation> roles = realmRepository.getResource(realmName)
                 .roles().list();
+
+        realmRoleCatalogs.put(realmName, toCatalog(roles));
+
+        return roles;
     }
 
     public List<RoleRepresentation> getRealmRolesByName(String realmName, Collection<String> roles) {
@@ -106,42 +143,63 @@ public class RoleRepository {
 
     public final RoleRepresentation getClientRole(String realmName, String clientId, String roleName) {
         ClientRepresentation client = clientRepository.getByClientId(realmName, clientId);
-        RealmResource realmResource = realmRepository.getResource(realmName);
+        Map<String, RoleRepresentation> catalog = getClientRoleCatalog(realmName, client.getId());
 
-        List<RoleRepresentation> clientRoles = realmResource.clients()
-                .get(client.getId())
-                .roles()
-                .list();
+        RoleRepresentation role = catalog.get(roleName);
+        if (role != null) return role;
+
+        try {
+            role = loadClientRole(realmName, clientId, roleName).toRepresentation();
+        } catch (javax.ws.rs.NotFoundException e) {
+            return null;
+        }
 
-        return clientRoles.stream()
-                .filter(r -> Objects.equals(r.getName(), roleName))
-                .findFirst()
-                .orElse(null);
+        catalog.put(roleName, role);
+        return role;
     }
 
     public Map<String, List<RoleRepresentation>> getClientRoles(String realmName) {
-        return realmRepository.getResource(realmName).clients().findAll().stream()
+        Map<String, Map<String, RoleRepresentation>> catalogs = new ConcurrentHashMap<>();
+
+        Map<String, List<RoleRepresentation>> clientRoles = clientRepository.getAll(realmName).stream()
                 .collect(Collectors.toMap(
                         ClientRepresentation::getClientId,
-                        client -> realmRepository.getResource(realmName).clients()
-                                .get(client.getId()).roles().list()
+                        client -> {
+                            List<RoleRepresentation> roles = realmRepository.getResource(realmName).clients()
+                                    .get(client.getId()).roles().list();
+                            catalogs.put(client.getId(), toCatalog(roles));
+                            return roles;
+                        }
                 ));
+
+        clientRoleCatalogs.put(realmName, catalogs);
+
+        return clientRoles;
     }
 
     public List<RoleRepresentation> getClientRolesByName(String realmName, String clientId, List<String> roleNames) {
-        ClientResource clientResource = clientRepository.getResourceByClientId(realmName, clientId);
+        ClientRepresentation client = clientRepository.getByClientId(realmName, clientId);
+        Map<String, RoleRepresentation> catalog = getClientRoleCatalog(realmName, client.getId());
 
         List<RoleRepresentation> roles = new ArrayList<>();
 
         for (String roleName : roleNames) {
-            try {
-                roles.add(clientResource.roles().get(roleName).toRepresentation());
-            } catch (javax.ws.rs.NotFoundException e) {
-                throw new KeycloakRepositoryException(
-                        "Cannot find client role '%s' for client '%s' within realm '%s'",
-                        roleName, clientId, realmName
-                );
+            RoleRepresentation role = catalog.get(roleName);
+
+            if (role == null) {
+                try {
+                    role = loadClientRole(realmName, clientId, roleName).toRepresentation();
+                } catch (javax.ws.rs.NotFoundException e) {
+                    throw new KeycloakRepositoryException(
+                            "Cannot find client role '%s' for client '%s' within realm '%s'",
+                            roleName, clientId, realmName
+                    );
+                }
+
+                catalog.put(roleName, role);
             }
+
+            roles.add(role);
         }
 
         return roles;
@@ -158,6 +216,8 @@ public class RoleRepository {
     public void updateClientRole(String realmName, String clientId, RoleRepresentation role) {
         RoleResource roleResource = loadClientRole(realmName, clientId, role.getName());
         roleResource.update(role);
+
+        forgetClientRole(realmName, clientRepository.getByClientId(realmName, clientId).getId(), role.getName());
     }
 
     public void deleteClientRole(String realmName, String clientId, RoleRepresentation role) {
@@ -168,32 +228,29 @@ public class RoleRepository {
                 .get(client.getId())
                 .roles()
                 .deleteRole(role.getName());
+
+        forgetClientRole(realmName, client.getId(), role.getName());
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public List<RoleRepresentation> searchRealmRoles(String realmName, List<String> roleNames) {
         List<RoleRepresentation> roles = new ArrayList<>();
-        RealmResource realmResource = realmRepository.getResource(realmName);
 
         for (String roleName : roleNames) {
-            try {
-                RoleRepresentation role = realmResource.roles().get(roleName).toRepresentation();
-
-                roles.add(role);
-            } catch (javax.ws.rs.NotFoundException e) {
-                throw new ImportProcessingException(
-                        String.format("Could not find role '%s' in realm '%s'!", roleName, realmName)
-                );
-            }
+            RoleRepresentation role = searchRealmRole(realmName, roleName)
+                    .orElseThrow(() -> new ImportProcessingException(
+                            String.format("Could not find role '%s' in realm '%s'!", roleName, realmName)
+                    ));
+
+            roles.add(role);
         }
 
         return roles;
     }
 
     public List<String> getUserRealmLevelRoles(String realmName, String username) {
-        UserRepresentation user = userRepository.get(realmName, username);
-        UserResource userResource = realmRepository.getResource(realmName)
-                .users()
-                .get(user.getId());
+        UserResource userResource = userRepository.getResource(realmName, username);
 
         List<RoleRepresentation> roles = userResource.roles()
                 .realmLevel()
@@ -204,34 +261,26 @@ public class RoleRepository {
                 .collect(Collectors.toList());
     }
 
-    public void addRealmRolesToUser(String realmName, String username, List<RoleRepresentation> realmRoles) {
-        UserResource userResource = userRepository.getResource(realmName, username);
-        userResource.roles().realmLevel().add(realmRoles);
+    public void addRealmRolesToUser(AdminRequestBatch batch, String realmName, String username, List<RoleRepresentation> realmRoles) {
+        batch.post(realmRoles, "users", userRepository.getUserId(realmName, username), "role-mappings", "realm");
     }
 
-    public void removeRealmRolesForUser(String realmName, String username, List<RoleRepresentation> realmRoles) {
-        UserResource userResource = userRepository.getResource(realmName, username);
-        userResource.roles().realmLevel().remove(realmRoles);
+    public void removeRealmRolesForUser(AdminRequestBatch batch, String realmName, String username, List<RoleRepresentation> realmRoles) {
+        batch.delete(realmRoles, "users", userRepository.getUserId(realmName, username), "role-mappings", "realm");
     }
 
-    public void addClientRolesToUser(String realmName, String username, String clientId, List<RoleRepresentation> clientRoles) {
+    public void addClientRolesToUser(
+            AdminRequestBatch batch, String realmName, String username, String clientId, List<RoleRepresentation> clientRoles
+    ) {
         ClientRepresentation client = clientRepository.getByClientId(realmName, clientId);
-        UserResource userResource = userRepository.getResource(realmName, username);
-
-        RoleScopeResource userClientRoles = userResource.roles()
-                .clientLevel(client.getId());
-
-        userClientRoles.add(clientRoles);
+        batch.post(clientRoles, "users", userRepository.getUserId(realmName, username), "role-mappings", "clients", client.getId());
     }
 
-    public void removeClientRolesForUser(String realmName, String username, String clientId, List<RoleRepresentation> clientRoles) {
+    public void removeClientRolesForUser(
+            AdminRequestBatch batch, String realmName, String username, String clientId, List<RoleRepresentation> clientRoles
+    ) {
         ClientRepresentation client = clientRepository.getByClientId(realmName, clientId);
-        UserResource userResource = userRepository.getResource(realmName, username);
-
-        RoleScopeResource userClientRoles = userResource.roles()
-                .clientLevel(client.getId());
-
-        userClientRoles.remove(clientRoles);
+        batch.delete(clientRoles, "users", userRepository.getUserId(realmName, username), "role-mappings", "clients", client.getId());
     }
 
     public Map<String, List<String>> getUserClientLevelRoles(String realmName, String username) {
@@ -266,6 +315,37 @@ public class RoleRepository {
         return roles.stream().map(RoleRepresentation::getName).collect(Collectors.toList());
     }
 
+    private Map<String, RoleRepresentation> getRealmRoleCatalog(String realmName) {
+        return realmRoleCatalogs.computeIfAbsent(realmName, name -> toCatalog(realmRepository.getResource(name).roles().list()));
+    }
+
+    private Map<String, RoleRepresentation> getClientRoleCatalog(String realmName, String id) {
+        return clientRoleCatalogs
+                .computeIfAbsent(realmName, name -> new ConcurrentHashMap<>())
+                .computeIfAbsent(id, clientUuid -> toCatalog(realmRepository.getResource(realmName)
+                        .clients().get(clientUuid).roles().list()));
+    }
+
+    /*
+     * Drops a written role from the realm role catalog, if the catalog is loaded. The next lookup fetches the role
+     * by name, including its id and the changed properties.
+     */
+    private void forgetRealmRole(String realmName, String roleName) {
+        Map<String, RoleRepresentation> catalog = realmRoleCatalogs.get(realmName);
+        if (catalog != null) catalog.remove(roleName);
+    }
+
+    private void forgetClientRole(String realmName, String id, String roleName) {
+        Map<String, RoleRepresentation> catalog = clientRoleCatalogs.getOrDefault(realmName, Map.of()).get(id);
+        if (catalog != null) catalog.remove(roleName);
+    }
+
+    private static Map<String, RoleRepresentation> toCatalog(List<RoleRepresentation> roles) {
+        Map<String, RoleRepresentation> catalog = new ConcurrentHashMap<>();
+        roles.forEach(role -> catalog.put(role.getName(), role));
+        return catalog;
+    }
+
     final RoleResource loadRealmRole(String realmName, String roleName) {
         RealmResource realmResource = realmRepository.getResource(realmName);
         return realmResource
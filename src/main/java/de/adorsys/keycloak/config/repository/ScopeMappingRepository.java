@@ -58,6 +58,8 @@ public class ScopeMappingRepository {
 
         List<RoleRepresentation> realmRoles = roleRepository.getRealmRolesByName(realmName, roles);
         roleScopeResource.add(realmRoles);
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public void addScopeMappingRolesForClientScope(String realmName, String clientScopeName, Collection<String> roles) {
@@ -65,6 +67,8 @@ public class ScopeMappingRepository {
 
         List<RoleRepresentation> realmRoles = roleRepository.getRealmRolesByName(realmName, roles);
         roleScopeResource.add(realmRoles);
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public void addScopeMappingClientRolesForClientScope(String realmName, String clientScopeName, String clientUuid,
@@ -72,6 +76,8 @@ public class ScopeMappingRepository {
         final RoleScopeResource roleScopeResource = loadClientScope(realmName, clientScopeName, clientUuid);
 
         roleScopeResource.add(roles);
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public void removeScopeMappingRolesForClient(String realmName, String clientId, Collection<String> roles) {
@@ -82,6 +88,8 @@ public class ScopeMappingRepository {
                 .collect(Collectors.toList());
 
         scopeMappingsResource.realmLevel().remove(realmRoles);
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public void removeScopeMappingRolesForClientScope(String realmName, String clientScopeName, Collection<String> roles) {
@@ -89,6 +97,8 @@ public class ScopeMappingRepository {
 
         List<RoleRepresentation> realmRoles = roleRepository.getRealmRolesByName(realmName, roles);
         roleScopeResource.remove(realmRoles);
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
     public void removeScopeMappingClientRolesForClientScope(String realmName, String clientScopeName, String clientUuid,
@@ -96,6 +106,8 @@ public class ScopeMappingRepository {
         final RoleScopeResource roleScopeResource = loadClientScope(realmName, clientScopeName, clientUuid);
 
         roleScopeResource.remove(roles);
+
+        realmRepository.invalidatePartialExport(realmName);
     }
 
 
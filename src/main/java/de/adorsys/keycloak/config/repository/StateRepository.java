@@ -20,7 +20,7 @@
 
 package de.adorsys.keycloak.config.repository;
 
-import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.model.RealmImportContext;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.util.CryptoUtil;
 import org.keycloak.representations.idm.RealmRepresentation;
@@ -42,8 +42,6 @@ public class StateRepository {
     private final RealmRepository realmRepository;
     private final ImportConfigProperties importConfigProperties;
 
-    private Map<String, String> customAttributes;
-
     public StateRepository(RealmRepository realmRepository, ImportConfigProperties importConfigProperties) {
         this.realmRepository = realmRepository;
         this.importConfigProperties = importConfigProperties;
@@ -64,8 +62,9 @@ public class StateRepository {
         return ret;
     }
 
-    public void loadCustomAttributes(String realmName) {
-        customAttributes = retrieveCustomAttributes(realmName);
+    public void loadCustomAttributes(RealmImportContext context) {
+        RealmRepresentation existingRealm = realmRepository.get(context.getRealmName());
+        context.setStateAttributes(existingRealm.getAttributes());
     }
 
     /**
@@ -73,11 +72,13 @@ public class StateRepository {
      * the realm attributes with the realm configuration state values
      * to prevent their removal, when the realm state is updated.
      *
+     * @param context          the import context which receives the custom attributes
      * @param realmForUpdating the {@link RealmRepresentation} instance which will be synchronized with the Keycloak
      */
-    public void loadCustomAttributes(RealmRepresentation realmForUpdating) {
-        loadCustomAttributes(realmForUpdating.getRealm());
+    public void loadCustomAttributes(RealmImportContext context, RealmRepresentation realmForUpdating) {
+        loadCustomAttributes(context);
 
+        Map<String, String> realmCustomAttributes = context.getStateAttributes();
         Map<String, String> attributes = realmForUpdating.getAttributes();
 
         if (attributes == null) {
@@ -89,9 +90,9 @@ public class StateRepository {
         attributes.entrySet()
                 .stream()
                 .filter(e -> !isStateAttribute(e))
-                .forEach(e -> customAttributes.put(e.getKey(), e.getValue()));
+                .forEach(e -> realmCustomAttributes.put(e.getKey(), e.getValue()));
 
-        customAttributes.entrySet()
+        realmCustomAttributes.entrySet()
                 .stream()
                 .filter(this::isStateAttribute)
                 .forEach(e -> attributes.put(e.getKey(), e.getValue()));
@@ -101,17 +102,18 @@ public class StateRepository {
         return e.getKey().startsWith(ImportConfigProperties.REALM_STATE_ATTRIBUTE_COMMON_PREFIX);
     }
 
-    public List<String> getState(String entity) {
+    public List<String> getState(RealmImportContext context, String entity) {
+        Map<String, String> realmCustomAttributes = context.getStateAttributes();
         List<String> stateValues = new ArrayList<>();
 
-        long attributeCount = customAttributes
+        long attributeCount = realmCustomAttributes
                 .entrySet()
                 .stream()
                 .filter(attribute -> attribute.getKey().matches(String.format("^%s-\\d+$", getCustomAttributeKey(entity))))
                 .count();
 
         for (int index = 0; index < attributeCount; index++) {
-            stateValues.add(customAttributes.get(getCustomAttributeKey(entity) + "-" + index));
+            stateValues.add(realmCustomAttributes.get(getCustomAttributeKey(entity) + "-" + index));
         }
 
         if (stateValues.isEmpty()) {
@@ -131,10 +133,10 @@ public class StateRepository {
         return fromJson(state);
     }
 
-    public void update(RealmImport realmImport) {
-        RealmRepresentation existingRealm = realmRepository.get(realmImport.getRealm());
+    public void update(RealmImportContext context) {
+        RealmRepresentation existingRealm = realmRepository.get(context.getRealmName());
         Map<String, String> realmAttributes = existingRealm.getAttributes();
-        realmAttributes.putAll(customAttributes);
+        realmAttributes.putAll(context.getStateAttributes());
 
         realmRepository.update(existingRealm);
     }
@@ -147,12 +149,8 @@ public class StateRepository {
         );
     }
 
-    private Map<String, String> retrieveCustomAttributes(String realmName) {
-        RealmRepresentation existingRealm = realmRepository.get(realmName);
-        return existingRealm.getAttributes();
-    }
-
-    public void setState(String entity, List<String> values) {
+    public void setState(RealmImportContext context, String entity, List<String> values) {
+        Map<String, String> realmCustomAttributes = context.getStateAttributes();
         String valuesAsString = toJson(values);
 
         if (this.importConfigProperties.getRemoteState().getEncryptionKey() != null) {
@@ -165,13 +163,13 @@ public class StateRepository {
 
         List<String> valueList = splitEqually(valuesAsString);
 
-        customAttributes.entrySet()
+        realmCustomAttributes.entrySet()
                 .removeIf(attribute -> attribute.getKey().startsWith(getCustomAttributeKey(entity) + "-"));
 
         // split value into multiple attributes to avoid max length limit
         int index = 0;
         for (String value : valueList) {
-            customAttributes.put(getCustomAttributeKey(entity) + "-" + index, value);
+            realmCustomAttributes.put(getCustomAttributeKey(entity) + "-" + index, value);
             index++;
         }
     }
@@ -20,32 +20,59 @@
 
 package de.adorsys.keycloak.config.repository;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import de.adorsys.keycloak.config.exception.KeycloakRepositoryException;
 import org.keycloak.admin.client.CreatedResponseUtil;
 import org.keycloak.admin.client.resource.RealmResource;
 import org.keycloak.admin.client.resource.UserResource;
 import org.keycloak.admin.client.resource.UsersResource;
 import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.PartialImportRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.ws.rs.NotFoundException;
 import javax.ws.rs.core.Response;
 
 @Service
 public class UserRepository {
-
     private final RealmRepository realmRepository;
 
+    private final Map<String, UserIndex> userIndexes = new ConcurrentHashMap<>();
+
     @Autowired
     public UserRepository(RealmRepository realmRepository) {
         this.realmRepository = realmRepository;
     }
 
     public Optional<UserRepresentation> search(String realmName, String username) {
+        UserIndex userIndex = getUserIndex(realmName);
+
+        // a prefetched representation is handed out once, later lookups fetch the user again since it may have changed
+        UserRepresentation prefetchedUser = userIndex.representations.remove(toIndexKey(username));
+        if (prefetchedUser != null) {
+            return Optional.of(prefetchedUser);
+        }
+
         UsersResource usersResource = realmRepository.getResource(realmName).users();
+
+        String userId = userIndex.ids.get(toIndexKey(username));
+        if (userId != null) {
+            try {
+                return Optional.of(usersResource.get(userId).toRepresentation());
+            } catch (NotFoundException ignored) {
+                // user was removed after the index was loaded
+                userIndex.ids.remove(toIndexKey(username));
+            }
+        }
+
         List<UserRepresentation> foundUsers = usersResource.search(username, true);
 
         Optional<UserRepresentation> user;
@@ -53,14 +80,14 @@ public class UserRepository {
             user = Optional.empty();
         } else {
             user = Optional.of(foundUsers.get(0));
+            userIndex.ids.put(toIndexKey(username), user.get().getId());
         }
 
         return user;
     }
 
     final UserResource getResource(String realmName, String username) {
-        UserRepresentation user = get(realmName, username);
-        return realmRepository.getResource(realmName).users().get(user.getId());
+        return realmRepository.getResource(realmName).users().get(getUserId(realmName, username));
     }
 
     public UserRepresentation get(String realmName, String username) {
@@ -71,12 +98,72 @@ public class UserRepository {
         );
     }
 
+    public int count(String realmName) {
+        return realmRepository.getResource(realmName).users().count();
+    }
+
+    /**
+     * Fetches one page of users and adds them to the username index. Subsequent searches for these users are answered
+     * without a request. Their role and group mappings are not part of the page and are still fetched per user.
+     */
+    public void prefetch(String realmName, int first, int max) {
+        UserIndex userIndex = getUserIndex(realmName);
+
+        for (UserRepresentation user : realmRepository.getResource(realmName).users().list(first, max)) {
+            userIndex.ids.put(toIndexKey(user.getUsername()), user.getId());
+            userIndex.representations.put(toIndexKey(user.getUsername()), user);
+        }
+    }
+
+    /**
+     * Marks the username index of the realm as complete after all pages were prefetched, users missing in the index
+     * are no longer looked up by {@link #isKnown(String, String)}.
+     */
+    public void completePrefetch(String realmName) {
+        getUserIndex(realmName).complete = true;
+    }
+
     public void create(String realmName, UserRepresentation user) {
         RealmResource realmResource = realmRepository.getResource(realmName);
         UsersResource usersResource = realmResource.users();
 
         try (Response response = usersResource.create(user)) {
-            CreatedResponseUtil.getCreatedId(response);
+            String userId = CreatedResponseUtil.getCreatedId(response);
+            getUserIndex(realmName).ids.put(toIndexKey(user.getUsername()), userId);
+        }
+    }
+
+    /**
+     * Creates the users with one partial import of the realm, including their role and group mappings, and adds them
+     * to the username index. Users which exist already are handled according to the policy.
+     *
+     * @return the usernames of skipped users
+     */
+    public List<String> partialImport(String realmName, List<UserRepresentation> users, PartialImportRepresentation.Policy policy) {
+        PartialImportRepresentation partialImport = new PartialImportRepresentation();
+        partialImport.setIfResourceExists(policy.name());
+        partialImport.setUsers(users);
+
+        try (Response response = realmRepository.getResource(realmName).partialImport(partialImport)) {
+            if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                String body = response.hasEntity() ? response.readEntity(String.class).trim() : "";
+                throw new KeycloakRepositoryException(
+                        "Cannot import %d users into realm '%s': HTTP %d %s", users.size(), realmName, response.getStatus(), body
+                );
+            }
+
+            List<String> skipped = new ArrayList<>();
+            for (JsonNode result : response.readEntity(JsonNode.class).path("results")) {
+                String username = result.path("resourceName").asText();
+
+                if ("SKIPPED".equals(result.path("action").asText())) {
+                    skipped.add(username);
+                } else {
+                    getUserIndex(realmName).ids.put(toIndexKey(username), result.path("id").asText());
+                }
+            }
+
+            return skipped;
         }
     }
 
@@ -89,4 +176,51 @@ public class UserRepository {
         UserResource userResource = getResource(realmName, user.getUsername());
         return userResource.groups();
     }
+
+    /**
+     * Returns true if the user is known to exist. If the username index is not prefetched completely, the user is
+     * looked up. Users of a user federation may exist without being known.
+     */
+    public boolean isKnown(String realmName, String username) {
+        UserIndex userIndex = getUserIndex(realmName);
+        if (userIndex.ids.containsKey(toIndexKey(username))) return true;
+        if (userIndex.complete) return false;
+
+        Optional<UserRepresentation> user = search(realmName, username);
+        user.ifPresent(foundUser -> userIndex.representations.put(toIndexKey(username), foundUser));
+
+        return user.isPresent();
+    }
+
+    /**
+     * Drops the username index of the realm including all prefetched users.
+     */
+    public void invalidate(String realmName) {
+        userIndexes.remove(realmName);
+    }
+
+    final String getUserId(String realmName, String username) {
+        String userId = getUserIndex(realmName).ids.get(toIndexKey(username));
+        if (userId != null) return userId;
+
+        return get(realmName, username).getId();
+    }
+
+    private UserIndex getUserIndex(String realmName) {
+        return userIndexes.computeIfAbsent(realmName, name -> new UserIndex());
+    }
+
+    private static String toIndexKey(String username) {
+        return username == null ? "" : username.toLowerCase(Locale.ROOT);
+    }
+
+    /*
+     * username (lower case, as stored by keycloak) to user id, per realm. Filled by prefetched pages and completed by
+     * point lookups, since users of a user federation are not listed until they got imported by a lookup.
+     */
+    private static final class UserIndex {
+        private final Map<String, String> ids = new ConcurrentHashMap<>();
+        private final Map<String, UserRepresentation> representations = new ConcurrentHashMap<>();
+        private volatile boolean complete;
+    }
 }
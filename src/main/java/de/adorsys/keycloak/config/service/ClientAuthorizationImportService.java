@@ -22,6 +22,7 @@ package de.adorsys.keycloak.config.service;
 
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.model.RealmImportContext;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.repository.ClientRepository;
 import de.adorsys.keycloak.config.repository.GroupRepository;
@@ -83,20 +84,20 @@ public class ClientAuthorizationImportService {
         this.stateService = stateService;
     }
 
-    public void doImport(RealmImport realmImport) {
+    public void doImport(RealmImportContext context, RealmImport realmImport) {
         List<ClientRepresentation> clients = realmImport.getClients();
         if (clients == null) {
             return;
         }
 
-        updateClientAuthorizationSettings(realmImport, clients);
+        updateClientAuthorizationSettings(context, clients);
     }
 
     private void updateClientAuthorizationSettings(
-            RealmImport realmImport,
+            RealmImportContext context,
             List<ClientRepresentation> clients
     ) {
-        String realmName = realmImport.getRealm();
+        String realmName = context.getRealmName();
 
         List<ClientRepresentation> clientsWithAuthorization = clients.stream()
                 .filter(client -> client.getAuthorizationSettings() != null)
@@ -112,15 +113,17 @@ public class ClientAuthorizationImportService {
                 throw new ImportProcessingException("clients require client id or name.");
             }
 
-            updateAuthorization(realmName, existingClient, client.getAuthorizationSettings());
+            updateAuthorization(context, existingClient, client.getAuthorizationSettings());
         }
     }
 
     private void updateAuthorization(
-            String realmName,
+            RealmImportContext context,
             ClientRepresentation client,
             ResourceServerRepresentation authorizationSettingsToImport
     ) {
+        String realmName = context.getRealmName();
+
         if (importConfigProperties.isValidate() && !REALM_MANAGEMENT_CLIENT_ID.equals(client.getClientId())
                 && (TRUE.equals(client.isBearerOnly()) || TRUE.equals(client.isPublicClient()))) {
             throw new ImportProcessingException(
@@ -149,7 +152,7 @@ public class ClientAuthorizationImportService {
         createOrUpdateAuthorizationScopes(realmName, client, existingAuthorization.getScopes(), authorizationSettingsToImport.getScopes());
 
         if (importConfigProperties.getManaged().getClientAuthorizationResources() == FULL) {
-            removeAuthorizationResources(realmName, client, existingAuthorization.getResources(), sanitizedAuthorizationResources);
+            removeAuthorizationResources(context, client, existingAuthorization.getResources(), sanitizedAuthorizationResources);
         }
 
         removeAuthorizationPolicies(realmName, client, existingAuthorization.getPolicies(), sanitizedAuthorizationPolicies);
@@ -307,7 +310,7 @@ public class ClientAuthorizationImportService {
     }
 
     private void removeAuthorizationResources(
-            String realmName,
+            RealmImportContext context,
             ClientRepresentation client,
             List<ResourceRepresentation> existingClientAuthorizationResources,
             List<ResourceRepresentation> authorizationResourcesToImport
@@ -316,11 +319,13 @@ public class ClientAuthorizationImportService {
                 .stream().map(ResourceRepresentation::getName)
                 .collect(Collectors.toList());
 
-        List<ResourceRepresentation> managedClientAuthorizationResources = getManagedClientResources(client, existingClientAuthorizationResources);
+        List<ResourceRepresentation> managedClientAuthorizationResources = getManagedClientResources(
+                context, client, existingClientAuthorizationResources
+        );
 
         managedClientAuthorizationResources.stream()
                 .filter(resource -> !authorizationResourceNamesToImport.contains(resource.getName()))
-                .forEach(resource -> removeAuthorizationResource(realmName, client, resource));
+                .forEach(resource -> removeAuthorizationResource(context.getRealmName(), client, resource));
     }
 
     private void removeAuthorizationResource(
@@ -527,10 +532,14 @@ public class ClientAuthorizationImportService {
         }
     }
 
-    private List<ResourceRepresentation> getManagedClientResources(ClientRepresentation client, List<ResourceRepresentation> existingResources) {
+    private List<ResourceRepresentation> getManagedClientResources(
+            RealmImportContext context,
+            ClientRepresentation client,
+            List<ResourceRepresentation> existingResources
+    ) {
         if (importConfigProperties.getRemoteState().isEnabled()) {
             String clientKey = Objects.equals(client.getId(), client.getClientId()) ? "name:" + client.getName() : client.getClientId();
-            List<String> clientResourcesInState = stateService.getClientAuthorizationResources(clientKey);
+            List<String> clientResourcesInState = stateService.getClientAuthorizationResources(context, clientKey);
             // ignore all object there are not in state
             return existingResources.stream()
                     .filter(resource -> clientResourcesInState.contains(resource.getName()) || Objects.equals(resource.getName(), "Default Resource"))
@@ -22,10 +22,13 @@ package de.adorsys.keycloak.config.service;
 
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.model.RealmImportContext;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.repository.AuthenticationFlowRepository;
 import de.adorsys.keycloak.config.repository.ClientRepository;
 import de.adorsys.keycloak.config.repository.ClientScopeRepository;
+import de.adorsys.keycloak.config.service.checksum.ChecksumService;
+import de.adorsys.keycloak.config.service.executor.ImportExecutor;
 import de.adorsys.keycloak.config.service.state.StateService;
 import de.adorsys.keycloak.config.util.*;
 import org.apache.commons.lang3.ArrayUtils;
@@ -38,7 +41,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.ws.rs.WebApplicationException;
 
@@ -61,7 +63,9 @@ public class ClientImportService {
     private final ClientScopeRepository clientScopeRepository;
     private final AuthenticationFlowRepository authenticationFlowRepository;
     private final ImportConfigProperties importConfigProperties;
+    private final ImportExecutor importExecutor;
     private final StateService stateService;
+    private final ChecksumService checksumService;
 
     @Autowired
     public ClientImportService(
@@ -69,24 +73,33 @@ public class ClientImportService {
             ClientScopeRepository clientScopeRepository,
             AuthenticationFlowRepository authenticationFlowRepository,
             ImportConfigProperties importConfigProperties,
-            StateService stateService) {
+            ImportExecutor importExecutor,
+            StateService stateService,
+            ChecksumService checksumService) {
         this.clientRepository = clientRepository;
         this.clientScopeRepository = clientScopeRepository;
         this.authenticationFlowRepository = authenticationFlowRepository;
         this.importConfigProperties = importConfigProperties;
+        this.importExecutor = importExecutor;
         this.stateService = stateService;
+        this.checksumService = checksumService;
     }
 
-    public void doImport(RealmImport realmImport) {
+    public void doImport(RealmImportContext context, RealmImport realmImport) {
+        // clients may have been changed since the last import, start with a fresh client catalog
+        clientRepository.invalidate(realmImport.getRealm());
+
         List<ClientRepresentation> clients = realmImport.getClients();
         if (clients == null) {
             return;
         }
 
         if (importConfigProperties.getManaged().getClient() == FULL) {
-            deleteClientsMissingInImport(realmImport, clients);
+            deleteClientsMissingInImport(context, realmImport, clients);
         }
-        createOrUpdateClients(realmImport, clients);
+        createOrUpdateClients(realmImport, checksumService.getChangedEntities(context, "clients", clients, client ->
+                client.getClientId() != null ? client.getClientId() : "name:" + client.getName()
+        ));
     }
 
     public void doImportDependencies(RealmImport realmImport) {
@@ -95,6 +108,9 @@ public class ClientImportService {
             return;
         }
 
+        // deleted or replaced authentication flows may have changed the flow overrides of clients
+        clientRepository.invalidate(realmImport.getRealm());
+
         updateClientAuthenticationFlowBindingOverrides(realmImport, clients);
     }
 
@@ -102,15 +118,11 @@ public class ClientImportService {
             RealmImport realmImport,
             List<ClientRepresentation> clients
     ) {
-        Consumer<ClientRepresentation> loop = client -> createOrUpdateClient(realmImport, client);
-        if (importConfigProperties.isParallel()) {
-            clients.parallelStream().forEach(loop);
-        } else {
-            clients.forEach(loop);
-        }
+        importExecutor.forEach("clients", clients, client -> createOrUpdateClient(realmImport, client));
     }
 
     private void deleteClientsMissingInImport(
+            RealmImportContext context,
             RealmImport realmImport,
             List<ClientRepresentation> clients
     ) {
@@ -119,7 +131,7 @@ public class ClientImportService {
                 .collect(Collectors.toSet());
 
         boolean isState = importConfigProperties.getRemoteState().isEnabled();
-        final List<String> stateClients = stateService.getClients();
+        final List<String> stateClients = stateService.getClients(context);
 
         List<ClientRepresentation> clientsToRemove = clientRepository.getAll(realmImport.getRealm())
                 .stream()
@@ -309,8 +321,10 @@ public class ClientImportService {
             }
         }
 
-        existingClient.setAuthenticationFlowBindingOverrides(authFlowUpdates);
-        updateClient(realmName, existingClient);
+        // the existing client is shared by the client catalog, it is only changed by the update
+        ClientRepresentation clientToUpdate = CloneUtil.deepClone(existingClient);
+        clientToUpdate.setAuthenticationFlowBindingOverrides(authFlowUpdates);
+        updateClient(realmName, clientToUpdate);
     }
 
     private void updateClientDefaultOptionalClientScopes(
@@ -25,6 +25,7 @@ import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.repository.ClientScopeRepository;
 import de.adorsys.keycloak.config.repository.RealmRepository;
+import de.adorsys.keycloak.config.service.executor.ImportExecutor;
 import de.adorsys.keycloak.config.util.CloneUtil;
 import de.adorsys.keycloak.config.util.ProtocolMapperUtil;
 import org.keycloak.representations.idm.ClientScopeRepresentation;
@@ -37,7 +38,6 @@ import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -46,14 +46,17 @@ public class ClientScopeImportService {
 
     private final ClientScopeRepository clientScopeRepository;
     private final ImportConfigProperties importConfigProperties;
+    private final ImportExecutor importExecutor;
     private final RealmRepository realmRepository;
 
     public ClientScopeImportService(
             ClientScopeRepository clientScopeRepository,
             ImportConfigProperties importConfigProperties,
+            ImportExecutor importExecutor,
             RealmRepository realmRepository) {
         this.clientScopeRepository = clientScopeRepository;
         this.importConfigProperties = importConfigProperties;
+        this.importExecutor = importExecutor;
         this.realmRepository = realmRepository;
     }
 
@@ -169,12 +172,7 @@ public class ClientScopeImportService {
             String realmName,
             List<ClientScopeRepresentation> clientScopes
     ) {
-        Consumer<ClientScopeRepresentation> loop = clientScope -> createOrUpdateClientScope(realmName, clientScope);
-        if (importConfigProperties.isParallel()) {
-            clientScopes.parallelStream().forEach(loop);
-        } else {
-            clientScopes.forEach(loop);
-        }
+        importExecutor.forEach("client scopes", clientScopes, clientScope -> createOrUpdateClientScope(realmName, clientScope));
     }
 
     private void deleteClientScopesMissingInImport(
@@ -21,6 +21,7 @@
 package de.adorsys.keycloak.config.service;
 
 import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.model.RealmImportContext;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportManagedProperties.ImportManagedPropertiesValues;
 import de.adorsys.keycloak.config.repository.ComponentRepository;
@@ -59,53 +60,52 @@ public class ComponentImportService {
         this.realmRepository = realmRepository;
     }
 
-    public void doImport(RealmImport realmImport) {
+    public void doImport(RealmImportContext context, RealmImport realmImport) {
         MultivaluedHashMap<String, ComponentExportRepresentation> components = realmImport.getComponents();
 
         if (components == null) {
             return;
         }
 
-        String realmName = realmImport.getRealm();
-        importComponents(realmName, components);
+        importComponents(context, components);
 
         if (importConfigProperties.getManaged().getComponent() == ImportManagedPropertiesValues.FULL) {
-            deleteComponentsMissingInImport(realmName, components, null);
+            deleteComponentsMissingInImport(context, components, null);
         }
 
         syncUserFederationIfNecessary(realmImport);
     }
 
-    private void importComponents(String realmName, Map<String, List<ComponentExportRepresentation>> componentsToImport) {
+    private void importComponents(RealmImportContext context, Map<String, List<ComponentExportRepresentation>> componentsToImport) {
         for (Map.Entry<String, List<ComponentExportRepresentation>> entry : componentsToImport.entrySet()) {
-            createOrUpdateComponents(realmName, entry.getKey(), entry.getValue());
+            createOrUpdateComponents(context, entry.getKey(), entry.getValue());
         }
     }
 
-    private void createOrUpdateComponents(String realmName, String providerType, List<ComponentExportRepresentation> componentsToImport) {
+    private void createOrUpdateComponents(RealmImportContext context, String providerType, List<ComponentExportRepresentation> componentsToImport) {
         for (ComponentExportRepresentation componentToImport : componentsToImport) {
-            createOrUpdateComponent(realmName, providerType, componentToImport);
+            createOrUpdateComponent(context, providerType, componentToImport);
         }
     }
 
-    private void createOrUpdateComponent(String realmName, String providerType, ComponentExportRepresentation componentToImport) {
+    private void createOrUpdateComponent(RealmImportContext context, String providerType, ComponentExportRepresentation componentToImport) {
         Optional<ComponentRepresentation> existingComponent = componentRepository.search(
-                realmName, providerType, componentToImport.getSubType(), componentToImport.getName()
+                context.getRealmName(), providerType, componentToImport.getSubType(), componentToImport.getName()
         );
 
         if (existingComponent.isPresent()) {
-            updateComponentIfNeeded(realmName, providerType, componentToImport, existingComponent.get());
+            updateComponentIfNeeded(context, providerType, componentToImport, existingComponent.get());
         } else {
             logger.debug("Creating component: {}/{}", providerType, componentToImport.getName());
-            createComponent(realmName, providerType, componentToImport);
+            createComponent(context, providerType, componentToImport);
         }
     }
 
-    private void createComponent(String realmName, String providerType, ComponentExportRepresentation component) {
-        createComponent(realmName, providerType, component, null);
+    private void createComponent(RealmImportContext context, String providerType, ComponentExportRepresentation component) {
+        createComponent(context, providerType, component, null);
     }
 
-    private void createComponent(String realmName, String providerType, ComponentExportRepresentation component, String parentId) {
+    private void createComponent(RealmImportContext context, String providerType, ComponentExportRepresentation component, String parentId) {
         ComponentRepresentation componentToCreate = CloneUtil.deepClone(component, ComponentRepresentation.class);
 
         if (componentToCreate.getProviderType() == null) {
@@ -116,22 +116,22 @@ public class ComponentImportService {
             componentToCreate.setParentId(parentId);
         }
 
-        String componentId = componentRepository.create(realmName, componentToCreate);
+        String componentId = componentRepository.create(context.getRealmName(), componentToCreate);
 
         MultivaluedHashMap<String, ComponentExportRepresentation> subComponents = component.getSubComponents();
-        ComponentRepresentation exitingComponent = componentRepository.getById(realmName, componentId);
+        ComponentRepresentation exitingComponent = componentRepository.getById(context.getRealmName(), componentId);
 
         if (!subComponents.isEmpty()) {
-            createOrUpdateSubComponents(realmName, subComponents, exitingComponent.getId());
+            createOrUpdateSubComponents(context, subComponents, exitingComponent.getId());
         }
 
         if (importConfigProperties.getManaged().getComponent() == ImportManagedPropertiesValues.FULL) {
-            deleteComponentsMissingInImport(realmName, subComponents, exitingComponent);
+            deleteComponentsMissingInImport(context, subComponents, exitingComponent);
         }
     }
 
     private void updateComponentIfNeeded(
-            String realmName,
+            RealmImportContext context,
             String providerType,
             ComponentExportRepresentation componentToImport,
             ComponentRepresentation existingComponent
@@ -139,8 +139,8 @@ public class ComponentImportService {
         boolean hasSubComponents = !componentToImport.getSubComponents().isEmpty();
 
         ComponentRepresentation patchedComponent = CloneUtil.patch(existingComponent, componentToImport, "id");
-        if (hasSubComponents || !isComponentEqual(realmName, existingComponent, patchedComponent)) {
-            updateComponent(realmName, providerType, componentToImport, patchedComponent);
+        if (hasSubComponents || !isComponentEqual(context.getRealmName(), existingComponent, patchedComponent)) {
+            updateComponent(context, providerType, componentToImport, patchedComponent);
         } else {
             logger.debug("No need to update component: {}/{}", existingComponent.getProviderType(), componentToImport.getName());
         }
@@ -179,7 +179,7 @@ public class ComponentImportService {
     }
 
     private void updateComponent(
-            String realmName,
+            RealmImportContext context,
             String providerType,
             ComponentExportRepresentation componentToImport,
             ComponentRepresentation patchedComponent
@@ -190,75 +190,75 @@ public class ComponentImportService {
             patchedComponent.setProviderType(providerType);
         }
 
-        componentRepository.update(realmName, patchedComponent);
+        componentRepository.update(context.getRealmName(), patchedComponent);
 
         MultivaluedHashMap<String, ComponentExportRepresentation> subComponents = componentToImport.getSubComponents();
 
         if (!subComponents.isEmpty()) {
-            createOrUpdateSubComponents(realmName, subComponents, patchedComponent.getId());
+            createOrUpdateSubComponents(context, subComponents, patchedComponent.getId());
         }
 
         if (importConfigProperties.getManaged().getSubComponent() == ImportManagedPropertiesValues.FULL) {
-            deleteComponentsMissingInImport(realmName, subComponents, patchedComponent);
+            deleteComponentsMissingInImport(context, subComponents, patchedComponent);
         }
     }
 
     private void createOrUpdateSubComponents(
-            String realmName,
+            RealmImportContext context,
             Map<String, List<ComponentExportRepresentation>> subComponents,
             String parentId
     ) {
         for (Map.Entry<String, List<ComponentExportRepresentation>> entry : subComponents.entrySet()) {
-            createOrUpdateSubComponents(realmName, entry.getKey(), entry.getValue(), parentId);
+            createOrUpdateSubComponents(context, entry.getKey(), entry.getValue(), parentId);
         }
     }
 
     private void createOrUpdateSubComponents(
-            String realmName,
+            RealmImportContext context,
             String providerType,
             List<ComponentExportRepresentation> subComponents, String parentId
     ) {
         for (ComponentExportRepresentation subComponent : subComponents) {
-            createOrUpdateSubComponent(realmName, parentId, providerType, subComponent);
+            createOrUpdateSubComponent(context, parentId, providerType, subComponent);
         }
     }
 
     private void createOrUpdateSubComponent(
-            String realmName,
+            RealmImportContext context,
             String parentId,
             String providerType,
             ComponentExportRepresentation subComponent
     ) {
         Optional<ComponentRepresentation> maybeComponent = componentRepository.search(
-                realmName, providerType, subComponent.getSubType(), subComponent.getName(), parentId
+                context.getRealmName(), providerType, subComponent.getSubType(), subComponent.getName(), parentId
         );
 
         if (maybeComponent.isPresent()) {
-            updateComponentIfNeeded(realmName, providerType, subComponent, maybeComponent.get());
+            updateComponentIfNeeded(context, providerType, subComponent, maybeComponent.get());
         } else {
-            createComponent(realmName, providerType, subComponent, parentId);
+            createComponent(context, providerType, subComponent, parentId);
         }
     }
 
     private void deleteComponentsMissingInImport(
-            String realmName,
+            RealmImportContext context,
             MultivaluedHashMap<String, ComponentExportRepresentation> componentsToImport,
             ComponentRepresentation parentComponent
     ) {
-        List<ComponentRepresentation> existingComponents = getAllComponentsFromState(realmName, parentComponent);
+        List<ComponentRepresentation> existingComponents = getAllComponentsFromState(context, parentComponent);
 
         for (ComponentRepresentation existingComponent : existingComponents) {
             if (checkIfComponentMissingImport(existingComponent, componentsToImport)) {
                 logger.debug("Delete component: {}/{}", existingComponent.getProviderType(), existingComponent.getName());
-                componentRepository.delete(realmName, existingComponent);
+                componentRepository.delete(context.getRealmName(), existingComponent);
             }
         }
     }
 
-    private List<ComponentRepresentation> getAllComponentsFromState(String realmName, ComponentRepresentation parentComponent) {
+    private List<ComponentRepresentation> getAllComponentsFromState(RealmImportContext context, ComponentRepresentation parentComponent) {
         String parentId = parentComponent != null ? parentComponent.getId() : null;
 
-        List<ComponentRepresentation> existingComponents = componentRepository.getAll(realmName, parentId);
+        List<ComponentRepresentation> existingComponents = componentRepository.getAll(context.getRealmName(), parentId);
         if (!importConfigProperties.getRemoteState().isEnabled()) {
             return existingComponents;
         }
@@ -266,7 +266,7 @@ public class ComponentImportService {
         String parentName = parentComponent != null ? parentComponent.getName() : null;
 
         // ignore all object there are not in state
-        return stateService.getComponents(existingComponents, parentName);
+        return stateService.getComponents(context, existingComponents, parentName);
     }
 
     private boolean checkIfComponentMissingImport(
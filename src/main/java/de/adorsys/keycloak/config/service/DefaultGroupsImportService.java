@@ -51,13 +51,14 @@ public class DefaultGroupsImportService {
         String realmName = realmImport.getRealm();
 
         RealmResource realmResource = realmRepository.getResource(realmName);
-        List<String> existingDefaultGroups = realmResource.toRepresentation().getDefaultGroups();
+        List<String> existingDefaultGroups = realmRepository.get(realmName).getDefaultGroups();
 
         if (existingDefaultGroups != null) {
             for (String existingDefaultGroup : existingDefaultGroups) {
                 if (!newDefaultGroups.contains(existingDefaultGroup)) {
                     String existingDefaultGroupId = groupRepository.getGroupByPath(realmName, existingDefaultGroup).getId();
                     realmResource.removeDefaultGroup(existingDefaultGroupId);
+                    realmRepository.invalidate(realmName);
                 }
             }
         }
@@ -67,6 +68,7 @@ public class DefaultGroupsImportService {
                 try {
                     String newDefaultGroupId = groupRepository.getGroupByPath(realmName, newDefaultGroup).getId();
                     realmResource.addDefaultGroup(newDefaultGroupId);
+                    realmRepository.invalidate(realmName);
                 } catch (javax.ws.rs.NotFoundException ignored) {
                     throw new InvalidImportException(String.format("Unable to add default group '%s'. Does group exists?", newDefaultGroup));
                 }
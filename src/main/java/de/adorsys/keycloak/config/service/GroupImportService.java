@@ -21,9 +21,12 @@
 package de.adorsys.keycloak.config.service;
 
 import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.model.RealmImportContext;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportManagedProperties.ImportManagedPropertiesValues;
 import de.adorsys.keycloak.config.repository.GroupRepository;
+import de.adorsys.keycloak.config.service.checksum.ChecksumService;
+import de.adorsys.keycloak.config.service.executor.ImportExecutor;
 import de.adorsys.keycloak.config.util.CloneUtil;
 import org.keycloak.representations.idm.GroupRepresentation;
 import org.slf4j.Logger;
@@ -31,7 +34,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -40,36 +42,42 @@ public class GroupImportService {
 
     private final GroupRepository groupRepository;
     private final ImportConfigProperties importConfigProperties;
-
-    public GroupImportService(GroupRepository groupRepository, ImportConfigProperties importConfigProperties) {
+    private final ImportExecutor importExecutor;
+    private final ChecksumService checksumService;
+
+    public GroupImportService(
+            GroupRepository groupRepository,
+            ImportConfigProperties importConfigProperties,
+            ImportExecutor importExecutor,
+            ChecksumService checksumService
+    ) {
         this.groupRepository = groupRepository;
         this.importConfigProperties = importConfigProperties;
+        this.importExecutor = importExecutor;
+        this.checksumService = checksumService;
     }
 
-    public void importGroups(RealmImport realmImport) {
+    public void importGroups(RealmImportContext context, RealmImport realmImport) {
         List<GroupRepresentation> groups = realmImport.getGroups();
         String realmName = realmImport.getRealm();
 
+        // groups may have been changed since the last import, start with a fresh group index
+        groupRepository.invalidate(realmName);
+
         if (groups == null) {
             return;
         }
 
-        List<GroupRepresentation> existingGroups = groupRepository.getAll(realmName);
-
-        createOrUpdateGroups(groups, realmName);
+        // a group is imported including its subgroups, a changed subgroup changes the checksum of its top-level group
+        createOrUpdateGroups(checksumService.getChangedEntities(context, "groups", groups, GroupRepresentation::getName), realmName);
 
         if (importConfigProperties.getManaged().getGroup() == ImportManagedPropertiesValues.FULL) {
-            deleteGroupsMissingInImport(realmName, groups, existingGroups);
+            deleteGroupsMissingInImport(realmName, groups, groupRepository.getAll(realmName));
         }
     }
 
     public void createOrUpdateGroups(List<GroupRepresentation> groups, String realmName) {
-        Consumer<GroupRepresentation> loop = group -> createOrUpdateRealmGroup(realmName, group);
-        if (importConfigProperties.isParallel()) {
-            groups.parallelStream().forEach(loop);
-        } else {
-            groups.forEach(loop);
-        }
+        importExecutor.forEach("groups", groups, group -> createOrUpdateRealmGroup(realmName, group));
     }
 
     private void deleteGroupsMissingInImport(
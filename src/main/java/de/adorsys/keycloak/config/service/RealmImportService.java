@@ -21,10 +21,18 @@
 package de.adorsys.keycloak.config.service;
 
 import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.model.RealmImportContext;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.repository.ClientRepository;
+import de.adorsys.keycloak.config.repository.GroupRepository;
 import de.adorsys.keycloak.config.repository.RealmRepository;
+import de.adorsys.keycloak.config.repository.RoleRepository;
+import de.adorsys.keycloak.config.repository.UserRepository;
 import de.adorsys.keycloak.config.service.checksum.ChecksumService;
+import de.adorsys.keycloak.config.service.executor.ImportExecutor;
+import de.adorsys.keycloak.config.service.executor.PhaseGraph;
+import de.adorsys.keycloak.config.service.executor.PhaseGraph.Phase;
 import de.adorsys.keycloak.config.service.state.StateService;
 import de.adorsys.keycloak.config.util.CloneUtil;
 import org.keycloak.representations.idm.RealmRepresentation;
@@ -33,6 +41,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class RealmImportService {
     static final String[] ignoredPropertiesForRealmImport = new String[]{
@@ -58,9 +69,53 @@ public class RealmImportService {
             "defaultOptionalClientScopes",
     };
 
+    // sections of the import written by each phase
+    private static final Map<String, List<String>> PHASE_SECTIONS = Map.ofEntries(
+            Map.entry("clientScopes", List.of("clientScopes")),
+            Map.entry("defaultClientScopes", List.of("defaultDefaultClientScopes", "defaultOptionalClientScopes")),
+            Map.entry("clients", List.of("clients")),
+            Map.entry("roles", List.of("roles")),
+            Map.entry("groups", List.of("groups")),
+            Map.entry("defaultGroups", List.of("defaultGroups")),
+            Map.entry("components", List.of("components")),
+            Map.entry("users", List.of("users", "registrationEmailAsUsername")),
+            Map.entry("requiredActions", List.of("requiredActions")),
+            Map.entry("authenticationFlows", List.of(
+                    "authenticationFlows", "browserFlow", "directGrantFlow", "clientAuthenticationFlow",
+                    "dockerAuthenticationFlow", "registrationFlow", "resetCredentialsFlow"
+            )),
+            Map.entry("authenticatorConfigs", List.of("authenticatorConfig")),
+            Map.entry("clientDependencies", List.of("clients")),
+            Map.entry("identityProviders", List.of("identityProviders", "identityProviderMappers")),
+            Map.entry("clientAuthorization", List.of("clients")),
+            Map.entry("scopeMappings", List.of("scopeMappings")),
+            Map.entry("clientScopeMappings", List.of("clientScopeMappings"))
+    );
+
+    // sections each phase refers to by name, only a changed name of one of their entities requires the phase to run
+    private static final Map<String, List<String>> PHASE_REFERENCES = Map.ofEntries(
+            Map.entry("defaultClientScopes", List.of("clientScopes")),
+            Map.entry("clients", List.of("clientScopes", "authenticationFlows")),
+            Map.entry("roles", List.of("clients")),
+            Map.entry("groups", List.of("clients", "roles")),
+            Map.entry("defaultGroups", List.of("groups")),
+            Map.entry("components", List.of("roles", "groups")),
+            Map.entry("users", List.of("clients", "roles", "groups", "components")),
+            Map.entry("authenticatorConfigs", List.of("authenticationFlows")),
+            Map.entry("clientDependencies", List.of("authenticationFlows")),
+            Map.entry("identityProviders", List.of("roles", "groups", "authenticationFlows")),
+            Map.entry("clientAuthorization", List.of("clientScopes", "roles", "groups", "users", "identityProviders")),
+            Map.entry("scopeMappings", List.of("clientScopes", "clients", "roles")),
+            Map.entry("clientScopeMappings", List.of("clientScopes", "clients", "roles"))
+    );
+
     private static final Logger logger = LoggerFactory.getLogger(RealmImportService.class);
     private final KeycloakProvider keycloakProvider;
     private final RealmRepository realmRepository;
+    private final ClientRepository clientRepository;
+    private final RoleRepository roleRepository;
+    private final GroupRepository groupRepository;
+    private final UserRepository userRepository;
 
     private final UserImportService userImportService;
     private final RoleImportService roleImportService;
@@ -78,6 +133,7 @@ public class RealmImportService {
     private final IdentityProviderImportService identityProviderImportService;
 
     private final ImportConfigProperties importProperties;
+    private final ImportExecutor importExecutor;
 
     private final ChecksumService checksumService;
     private final StateService stateService;
@@ -85,8 +141,13 @@ public class RealmImportService {
     @Autowired
     public RealmImportService(
             ImportConfigProperties importProperties,
+            ImportExecutor importExecutor,
             KeycloakProvider keycloakProvider,
             RealmRepository realmRepository,
+            ClientRepository clientRepository,
+            RoleRepository roleRepository,
+            GroupRepository groupRepository,
+            UserRepository userRepository,
             UserImportService userImportService,
             RoleImportService roleImportService,
             ClientImportService clientImportService,
@@ -104,8 +165,13 @@ public class RealmImportService {
             ChecksumService checksumService,
             StateService stateService) {
         this.importProperties = importProperties;
+        this.importExecutor = importExecutor;
         this.keycloakProvider = keycloakProvider;
         this.realmRepository = realmRepository;
+        this.clientRepository = clientRepository;
+        this.roleRepository = roleRepository;
+        this.groupRepository = groupRepository;
+        this.userRepository = userRepository;
         this.userImportService = userImportService;
         this.roleImportService = roleImportService;
         this.clientImportService = clientImportService;
@@ -125,19 +191,39 @@ public class RealmImportService {
     }
 
     public void doImport(RealmImport realmImport) {
-        boolean realmExists = realmRepository.exists(realmImport.getRealm());
+        RealmImportContext context = new RealmImportContext(realmImport);
 
-        if (realmExists) {
-            updateRealmIfNecessary(realmImport);
-        } else {
-            createRealm(realmImport);
+        // each import starts with a fresh view of the realm, it may have been changed since the last import
+        invalidateCaches(context);
+
+        try {
+            boolean realmExists = realmRepository.exists(realmImport.getRealm());
+
+            if (realmExists) {
+                updateRealmIfNecessary(context, realmImport);
+            } else {
+                createRealm(context, realmImport);
+            }
+        } finally {
+            // don't keep the realm in memory until the next import, e.g. in a long-running process
+            invalidateCaches(context);
         }
     }
 
-    private void updateRealmIfNecessary(RealmImport realmImport) {
-        if (!importProperties.getCache().isEnabled() || checksumService.hasToBeUpdated(realmImport)) {
+    private void invalidateCaches(RealmImportContext context) {
+        String realmName = context.getRealmName();
+
+        realmRepository.invalidate(realmName);
+        clientRepository.invalidate(realmName);
+        roleRepository.invalidate(realmName);
+        groupRepository.invalidate(realmName);
+        userRepository.invalidate(realmName);
+    }
+
+    private void updateRealmIfNecessary(RealmImportContext context, RealmImport realmImport) {
+        if (!importProperties.getCache().isEnabled() || checksumService.hasToBeUpdated(context)) {
             setEventsEnabledWorkaround(realmImport);
-            updateRealm(realmImport);
+            updateRealm(context, realmImport);
         } else {
             logger.debug(
                     "No need to update realm '{}', import checksum same: '{}'",
@@ -155,7 +241,7 @@ public class RealmImportService {
         realmImport.setEventsEnabled(existingEventsEnabled);
     }
 
-    private void createRealm(RealmImport realmImport) {
+    private void createRealm(RealmImportContext context, RealmImport realmImport) {
         logger.debug("Creating realm '{}' ...", realmImport.getRealm());
 
         RealmRepresentation realm = CloneUtil.deepClone(realmImport, RealmRepresentation.class, ignoredPropertiesForRealmImport);
@@ -164,44 +250,90 @@ public class RealmImportService {
         // refresh the access token to update the scopes. See: https://github.com/adorsys/keycloak-config-cli/issues/339
         keycloakProvider.refreshToken();
 
-        stateService.loadState(realmImport);
-        configureRealm(realmImport, realm);
+        stateService.loadState(context);
+        configureRealm(context, realmImport, realm);
     }
 
-    private void updateRealm(RealmImport realmImport) {
+    private void updateRealm(RealmImportContext context, RealmImport realmImport) {
         logger.debug("Updating realm '{}'...", realmImport.getRealm());
 
         RealmRepresentation realm = CloneUtil.deepClone(realmImport, RealmRepresentation.class, ignoredPropertiesForRealmImport);
 
         // The state must be loaded before we update realm to prevent
         // the state erasure by custom attributes from configuration
-        stateService.loadState(realm);
+        stateService.loadState(context, realm);
 
         realmRepository.update(realm);
 
-        configureRealm(realmImport, realm);
+        configureRealm(context, realmImport, realm);
     }
 
-    private void configureRealm(RealmImport realmImport, RealmRepresentation existingRealm) {
-        clientScopeImportService.doImport(realmImport);
-        clientScopeImportService.updateDefaultClientScopes(realmImport, existingRealm);
-        clientImportService.doImport(realmImport);
-        roleImportService.doImport(realmImport);
-        groupImportService.importGroups(realmImport);
-        defaultGroupsImportService.doImport(realmImport);
-        componentImportService.doImport(realmImport);
-        userImportService.doImport(realmImport);
-        requiredActionsImportService.doImport(realmImport);
-        authenticationFlowsImportService.doImport(realmImport);
-        authenticatorConfigImportService.doImport(realmImport);
-        clientImportService.doImportDependencies(realmImport);
-        identityProviderImportService.doImport(realmImport);
-        clientAuthorizationImportService.doImport(realmImport);
-        scopeMappingImportService.doImport(realmImport);
-        clientScopeMappingImportService.doImport(realmImport);
+    private void configureRealm(RealmImportContext context, RealmImport realmImport, RealmRepresentation existingRealm) {
+        PhaseGraph phases = createPhaseGraph(context, realmImport, existingRealm);
+
+        importExecutor.run(context.toString(), skipUnchangedPhases(context, phases));
+
+        // client scopes missing in the import are removed last, the other phases may still refer to them
         clientScopeImportService.doRemoveOrphan(realmImport);
 
-        stateService.doImport(realmImport);
-        checksumService.doImport(realmImport);
+        stateService.doImport(context, realmImport);
+        checksumService.doImport(context);
+    }
+
+    PhaseGraph createPhaseGraph(RealmImportContext context, RealmImport realmImport, RealmRepresentation existingRealm) {
+        return new PhaseGraph()
+                .add("clientScopes", () -> clientScopeImportService.doImport(realmImport))
+                .add("defaultClientScopes", () -> clientScopeImportService.updateDefaultClientScopes(realmImport, existingRealm),
+                        "clientScopes")
+                // new clients get the default client scopes of the realm
+                .add("clients", () -> clientImportService.doImport(context, realmImport),
+                        "clientScopes", "defaultClientScopes")
+                .add("roles", () -> roleImportService.doImport(context, realmImport),
+                        "clients")
+                .add("groups", () -> groupImportService.importGroups(context, realmImport),
+                        "clients", "roles")
+                .add("defaultGroups", () -> defaultGroupsImportService.doImport(realmImport),
+                        "groups")
+                .add("components", () -> componentImportService.doImport(context, realmImport),
+                        "roles", "groups")
+                // new users get the default groups of the realm
+                .add("users", () -> userImportService.doImport(context, realmImport),
+                        "clients", "roles", "groups", "defaultGroups", "components")
+                .add("requiredActions", () -> requiredActionsImportService.doImport(context, realmImport))
+                // flow bindings are written with a full realm update
+                .add("authenticationFlows", () -> authenticationFlowsImportService.doImport(realmImport),
+                        "defaultClientScopes", "clients", "defaultGroups", "requiredActions")
+                .add("authenticatorConfigs", () -> authenticatorConfigImportService.doImport(realmImport),
+                        "authenticationFlows")
+                .add("clientDependencies", () -> clientImportService.doImportDependencies(realmImport),
+                        "authenticationFlows")
+                .add("identityProviders", () -> identityProviderImportService.doImport(realmImport),
+                        "roles", "groups", "authenticationFlows")
+                .add("clientAuthorization", () -> clientAuthorizationImportService.doImport(context, realmImport),
+                        "clientScopes", "roles", "groups", "users", "clientDependencies", "identityProviders")
+                .add("scopeMappings", () -> scopeMappingImportService.doImport(realmImport),
+                        "clientScopes", "clients", "roles")
+                .add("clientScopeMappings", () -> clientScopeMappingImportService.doImport(realmImport),
+                        "clientScopes", "clients", "roles");
+    }
+
+    private PhaseGraph skipUnchangedPhases(RealmImportContext context, PhaseGraph phases) {
+        PhaseGraph checkedPhases = new PhaseGraph();
+
+        for (Phase phase : phases.getPhases()) {
+            checkedPhases.add(phase.getName(), () -> {
+                List<String> sections = PHASE_SECTIONS.get(phase.getName());
+                List<String> references = PHASE_REFERENCES.getOrDefault(phase.getName(), List.of());
+
+                if (sections != null && checksumService.isPhaseUnchanged(context, phase.getName(), sections, references)) {
+                    logger.debug("Skip import phase '{}' of {}, its sections are unchanged", phase.getName(), context);
+                    return;
+                }
+
+                phase.getTask().run();
+            }, phase.getDependencies().toArray(new String[0]));
+        }
+
+        return checkedPhases;
     }
 }
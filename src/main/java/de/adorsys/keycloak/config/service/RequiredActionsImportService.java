@@ -21,6 +21,7 @@
 package de.adorsys.keycloak.config.service;
 
 import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.model.RealmImportContext;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportManagedProperties.ImportManagedPropertiesValues;
 import de.adorsys.keycloak.config.repository.RequiredActionRepository;
@@ -55,7 +56,7 @@ public class RequiredActionsImportService {
         this.stateService = stateService;
     }
 
-    public void doImport(RealmImport realmImport) {
+    public void doImport(RealmImportContext context, RealmImport realmImport) {
         List<RequiredActionProviderRepresentation> requiredActions = realmImport.getRequiredActions();
         if (requiredActions == null) return;
 
@@ -64,7 +65,7 @@ public class RequiredActionsImportService {
         List<RequiredActionProviderRepresentation> existingRequiredActions = requiredActionRepository.getAll(realmName);
 
         if (importConfigProperties.getManaged().getClientScope() == ImportManagedPropertiesValues.FULL) {
-            deleteRequiredActionsMissingInImport(realmName, requiredActions, existingRequiredActions);
+            deleteRequiredActionsMissingInImport(context, requiredActions, existingRequiredActions);
         }
 
         for (RequiredActionProviderRepresentation requiredActionToImport : requiredActions) {
@@ -173,12 +174,14 @@ public class RequiredActionsImportService {
     }
 
     private void deleteRequiredActionsMissingInImport(
-            String realmName,
+            RealmImportContext context,
             List<RequiredActionProviderRepresentation> importedRequiredActions,
             List<RequiredActionProviderRepresentation> existingRequiredActions
     ) {
+        String realmName = context.getRealmName();
+
         if (importConfigProperties.getRemoteState().isEnabled()) {
-            List<String> requiredActionsInState = stateService.getRequiredActions();
+            List<String> requiredActionsInState = stateService.getRequiredActions(context);
 
             // ignore all object there are not in state
             existingRequiredActions = existingRequiredActions.stream()
@@ -22,8 +22,10 @@ package de.adorsys.keycloak.config.service;
 
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.model.RealmImportContext;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.repository.RoleRepository;
+import de.adorsys.keycloak.config.service.executor.ImportExecutor;
 import de.adorsys.keycloak.config.service.rolecomposites.client.ClientRoleCompositeImportService;
 import de.adorsys.keycloak.config.service.rolecomposites.realm.RealmRoleCompositeImportService;
 import de.adorsys.keycloak.config.service.state.StateService;
@@ -40,7 +42,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -55,6 +56,7 @@ public class RoleImportService {
 
     private final RoleRepository roleRepository;
     private final ImportConfigProperties importConfigProperties;
+    private final ImportExecutor importExecutor;
     private final StateService stateService;
 
     @Autowired
@@ -62,15 +64,20 @@ public class RoleImportService {
             RealmRoleCompositeImportService realmRoleCompositeImportService,
             ClientRoleCompositeImportService clientRoleCompositeImportService,
             RoleRepository roleRepository,
-            ImportConfigProperties importConfigProperties, StateService stateService) {
+            ImportConfigProperties importConfigProperties, ImportExecutor importExecutor,
+            StateService stateService) {
         this.realmRoleCompositeImport = realmRoleCompositeImportService;
         this.clientRoleCompositeImport = clientRoleCompositeImportService;
         this.roleRepository = roleRepository;
         this.importConfigProperties = importConfigProperties;
+        this.importExecutor = importExecutor;
         this.stateService = stateService;
     }
 
-    public void doImport(RealmImport realmImport) {
+    public void doImport(RealmImportContext context, RealmImport realmImport) {
+        // roles may have been changed since the last import, start with fresh role catalogs
+        roleRepository.invalidate(realmImport.getRealm());
+
         RolesRepresentation roles = realmImport.getRoles();
         if (roles == null) return;
 
@@ -91,10 +98,10 @@ public class RoleImportService {
 
         if (importConfigProperties.getManaged().getRole() == ImportConfigProperties.ImportManagedProperties.ImportManagedPropertiesValues.FULL) {
             if (realmRoleInImport) {
-                deleteRealmRolesMissingInImport(realmName, roles.getRealm(), existingRealmRoles);
+                deleteRealmRolesMissingInImport(context, roles.getRealm(), existingRealmRoles);
             }
             if (clientRoleInImport) {
-                deleteClientRolesMissingInImport(realmName, roles.getClient(), existingClientRoles);
+                deleteClientRolesMissingInImport(context, roles.getClient(), existingClientRoles);
             }
         }
 
@@ -120,12 +127,7 @@ public class RoleImportService {
             List<RoleRepresentation> rolesToImport,
             List<RoleRepresentation> existingRealmRoles
     ) {
-        Consumer<RoleRepresentation> loop = role -> createOrUpdateRealmRole(realmName, role, existingRealmRoles);
-        if (importConfigProperties.isParallel()) {
-            rolesToImport.parallelStream().forEach(loop);
-        } else {
-            rolesToImport.forEach(loop);
-        }
+        importExecutor.forEach("realm roles", rolesToImport, role -> createOrUpdateRealmRole(realmName, role, existingRealmRoles));
     }
 
     private void createOrUpdateRealmRole(
@@ -241,12 +243,14 @@ public class RoleImportService {
     }
 
     private void deleteRealmRolesMissingInImport(
-            String realmName,
+            RealmImportContext context,
             List<RoleRepresentation> importedRoles,
             List<RoleRepresentation> existingRoles
     ) {
+        String realmName = context.getRealmName();
+
         if (importConfigProperties.getRemoteState().isEnabled()) {
-            List<String> realmRolesInState = stateService.getRealmRoles();
+            List<String> realmRolesInState = stateService.getRealmRoles(context);
 
             // ignore all object there are not in state
             existingRoles = existingRoles.stream()
@@ -269,12 +273,14 @@ public class RoleImportService {
     }
 
     private void deleteClientRolesMissingInImport(
-            String realmName,
+            RealmImportContext context,
             Map<String, List<RoleRepresentation>> importedClientsRoles,
             Map<String, List<RoleRepresentation>> existingRoles
     ) {
+        String realmName = context.getRealmName();
+
         for (Map.Entry<String, List<RoleRepresentation>> client : existingRoles.entrySet()) {
-            List<RoleRepresentation> managedRoles = getManagedClientRoles(client.getKey(), client.getValue());
+            List<RoleRepresentation> managedRoles = getManagedClientRoles(context, client.getKey(), client.getValue());
 
             Set<String> importedClientRoles = importedClientsRoles.containsKey(client.getKey())
                     ? importedClientsRoles.get(client.getKey()).stream()
@@ -294,9 +300,9 @@ public class RoleImportService {
         }
     }
 
-    private List<RoleRepresentation> getManagedClientRoles(String client, List<RoleRepresentation> existingRoles) {
+    private List<RoleRepresentation> getManagedClientRoles(RealmImportContext context, String client, List<RoleRepresentation> existingRoles) {
         if (importConfigProperties.getRemoteState().isEnabled()) {
-            List<String> clientRolesInState = stateService.getClientRoles(client);
+            List<String> clientRolesInState = stateService.getClientRoles(context, client);
             // ignore all object there are not in state
             return existingRoles.stream()
                     .filter(role -> clientRolesInState.contains(role.getName()))
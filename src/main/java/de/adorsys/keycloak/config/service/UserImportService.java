@@ -22,8 +22,12 @@ package de.adorsys.keycloak.config.service;
 
 import de.adorsys.keycloak.config.exception.InvalidImportException;
 import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.model.RealmImportContext;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.provider.AdminRequestBatch;
 import de.adorsys.keycloak.config.repository.*;
+import de.adorsys.keycloak.config.service.checksum.ChecksumService;
+import de.adorsys.keycloak.config.service.executor.ImportExecutor;
 import de.adorsys.keycloak.config.util.CloneUtil;
 import de.adorsys.keycloak.config.util.KeycloakUtil;
 import org.keycloak.representations.idm.*;
@@ -34,8 +38,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.util.*;
-import java.util.function.Consumer;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 public class UserImportService {
@@ -49,25 +54,34 @@ public class UserImportService {
     private final RoleRepository roleRepository;
     private final GroupRepository groupRepository;
     private final ClientRepository clientRepository;
+    private final RequiredActionRepository requiredActionRepository;
 
     private final ImportConfigProperties importConfigProperties;
+    private final ImportExecutor importExecutor;
+    private final ChecksumService checksumService;
 
     @Autowired
     public UserImportService(
             RealmRepository realmRepository, UserRepository userRepository,
             RoleRepository roleRepository,
             GroupRepository groupRepository,
-            ClientRepository clientRepository, ImportConfigProperties importConfigProperties
+            ClientRepository clientRepository, RequiredActionRepository requiredActionRepository,
+            ImportConfigProperties importConfigProperties,
+            ImportExecutor importExecutor,
+            ChecksumService checksumService
     ) {
         this.realmRepository = realmRepository;
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.groupRepository = groupRepository;
         this.clientRepository = clientRepository;
+        this.requiredActionRepository = requiredActionRepository;
         this.importConfigProperties = importConfigProperties;
+        this.importExecutor = importExecutor;
+        this.checksumService = checksumService;
     }
 
-    public void doImport(RealmImport realmImport) {
+    public void doImport(RealmImportContext context, RealmImport realmImport) {
         List<UserRepresentation> users = realmImport.getUsers();
 
         if (users == null) {
@@ -79,47 +93,193 @@ public class UserImportService {
             return;
         }
 
-        Consumer<UserRepresentation> loop = user -> importUser(realmImport.getRealm(), user);
-        if (importConfigProperties.isParallel()) {
-            users.parallelStream().forEach(loop);
-        } else {
-            users.forEach(loop);
+        String realmName = realmImport.getRealm();
+
+        // the checksums are computed on the users as defined in the import, before they are changed by the import
+        List<UserRepresentation> changedUsers = checksumService.getChangedEntities(context, "users", users,
+                user -> toUsernameKey(user.getUsername() != null ? user.getUsername() : user.getEmail()));
+        if (changedUsers.isEmpty()) {
+            return;
+        }
+
+        // users may have been changed since the last import, start with a fresh username index
+        userRepository.invalidate(realmName);
+        prefetchUsers(realmName, changedUsers.size());
+
+        // read once, each realm read is a copy of the whole realm representation
+        boolean emailAsUsername = Boolean.TRUE.equals(realmRepository.get(realmName).isRegistrationEmailAsUsername());
+
+        List<UserRepresentation> usersToImport = changedUsers;
+        if (importConfigProperties.getUsers().isBulkCreate()) {
+            usersToImport = bulkCreate(realmName, emailAsUsername, changedUsers);
         }
+
+        importExecutor.forEach("users", usersToImport, user -> importUser(realmName, emailAsUsername, user));
+    }
+
+    /*
+     * Pages through the users of the realm once, so existing users are diffed without a lookup per user. If only a small
+     * part of the realm's users is configured, paging through all of them costs more than looking up each user.
+     */
+    private void prefetchUsers(String realmName, int configuredUsers) {
+        int realmUsers = userRepository.count(realmName);
+
+        if (configuredUsers < realmUsers * importConfigProperties.getUsers().getPrefetchMinRatio()) {
+            logger.debug("Look up {} users in realm '{}' with {} users one by one", configuredUsers, realmName, realmUsers);
+            return;
+        }
+
+        int pageSize = importConfigProperties.getUsers().getPrefetchPageSize();
+        List<Integer> pages = IntStream.iterate(0, first -> first < realmUsers, first -> first + pageSize)
+                .boxed()
+                .collect(Collectors.toList());
+
+        importExecutor.forEach("user pages", pages, importConfigProperties.getUsers().getPrefetchConcurrency(),
+                first -> userRepository.prefetch(realmName, first, pageSize));
+        userRepository.completePrefetch(realmName);
+
+        logger.debug("Prefetched {} users of realm '{}' with {} requests", realmUsers, realmName, pages.size());
     }
 
-    private void importUser(String realmName, UserRepresentation user) {
-        UserImport userImport = new UserImport(realmName, user);
+    /*
+     * Creates the users which are not known yet with partial imports of the realm, in chunks of import.users.bulk-size
+     * users. Returns the users which have to be imported one by one: known users, service account users, repeated
+     * usernames and users skipped by the partial import.
+     */
+    private List<UserRepresentation> bulkCreate(String realmName, boolean emailAsUsername, List<UserRepresentation> users) {
+        Map<String, UserRepresentation> newUsers = new LinkedHashMap<>();
+
+        for (UserRepresentation user : users) {
+            applyEmailAsUsername(realmName, emailAsUsername, user);
+
+            if (
+                    user.getUsername() != null
+                            && !StringUtils.hasLength(user.getServiceAccountClientId())
+                            && !userRepository.isKnown(realmName, user.getUsername())
+            ) {
+                newUsers.putIfAbsent(toUsernameKey(user.getUsername()), user);
+            }
+        }
+
+        if (newUsers.isEmpty()) {
+            return users;
+        }
+
+        List<String> defaultRequiredActions = requiredActionRepository.getAll(realmName).stream()
+                .filter(requiredAction -> requiredAction.isEnabled() && requiredAction.isDefaultAction())
+                .map(RequiredActionProviderRepresentation::getAlias)
+                .collect(Collectors.toList());
+
+        List<UserRepresentation> bulkUsers = newUsers.values().stream()
+                .map(user -> toBulkUser(realmName, user, defaultRequiredActions))
+                .collect(Collectors.toList());
+
+        int bulkSize = importConfigProperties.getUsers().getBulkSize();
+        List<List<UserRepresentation>> chunks = new ArrayList<>();
+        for (int i = 0; i < bulkUsers.size(); i += bulkSize) {
+            chunks.add(bulkUsers.subList(i, Math.min(i + bulkSize, bulkUsers.size())));
+        }
+
+        PartialImportRepresentation.Policy policy = PartialImportRepresentation.Policy.valueOf(
+                importConfigProperties.getUsers().getBulkPolicy().name()
+        );
+
+        Set<String> skipped = ConcurrentHashMap.newKeySet();
+        importExecutor.forEach("user chunks", chunks, chunk -> userRepository
+                .partialImport(realmName, chunk, policy)
+                .forEach(username -> skipped.add(toUsernameKey(username)))
+        );
+
+        logger.debug("Created {} users in realm '{}' with {} partial imports, {} existing users skipped",
+                bulkUsers.size() - skipped.size(), realmName, chunks.size(), skipped.size());
+
+        return users.stream()
+                .filter(user -> {
+                    String usernameKey = toUsernameKey(user.getUsername());
+                    return newUsers.get(usernameKey) != user || skipped.contains(usernameKey);
+                })
+                .collect(Collectors.toList());
+    }
+
+    /*
+     * The partial import creates users including their mappings, but neither adds the default role nor the default
+     * required actions like the creation of a single user does. Roles and groups are resolved upfront, so an unknown
+     * one is reported like on the import of a single user instead of failing the whole chunk.
+     */
+    private UserRepresentation toBulkUser(String realmName, UserRepresentation user, List<String> defaultRequiredActions) {
+        UserRepresentation bulkUser = CloneUtil.deepClone(user);
+
+        List<String> realmRoles = new ArrayList<>(Optional.ofNullable(user.getRealmRoles()).orElseGet(Collections::emptyList));
+        roleRepository.searchRealmRoles(realmName, realmRoles);
+
+        String defaultRole = "default-roles-" + realmName.toLowerCase();
+        if (!importConfigProperties.getBehaviors().isRemoveDefaultRoleFromUser() && !realmRoles.contains(defaultRole)) {
+            realmRoles.add(defaultRole);
+        }
+        bulkUser.setRealmRoles(realmRoles);
+
+        Optional.ofNullable(user.getClientRoles()).orElseGet(Collections::emptyMap)
+                .forEach((clientId, roleNames) -> roleRepository.getClientRolesByName(realmName, clientId, roleNames));
+
+        List<String> groups = Optional.ofNullable(user.getGroups()).orElseGet(Collections::emptyList)
+                .stream().map(groupName -> groupName.startsWith("/") ? groupName : "/" + groupName)
+                .collect(Collectors.toList());
+        groupRepository.findGroupsByGroupPath(realmName, groups);
+        bulkUser.setGroups(groups);
+
+        Set<String> requiredActions = new LinkedHashSet<>(defaultRequiredActions);
+        Optional.ofNullable(user.getRequiredActions()).ifPresent(requiredActions::addAll);
+        bulkUser.setRequiredActions(new ArrayList<>(requiredActions));
+
+        return bulkUser;
+    }
+
+    private void applyEmailAsUsername(String realmName, boolean emailAsUsername, UserRepresentation user) {
+        if (
+                // The service accounts shall not be taken into account
+                !StringUtils.hasLength(user.getServiceAccountClientId())
+                        && emailAsUsername
+        ) {
+            if (
+                    user.getUsername() != null
+                            && !Objects.equals(user.getUsername(), user.getEmail())
+            ) {
+                String errorMessage = String.format(
+                        "Invalid user '%s' in realm '%s': username (%s) and email (%s) "
+                                + "is different while 'email as username' is enabled on realm.",
+                        user.getUsername(), realmName, user.getUsername(), user.getEmail());
+                throw new InvalidImportException(errorMessage);
+            }
+
+            user.setUsername(user.getEmail());
+        }
+    }
+
+    private static String toUsernameKey(String username) {
+        return username == null ? null : username.toLowerCase(Locale.ROOT);
+    }
+
+    private void importUser(String realmName, boolean emailAsUsername, UserRepresentation user) {
+        UserImport userImport = new UserImport(realmName, emailAsUsername, user);
         userImport.importUser();
     }
 
     private class UserImport {
         private final String realmName;
+        private final boolean emailAsUsername;
         private final UserRepresentation userToImport;
 
-        private UserImport(String realmName, UserRepresentation userToImport) {
+        // role and group mappings of the user are independent of each other, they are sent without waiting in between
+        private AdminRequestBatch mappings;
+
+        private UserImport(String realmName, boolean emailAsUsername, UserRepresentation userToImport) {
             this.realmName = realmName;
+            this.emailAsUsername = emailAsUsername;
             this.userToImport = userToImport;
         }
 
         public void importUser() {
-            if (
-                    // The service accounts shall not be taken into account
-                    !StringUtils.hasLength(userToImport.getServiceAccountClientId())
-                            && Boolean.TRUE.equals(realmRepository.get(realmName).isRegistrationEmailAsUsername())
-            ) {
-                if (
-                        userToImport.getUsername() != null
-                                && !Objects.equals(userToImport.getUsername(), userToImport.getEmail())
-                ) {
-                    String errorMessage = String.format(
-                            "Invalid user '%s' in realm '%s': username (%s) and email (%s) "
-                                    + "is different while 'email as username' is enabled on realm.",
-                            userToImport.getUsername(), realmName, userToImport.getUsername(), userToImport.getEmail());
-                    throw new InvalidImportException(errorMessage);
-                }
-
-                userToImport.setUsername(userToImport.getEmail());
-            }
+            applyEmailAsUsername(realmName, emailAsUsername, userToImport);
 
             Optional<UserRepresentation> maybeUser = userRepository.search(realmName, userToImport.getUsername());
 
@@ -130,9 +290,13 @@ public class UserImportService {
                 userRepository.create(realmName, userToImport);
             }
 
+            mappings = realmRepository.newRequestBatch(realmName);
+
             handleRealmRoles();
             handleClientRoles();
             handleGroups();
+
+            mappings.await("Update role and group mappings of user '%s' in realm '%s'", userToImport.getUsername(), realmName);
         }
 
         private void updateUser(UserRepresentation existingUser) {
@@ -194,7 +358,7 @@ public class UserImportService {
             logger.debug("Add groups {} to user '{}' in realm '{}'",
                     groupsToAdd, userToImport.getUsername(), realmName);
 
-            groupRepository.addGroupsToUser(realmName, userToImport.getUsername(), groups);
+            groupRepository.addGroupsToUser(mappings, realmName, userToImport.getUsername(), groups);
         }
 
         private void handleGroupsToBeRemoved(
@@ -209,7 +373,7 @@ public class UserImportService {
             logger.debug("Remove groups {} from user '{}' in realm '{}'",
                     groupsToDelete, userToImport.getUsername(), realmName);
 
-            groupRepository.removeGroupsFromUser(realmName, userToImport.getUsername(), groups);
+            groupRepository.removeGroupsFromUser(mappings, realmName, userToImport.getUsername(), groups);
         }
 
         private void handleRealmRoles() {
@@ -234,7 +398,7 @@ public class UserImportService {
             logger.debug("Add realm-level roles {} to user '{}' in realm '{}'",
                     rolesToAdd, userToImport.getUsername(), realmName);
 
-            roleRepository.addRealmRolesToUser(realmName, userToImport.getUsername(), realmRoles);
+            roleRepository.addRealmRolesToUser(mappings, realmName, userToImport.getUsername(), realmRoles);
         }
 
         private void handleRolesToBeRemoved(List<String> usersRealmLevelRolesToUpdate, List<String> existingUsersRealmLevelRoles) {
@@ -250,7 +414,7 @@ public class UserImportService {
             logger.debug("Remove realm-level roles {} from user '{}' in realm '{}'",
                     rolesToDelete, userToImport.getUsername(), realmName);
 
-            roleRepository.removeRealmRolesForUser(realmName, userToImport.getUsername(), realmRoles);
+            roleRepository.removeRealmRolesForUser(mappings, realmName, userToImport.getUsername(), realmRoles);
         }
 
         private void handleClientRoles() {
@@ -323,7 +487,7 @@ public class UserImportService {
                 logger.debug("Add client-level roles {} for client '{}' to user '{}' in realm '{}'",
                         clientRolesToAdd, clientId, userToImport.getUsername(), realmName);
 
-                roleRepository.addClientRolesToUser(realmName, userToImport.getUsername(), clientId, clientRoles);
+                roleRepository.addClientRolesToUser(mappings, realmName, userToImport.getUsername(), clientId, clientRoles);
             }
 
             private void handleClientRolesToBeRemoved() {
@@ -336,7 +500,7 @@ public class UserImportService {
                 logger.debug("Remove client-level roles {} for client '{}' from user '{}' in realm '{}'",
                         clientRolesToRemove, clientId, userToImport.getUsername(), realmName);
 
-                roleRepository.removeClientRolesForUser(realmName, userToImport.getUsername(), clientId, clientRoles);
+                roleRepository.removeClientRolesForUser(mappings, realmName, userToImport.getUsername(), clientId, clientRoles);
             }
         }
     }
@@ -20,9 +20,13 @@
 
 package de.adorsys.keycloak.config.service.checksum;
 
-import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.model.RealmImportContext;
+import de.adorsys.keycloak.config.model.SectionChecksums;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.repository.RealmRepository;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.codec.digest.HmacAlgorithms;
+import org.apache.commons.codec.digest.HmacUtils;
 import org.keycloak.representations.idm.RealmRepresentation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,40 +34,227 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.text.MessageFormat;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static de.adorsys.keycloak.config.util.JsonUtil.toJson;
 
 @Service
 public class ChecksumService {
     private static final Logger logger = LoggerFactory.getLogger(ChecksumService.class);
 
+    // 64 bits are plenty to tell a changed entity from an unchanged one, but keep the checksum file of large realms small
+    private static final int ENTITY_CHECKSUM_LENGTH = 16;
+
     private final RealmRepository realmRepository;
+    private final EntityChecksumStore entityChecksumStore;
     private final ImportConfigProperties importConfigProperties;
 
     @Autowired
-    public ChecksumService(RealmRepository realmRepository, ImportConfigProperties importConfigProperties) {
+    public ChecksumService(
+            RealmRepository realmRepository, EntityChecksumStore entityChecksumStore, ImportConfigProperties importConfigProperties
+    ) {
         this.realmRepository = realmRepository;
+        this.entityChecksumStore = entityChecksumStore;
         this.importConfigProperties = importConfigProperties;
     }
 
-    public void doImport(RealmImport realmImport) {
-        RealmRepresentation existingRealm = realmRepository.get(realmImport.getRealm());
+    public void doImport(RealmImportContext context) {
+        RealmRepresentation existingRealm = realmRepository.get(context.getRealmName());
         Map<String, String> customAttributes = existingRealm.getAttributes();
 
-        String importChecksum = realmImport.getChecksum();
+        String importChecksum = context.getChecksum();
         customAttributes.put(getCustomAttributeKey(), importChecksum);
+        context.getPhaseChecksums().forEach((phase, phaseChecksum) -> customAttributes.put(getPhaseAttributeKey(phase), phaseChecksum));
+
+        if (isFullReconcileEnabled() && (context.isFullReconcile() || !customAttributes.containsKey(getReconciledAttributeKey()))) {
+            customAttributes.put(getReconciledAttributeKey(), Instant.now().toString());
+        }
+
+        // a new token on every import, so checksums stored by another import are never mistaken for the current ones
+        String entityChecksumsToken = isEntityChecksumsEnabled() ? UUID.randomUUID().toString() : null;
+        if (entityChecksumsToken != null) {
+            customAttributes.put(getEntityChecksumsAttributeKey(), entityChecksumsToken);
+        } else {
+            customAttributes.remove(getEntityChecksumsAttributeKey());
+        }
+
         realmRepository.update(existingRealm);
 
-        logger.debug("Updated import checksum of realm '{}' to '{}'", realmImport.getRealm(), importChecksum);
+        if (entityChecksumsToken != null) {
+            entityChecksumStore.update(
+                    context.getRealmName(),
+                    context.getStateAttributes().get(getEntityChecksumsAttributeKey()),
+                    entityChecksumsToken,
+                    context.getEntityChecksums()
+            );
+        }
+
+        logger.debug("Updated import checksum of realm '{}' to '{}'", context.getRealmName(), importChecksum);
     }
 
-    public boolean hasToBeUpdated(RealmImport realmImport) {
-        RealmRepresentation existingRealm = realmRepository.get(realmImport.getRealm());
+    public boolean hasToBeUpdated(RealmImportContext context) {
+        RealmRepresentation existingRealm = realmRepository.get(context.getRealmName());
         Map<String, String> customAttributes = existingRealm.getAttributes();
 
+        if (isFullReconcileDue(customAttributes.get(getReconciledAttributeKey()))) {
+            logger.info("Full reconcile of realm '{}' is due, import all phases and entities", context.getRealmName());
+            context.setFullReconcile(true);
+            return true;
+        }
+
         String readChecksum = customAttributes.get(getCustomAttributeKey());
 
-        return !Objects.equals(realmImport.getChecksum(), readChecksum);
+        return !Objects.equals(context.getChecksum(), readChecksum);
+    }
+
+    private boolean isFullReconcileDue(String reconciled) {
+        if (!isFullReconcileEnabled()) {
+            return false;
+        }
+
+        if (reconciled == null) {
+            return true;
+        }
+
+        try {
+            Duration interval = importConfigProperties.getCache().getFullReconcileInterval();
+            return Instant.parse(reconciled).plus(interval).isBefore(Instant.now());
+        } catch (DateTimeParseException e) {
+            logger.warn("Unable to parse the time of the last full reconcile '{}', reconcile again", reconciled);
+            return true;
+        }
+    }
+
+    private boolean isFullReconcileEnabled() {
+        Duration interval = importConfigProperties.getCache().getFullReconcileInterval();
+        return interval != null && !interval.isZero() && !interval.isNegative();
+    }
+
+    /**
+     * Returns true if the phase can be skipped, since the sections it imports and the names of the entities it refers
+     * to are unchanged since the last import. The new checksum of the phase is kept in the context and stored by
+     * {@link #doImport(RealmImportContext)}.
+     */
+    public boolean isPhaseUnchanged(RealmImportContext context, String phase, List<String> sections, List<String> references) {
+        SectionChecksums sectionChecksums = context.getSectionChecksums();
+
+        // the first section holds the entities of the phase, the other sections and the references apply to all of them
+        StringBuilder referenceContent = new StringBuilder();
+        for (String section : sections.subList(1, sections.size())) {
+            referenceContent.append(section).append('=').append(sectionChecksums.getContent(section)).append(';');
+        }
+        for (String reference : references) {
+            referenceContent.append(reference).append('~').append(sectionChecksums.getIdentity(reference)).append(';');
+        }
+
+        String entitySection = sections.get(0);
+        String phaseChecksum = DigestUtils.sha256Hex(
+                entitySection + '=' + sectionChecksums.getContent(entitySection) + ';' + referenceContent
+        );
+        context.getPhaseChecksums().put(phase, phaseChecksum);
+        context.getReferenceChecksums().put(phase, DigestUtils.sha256Hex(referenceContent.toString()));
+
+        if (!isSkipAllowed(context)) {
+            return false;
+        }
+
+        return phaseChecksum.equals(context.getStateAttributes().get(getPhaseAttributeKey(phase)));
+    }
+
+    /**
+     * Returns the entities of the phase which have to be imported, i.e. all entities whose definition or references
+     * changed since the last import. Unchanged entities are skipped without any request to Keycloak. Entities without a
+     * key or with a key defined more than once are always imported. The new checksums of the entities are kept in the
+     * context and stored in the entity checksums file.
+     * <p>
+     * The checksums are keyed with the secret of the entity checksums file, they cover credentials and client secrets.
+     */
+    public <T> List<T> getChangedEntities(
+            RealmImportContext context, String phase, List<T> entities, Function<T, String> keyFunction
+    ) {
+        String referenceChecksum = context.getReferenceChecksums().get(phase);
+
+        if (referenceChecksum == null || !isEntityChecksumsEnabled()) {
+            return entities;
+        }
+
+        Map<String, Long> keyCounts = entities.stream()
+                .map(keyFunction)
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+
+        Map<String, String> storedChecksums = isSkipAllowed(context)
+                ? entityChecksumStore.getChecksums(
+                        context.getRealmName(), context.getStateAttributes().get(getEntityChecksumsAttributeKey()), phase
+                )
+                : Map.of();
+        Map<String, String> entityChecksums = new HashMap<>();
+        // not thread-safe, phases may run in parallel
+        HmacUtils hmac = new HmacUtils(HmacAlgorithms.HMAC_SHA_256, entityChecksumStore.getSecret());
+        List<T> changedEntities = new ArrayList<>();
+
+        for (T entity : entities) {
+            String key = keyFunction.apply(entity);
+
+            if (key == null || keyCounts.get(key) > 1) {
+                changedEntities.add(entity);
+                continue;
+            }
+
+            String entityChecksum = hmac.hmacHex(referenceChecksum + toJson(entity)).substring(0, ENTITY_CHECKSUM_LENGTH);
+            entityChecksums.put(key, entityChecksum);
+
+            if (!entityChecksum.equals(storedChecksums.get(key))) {
+                changedEntities.add(entity);
+            }
+        }
+
+        context.getEntityChecksums().put(phase, entityChecksums);
+
+        logger.debug("Skip {} unchanged {} of {}", entities.size() - changedEntities.size(), phase, context);
+        return changedEntities;
+    }
+
+    private boolean isEntityChecksumsEnabled() {
+        return importConfigProperties.getCache().isEnabled() && entityChecksumStore.isEnabled();
+    }
+
+    private boolean isSkipAllowed(RealmImportContext context) {
+        return importConfigProperties.getCache().isEnabled()
+                && !importConfigProperties.getCache().isForce()
+                && !context.isFullReconcile();
+    }
+
+    private String getPhaseAttributeKey(String phase) {
+        return MessageFormat.format(
+                ImportConfigProperties.REALM_PHASE_CHECKSUM_ATTRIBUTE_PREFIX_KEY,
+                importConfigProperties.getCache().getKey(),
+                phase
+        );
+    }
+
+    private String getReconciledAttributeKey() {
+        return MessageFormat.format(
+                ImportConfigProperties.REALM_RECONCILED_ATTRIBUTE_PREFIX_KEY,
+                importConfigProperties.getCache().getKey()
+        );
+    }
+
+    private String getEntityChecksumsAttributeKey() {
+        return MessageFormat.format(
+                ImportConfigProperties.REALM_ENTITY_CHECKSUMS_ATTRIBUTE_PREFIX_KEY,
+                importConfigProperties.getCache().getKey()
+        );
     }
 
     private String getCustomAttributeKey() {
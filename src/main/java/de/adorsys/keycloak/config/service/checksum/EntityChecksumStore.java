@@ -0,0 +1,204 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.checksum;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the checksums of users, clients and groups in a local file instead of the realm attributes, so they are neither
+ * sent with every realm representation nor readable by realm administrators.
+ * <p>
+ * The checksums of a realm are only valid while the realm carries the token they were stored with. Every import writes
+ * a new token to the realm, so a recreated realm or an import without this file invalidates them. The file also holds
+ * the secret the checksums are computed with and is only readable by its owner.
+ */
+@Component
+public class EntityChecksumStore {
+    private static final Logger logger = LoggerFactory.getLogger(EntityChecksumStore.class);
+
+    private static final int SECRET_LENGTH = 32;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ImportConfigProperties importConfigProperties;
+
+    private StateFile stateFile;
+
+    @Autowired
+    public EntityChecksumStore(ImportConfigProperties importConfigProperties) {
+        this.importConfigProperties = importConfigProperties;
+    }
+
+    public boolean isEnabled() {
+        String file = importConfigProperties.getCache().getEntityChecksumsFile();
+        return file != null && !file.isBlank();
+    }
+
+    public synchronized byte[] getSecret() {
+        try {
+            return Hex.decodeHex(load().getSecret());
+        } catch (DecoderException e) {
+            throw new ImportProcessingException("Invalid secret in entity checksums file", e);
+        }
+    }
+
+    /**
+     * Returns the checksums of the entities of the phase by their key, if they were stored with the given token.
+     */
+    public synchronized Map<String, String> getChecksums(String realmName, String token, String phase) {
+        RealmChecksums realm = load().getRealms().get(realmName);
+
+        if (realm == null || token == null || !token.equals(realm.getToken())) {
+            return Map.of();
+        }
+
+        return new HashMap<>(realm.getPhases().getOrDefault(phase, Map.of()));
+    }
+
+    /**
+     * Stores the checksums of the phases with a new token. The checksums of other phases are kept, if they were stored
+     * with the previous token of the realm.
+     */
+    public synchronized void update(
+            String realmName, String previousToken, String token, Map<String, Map<String, String>> checksums
+    ) {
+        StateFile file = load();
+        RealmChecksums realm = file.getRealms().get(realmName);
+
+        Map<String, Map<String, String>> phases = new HashMap<>();
+        if (realm != null && Objects.equals(previousToken, realm.getToken())) {
+            phases.putAll(realm.getPhases());
+        }
+        phases.putAll(checksums);
+
+        RealmChecksums updatedRealm = new RealmChecksums();
+        updatedRealm.setToken(token);
+        updatedRealm.setPhases(phases);
+        file.getRealms().put(realmName, updatedRealm);
+
+        write(file);
+    }
+
+    private StateFile load() {
+        if (stateFile != null) {
+            return stateFile;
+        }
+
+        Path path = getPath();
+
+        if (Files.exists(path)) {
+            try {
+                stateFile = objectMapper.readValue(path.toFile(), StateFile.class);
+            } catch (IOException e) {
+                logger.warn("Unable to read entity checksums file '{}', import all entities: {}", path, e.getMessage());
+            }
+        }
+
+        if (stateFile == null || stateFile.getSecret() == null) {
+            byte[] secret = new byte[SECRET_LENGTH];
+            new SecureRandom().nextBytes(secret);
+
+            stateFile = new StateFile();
+            stateFile.setSecret(Hex.encodeHexString(secret));
+        }
+
+        return stateFile;
+    }
+
+    private void write(StateFile file) {
+        Path path = getPath().toAbsolutePath();
+
+        try {
+            // temporary files are only readable by their owner
+            Path tempFile = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            objectMapper.writeValue(tempFile.toFile(), file);
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // the realm already holds the new token, the next import imports all entities
+            logger.warn("Unable to write entity checksums file '{}': {}", path, e.getMessage());
+        }
+    }
+
+    private Path getPath() {
+        return Paths.get(importConfigProperties.getCache().getEntityChecksumsFile());
+    }
+
+    @SuppressWarnings("unused")
+    static class StateFile {
+        private String secret;
+        private Map<String, RealmChecksums> realms = new HashMap<>();
+
+        public String getSecret() {
+            return secret;
+        }
+
+        public void setSecret(String secret) {
+            this.secret = secret;
+        }
+
+        public Map<String, RealmChecksums> getRealms() {
+            return realms;
+        }
+
+        public void setRealms(Map<String, RealmChecksums> realms) {
+            this.realms = realms;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    static class RealmChecksums {
+        private String token;
+        private Map<String, Map<String, String>> phases = new HashMap<>();
+
+        public String getToken() {
+            return token;
+        }
+
+        public void setToken(String token) {
+            this.token = token;
+        }
+
+        public Map<String, Map<String, String>> getPhases() {
+            return phases;
+        }
+
+        public void setPhases(Map<String, Map<String, String>> phases) {
+            this.phases = phases;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.executor;
+
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.service.executor.PhaseGraph.Phase;
+import de.adorsys.keycloak.config.util.resteasy.AffinityLane;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs the parallel parts of an import on a bounded thread pool, sized by {@code import.executor.threads}.
+ * <p>
+ * The calling thread takes part in the work of each batch, so a batch always makes progress, even if all threads of
+ * the pool are busy with other batches.
+ */
+@Service
+public class ImportExecutor implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(ImportExecutor.class);
+
+    private final ImportConfigProperties importConfigProperties;
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public ImportExecutor(ImportConfigProperties importConfigProperties) {
+        this.importConfigProperties = importConfigProperties;
+
+        int threads = importConfigProperties.getExecutor().getThreads();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ImportThreadFactory()
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Applies the action to all items. If {@code import.parallel} is enabled, up to {@code import.executor.phase-concurrency}
+     * items are processed at the same time. After the first failure no further items are started, the failure is
+     * rethrown after all running actions are finished.
+     */
+    public <T> void forEach(String phase, Collection<T> items, Consumer<T> action) {
+        int concurrency = importConfigProperties.isParallel() ? importConfigProperties.getExecutor().getPhaseConcurrency() : 1;
+        forEach(phase, items, concurrency, action);
+    }
+
+    /**
+     * Applies the action to all items, up to {@code maxConcurrency} items at the same time regardless of
+     * {@code import.parallel}, e.g. for independent reads with a concurrency of their own.
+     */
+    public <T> void forEach(String phase, Collection<T> items, int maxConcurrency, Consumer<T> action) {
+        if (maxConcurrency < 2 || items.size() < 2) {
+            items.forEach(action);
+            return;
+        }
+
+        int concurrency = Math.min(maxConcurrency, items.size());
+        logger.debug("Import {} {} with concurrency {}", items.size(), phase, concurrency);
+
+        Batch<T> batch = new Batch<>(new ArrayList<>(items), action);
+        List<Worker> workers = new ArrayList<>(concurrency - 1);
+
+        for (int i = 1; i < concurrency; i++) {
+            Worker worker = new Worker(batch);
+            workers.add(worker);
+
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException ignored) {
+                // the worker is never started, the remaining workers and the calling thread take over its share
+                break;
+            }
+        }
+
+        batch.drain();
+
+        for (Worker worker : workers) {
+            worker.awaitOrCancel();
+        }
+
+        batch.failure.rethrow();
+    }
+
+    /**
+     * Runs all phases of the graph. If {@code import.parallel} is enabled, a phase starts as soon as all of its
+     * dependencies are finished, otherwise the phases run one after another in the order of declaration. After the
+     * first failure no further phases are started, the failure is rethrown after all running phases are finished.
+     */
+    public void run(String name, PhaseGraph graph) {
+        logger.debug("Import phases of {}: {}", name, graph);
+
+        if (!importConfigProperties.isParallel()) {
+            graph.getPhases().forEach(phase -> runPhase(name, phase));
+            return;
+        }
+
+        Failure failure = new Failure();
+        Map<String, PhaseTask> tasks = new LinkedHashMap<>();
+
+        for (Phase phase : graph.getPhases()) {
+            CompletableFuture<?>[] dependencies = phase.getDependencies().stream()
+                    .map(dependency -> tasks.get(dependency).done)
+                    .toArray(CompletableFuture[]::new);
+
+            PhaseTask task = new PhaseTask(name, phase, CompletableFuture.allOf(dependencies), failure);
+            task.dependencies.whenComplete((ignored, error) -> {
+                if (error != null) {
+                    task.skip();
+                } else {
+                    submit(task);
+                }
+            });
+
+            tasks.put(phase.getName(), task);
+        }
+
+        awaitPhases(tasks.values());
+        failure.rethrow();
+    }
+
+    /*
+     * The calling thread runs phases which are ready but not picked up by the pool yet, so the graph completes even
+     * if all threads of the pool are busy.
+     */
+    private static void awaitPhases(Collection<PhaseTask> tasks) {
+        while (true) {
+            List<PhaseTask> pending = new ArrayList<>();
+            for (PhaseTask task : tasks) {
+                if (!task.done.isDone()) {
+                    pending.add(task);
+                }
+            }
+
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            Optional<PhaseTask> ready = pending.stream().filter(PhaseTask::isReady).findFirst();
+            if (ready.isPresent()) {
+                ready.get().run();
+            } else {
+                CompletableFuture.anyOf(pending.stream().map(task -> task.done).toArray(CompletableFuture[]::new))
+                        .handle((result, error) -> null)
+                        .join();
+            }
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ignored) {
+            // the calling thread picks up the task
+        }
+    }
+
+    private static void runPhase(String name, Phase phase) {
+        long start = System.currentTimeMillis();
+        phase.getTask().run();
+        logger.debug("Import phase '{}' of {} finished in {} ms", phase.getName(), name, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static final class Batch<T> {
+        private final List<T> items;
+        private final Consumer<T> action;
+        private final AtomicInteger next = new AtomicInteger();
+        private final Failure failure = new Failure();
+
+        private Batch(List<T> items, Consumer<T> action) {
+            this.items = items;
+            this.action = action;
+        }
+
+        private void drain() {
+            int index;
+            while (!failure.hasFailed() && (index = next.getAndIncrement()) < items.size()) {
+                try {
+                    action.accept(items.get(index));
+                } catch (RuntimeException | Error error) {
+                    failure.fail(error);
+                }
+            }
+        }
+    }
+
+    private static final class Failure {
+        private Throwable failure;
+
+        private synchronized boolean hasFailed() {
+            return failure != null;
+        }
+
+        private synchronized void fail(Throwable error) {
+            if (failure == null) {
+                failure = error;
+            } else {
+                failure.addSuppressed(error);
+            }
+        }
+
+        private synchronized void rethrow() {
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+
+            if (failure != null) {
+                throw (RuntimeException) failure;
+            }
+        }
+    }
+
+    private static final class Worker implements Runnable {
+        private final Batch<?> batch;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Worker(Batch<?> batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                batch.drain();
+            } finally {
+                done.complete(null);
+            }
+        }
+
+        /*
+         * A worker which has not been started yet has nothing left to do, it's cancelled instead of waiting
+         * for a free thread of the pool.
+         */
+        private void awaitOrCancel() {
+            if (claimed.compareAndSet(false, true)) {
+                return;
+            }
+
+            done.join();
+        }
+    }
+
+    private static final class PhaseTask implements Runnable {
+        private final String name;
+        private final Phase phase;
+        private final CompletableFuture<Void> dependencies;
+        private final Failure failure;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private PhaseTask(String name, Phase phase, CompletableFuture<Void> dependencies, Failure failure) {
+            this.name = name;
+            this.phase = phase;
+            this.dependencies = dependencies;
+            this.failure = failure;
+        }
+
+        private boolean isReady() {
+            return dependencies.isDone() && !dependencies.isCompletedExceptionally() && !claimed.get();
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+
+            if (failure.hasFailed()) {
+                done.completeExceptionally(new CancellationException());
+                return;
+            }
+
+            try {
+                runPhase(name, phase);
+                done.complete(null);
+            } catch (RuntimeException | Error error) {
+                failure.fail(error);
+                done.completeExceptionally(error);
+            }
+        }
+
+        private void skip() {
+            if (claimed.compareAndSet(false, true)) {
+                done.completeExceptionally(new CancellationException());
+            }
+        }
+    }
+
+    /*
+     * Each thread gets an affinity lane of its own, so the requests of parallel imports are spread over the lanes. The
+     * calling thread stays on its lane.
+     */
+    private static final class ImportThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            int number = threadNumber.incrementAndGet();
+            Thread thread = new Thread(() -> {
+                AffinityLane.assign(number);
+                runnable.run();
+            }, "import-" + number);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.executor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Import phases and the phases each of them depends on.
+ * <p>
+ * A phase can only depend on phases added before it, so the graph is free of cycles and the order of declaration is
+ * a valid sequential order.
+ */
+public class PhaseGraph {
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+
+    public PhaseGraph add(String name, Runnable task, String... dependencies) {
+        if (phases.containsKey(name)) {
+            throw new IllegalArgumentException(String.format("Phase '%s' is already defined.", name));
+        }
+
+        for (String dependency : dependencies) {
+            if (!phases.containsKey(dependency)) {
+                throw new IllegalArgumentException(
+                        String.format("Phase '%s' depends on '%s', which must be defined before.", name, dependency)
+                );
+            }
+        }
+
+        phases.put(name, new Phase(name, task, Arrays.asList(dependencies)));
+        return this;
+    }
+
+    public List<Phase> getPhases() {
+        return new ArrayList<>(phases.values());
+    }
+
+    public Phase getPhase(String name) {
+        Phase phase = phases.get(name);
+
+        if (phase == null) {
+            throw new IllegalArgumentException(String.format("Phase '%s' is not defined.", name));
+        }
+
+        return phase;
+    }
+
+    @Override
+    public String toString() {
+        return phases.values().stream()
+                .map(Phase::toString)
+                .collect(Collectors.joining(", "));
+    }
+
+    public static final class Phase {
+        private final String name;
+        private final Runnable task;
+        private final List<String> dependencies;
+
+        private Phase(String name, Runnable task, List<String> dependencies) {
+            this.name = name;
+            this.task = task;
+            this.dependencies = Collections.unmodifiableList(dependencies);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Runnable getTask() {
+            return task;
+        }
+
+        public List<String> getDependencies() {
+            return dependencies;
+        }
+
+        @Override
+        public String toString() {
+            if (dependencies.isEmpty()) {
+                return name;
+            }
+
+            return name + " <- " + dependencies;
+        }
+    }
+}
@@ -21,6 +21,7 @@
 package de.adorsys.keycloak.config.service.state;
 
 import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.model.RealmImportContext;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.repository.StateRepository;
 import org.keycloak.common.util.MultivaluedHashMap;
@@ -49,41 +50,42 @@ public class StateService {
         this.importConfigProperties = importConfigProperties;
     }
 
-    public void loadState(RealmImport realmImport) {
-        stateRepository.loadCustomAttributes(realmImport.getRealm());
+    public void loadState(RealmImportContext context) {
+        stateRepository.loadCustomAttributes(context);
     }
 
     /**
      * Loads the realm states and preserves it into the realm representation object
      * to prevent state erasure during realm update
      *
+     * @param context     the import context which receives the states
      * @param realmImport the {@link RealmRepresentation} instance which will be synchronized with the Keycloak
      */
-    public void loadState(RealmRepresentation realmImport) {
-        stateRepository.loadCustomAttributes(realmImport);
+    public void loadState(RealmImportContext context, RealmRepresentation realmImport) {
+        stateRepository.loadCustomAttributes(context, realmImport);
     }
 
-    public void doImport(RealmImport realmImport) {
+    public void doImport(RealmImportContext context, RealmImport realmImport) {
         if (!importConfigProperties.getRemoteState().isEnabled()) {
             return;
         }
 
-        setRealmRoles(realmImport);
-        setClientRoles(realmImport);
-        setClients(realmImport);
-        setRequiredActions(realmImport);
-        setComponents(realmImport);
-        setClientAuthorizationResources(realmImport);
+        setRealmRoles(context, realmImport);
+        setClientRoles(context, realmImport);
+        setClients(context, realmImport);
+        setRequiredActions(context, realmImport);
+        setComponents(context, realmImport);
+        setClientAuthorizationResources(context, realmImport);
 
-        stateRepository.update(realmImport);
+        stateRepository.update(context);
         logger.debug("Updated states of realm '{}'", realmImport.getRealm());
     }
 
-    public List<String> getRealmRoles() {
-        return stateRepository.getState("roles-realm");
+    public List<String> getRealmRoles(RealmImportContext context) {
+        return stateRepository.getState(context, "roles-realm");
     }
 
-    private void setRealmRoles(RealmImport realmImport) {
+    private void setRealmRoles(RealmImportContext context, RealmImport realmImport) {
         RolesRepresentation roles = realmImport.getRoles();
         if (roles == null) return;
 
@@ -95,10 +97,10 @@ public class StateService {
                 .map(RoleRepresentation::getName)
                 .collect(Collectors.toList());
 
-        stateRepository.setState("roles-realm", state);
+        stateRepository.setState(context, "roles-realm", state);
     }
 
-    private void setClientRoles(RealmImport realmImport) {
+    private void setClientRoles(RealmImportContext context, RealmImport realmImport) {
         RolesRepresentation roles = realmImport.getRoles();
         if (roles == null) return;
 
@@ -111,11 +113,11 @@ public class StateService {
                     .map(RoleRepresentation::getName)
                     .collect(Collectors.toList());
 
-            stateRepository.setState("roles-client-" + client.getKey(), state);
+            stateRepository.setState(context, "roles-client-" + client.getKey(), state);
         }
     }
 
-    private void setClientAuthorizationResources(RealmImport realmImport) {
+    private void setClientAuthorizationResources(RealmImportContext context, RealmImport realmImport) {
         List<ClientRepresentation> clients = realmImport.getClients();
         if (clients == null) return;
 
@@ -129,19 +131,19 @@ public class StateService {
                     .map(ResourceRepresentation::getName)
                     .collect(Collectors.toList());
 
-            stateRepository.setState("resources-client-" + clientKey, resourceNames);
+            stateRepository.setState(context, "resources-client-" + clientKey, resourceNames);
         }
     }
 
-    public List<String> getClientRoles(String client) {
-        return stateRepository.getState("roles-client-" + client);
+    public List<String> getClientRoles(RealmImportContext context, String client) {
+        return stateRepository.getState(context, "roles-client-" + client);
     }
 
-    public List<String> getClientAuthorizationResources(String client) {
-        return stateRepository.getState("resources-client-" + client);
+    public List<String> getClientAuthorizationResources(RealmImportContext context, String client) {
+        return stateRepository.getState(context, "resources-client-" + client);
     }
 
-    private void setClients(RealmImport realmImport) {
+    private void setClients(RealmImportContext context, RealmImport realmImport) {
         List<ClientRepresentation> clients = realmImport.getClients();
         if (clients == null) return;
 
@@ -154,18 +156,18 @@ public class StateService {
             }
         }
 
-        stateRepository.setState("clients", state);
+        stateRepository.setState(context, "clients", state);
     }
 
-    public List<String> getRequiredActions() {
-        return stateRepository.getState("required-actions");
+    public List<String> getRequiredActions(RealmImportContext context) {
+        return stateRepository.getState(context, "required-actions");
     }
 
-    public List<String> getClients() {
-        return stateRepository.getState("clients");
+    public List<String> getClients(RealmImportContext context) {
+        return stateRepository.getState(context, "clients");
     }
 
-    private void setRequiredActions(RealmImport realmImport) {
+    private void setRequiredActions(RealmImportContext context, RealmImport realmImport) {
         List<RequiredActionProviderRepresentation> requiredActions = realmImport.getRequiredActions();
         if (requiredActions == null) return;
 
@@ -173,20 +175,24 @@ public class StateService {
                 .map(RequiredActionProviderRepresentation::getAlias)
                 .collect(Collectors.toList());
 
-        stateRepository.setState("required-actions", state);
+        stateRepository.setState(context, "required-actions", state);
     }
 
-    public List<ComponentRepresentation> getComponents(List<ComponentRepresentation> components, String parentComponentName) {
+    public List<ComponentRepresentation> getComponents(
+            RealmImportContext context,
+            List<ComponentRepresentation> components,
+            String parentComponentName
+    ) {
         List<String> componentsFromState = (parentComponentName != null)
-                ? stateRepository.getState("sub-components-" + parentComponentName)
-                : stateRepository.getState("components");
+                ? stateRepository.getState(context, "sub-components-" + parentComponentName)
+                : stateRepository.getState(context, "components");
 
         return components.stream()
                 .filter(component -> componentsFromState.contains(component.getName()))
                 .collect(Collectors.toList());
     }
 
-    private void setComponents(RealmImport realmImport) {
+    private void setComponents(RealmImportContext context, RealmImport realmImport) {
         MultivaluedHashMap<String, ComponentExportRepresentation> components = realmImport.getComponents();
         if (components == null) return;
 
@@ -197,14 +203,14 @@ public class StateService {
                 String componentName = component.getName();
                 state.add(componentName);
 
-                setSubComponents(component);
+                setSubComponents(context, component);
             }
         }
 
-        stateRepository.setState("components", state);
+        stateRepository.setState(context, "components", state);
     }
 
-    private void setSubComponents(ComponentExportRepresentation component) {
+    private void setSubComponents(RealmImportContext context, ComponentExportRepresentation component) {
         MultivaluedHashMap<String, ComponentExportRepresentation> subComponents = component.getSubComponents();
         if (subComponents.isEmpty()) {
             return;
@@ -219,6 +225,6 @@ public class StateService {
             state.addAll(nameOfSubComponents);
         }
 
-        stateRepository.setState("sub-components-" + component.getName(), state);
+        stateRepository.setState(context, "sub-components-" + component.getName(), state);
     }
 }
@@ -29,7 +29,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.Objects;
+import java.util.HashSet;
 
 public class CloneUtil {
     private static final Logger logger = LoggerFactory.getLogger(CloneUtil.class);
@@ -37,6 +37,12 @@ public class CloneUtil {
     private static final ObjectMapper nonNullMapper;
     private static final ObjectMapper nonFailingMapper;
 
+    // compares like the trees of the nonNullMapper, without writing them
+    private static final StructuralComparator structuralComparator;
+
+    // patches like an updating reader on clones of origin and patch, without cloning them
+    private static final StructuralPatcher structuralPatcher;
+
     static {
         nonNullMapper = new ObjectMapper();
         nonNullMapper.setSerializationInclusion(Include.NON_NULL);
@@ -44,6 +50,9 @@ public class CloneUtil {
 
         nonFailingMapper = new ObjectMapper();
         nonFailingMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        structuralComparator = new StructuralComparator(nonNullMapper);
+        structuralPatcher = new StructuralPatcher(nonNullMapper, nonFailingMapper);
     }
 
     CloneUtil() {
@@ -78,6 +87,10 @@ public class CloneUtil {
         if (origin == null) return null;
         if (patch == null) return origin;
 
+        if (structuralPatcher.canPatch(origin.getClass(), patch.getClass())) {
+            return structuralPatcher.patch(origin, patch, ignoredProperties);
+        }
+
         S clonedOrigin = CloneUtil.deepClone(origin);
         T clonedPatch = CloneUtil.deepClone(patch, ignoredProperties);
 
@@ -95,16 +108,13 @@ public class CloneUtil {
         if (origin == null && other == null) return true;
         if (origin == null || other == null) return false;
 
-        JsonNode originJsonNode = nonNullMapper.valueToTree(origin);
-        JsonNode otherJsonNode = nonNullMapper.valueToTree(other);
-
-        removeIgnoredProperties(originJsonNode, ignoredProperties);
-        removeIgnoredProperties(otherJsonNode, ignoredProperties);
+        boolean ret = structuralComparator.objectEquals(origin, other, new HashSet<>(Arrays.asList(ignoredProperties)));
 
-        boolean ret = Objects.equals(originJsonNode, otherJsonNode);
-        logger.trace("objects.deepEquals: ret: {} | origin: {} | other: {} | ignoredProperties: {}",
-                ret, originJsonNode, otherJsonNode, ignoredProperties
-        );
+        if (logger.isTraceEnabled()) {
+            logger.trace("objects.deepEquals: ret: {} | origin: {} | other: {} | ignoredProperties: {}",
+                    ret, nonNullMapper.valueToTree(origin), nonNullMapper.valueToTree(other), ignoredProperties
+            );
+        }
 
         return ret;
     }
@@ -20,25 +20,62 @@
 
 package de.adorsys.keycloak.config.util;
 
+import de.adorsys.keycloak.config.exception.KeycloakProviderException;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.ConnectionPool;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.HttpEngine;
+import de.adorsys.keycloak.config.util.resteasy.ClientHttpEngineInterceptor;
+import de.adorsys.keycloak.config.util.resteasy.ConnectionPoolStatistics;
 import de.adorsys.keycloak.config.util.resteasy.CookieClientFilter;
+import de.adorsys.keycloak.config.util.resteasy.InstrumentedClientHttpEngineBuilder;
+import de.adorsys.keycloak.config.util.resteasy.InterceptingClientHttpEngine;
+import de.adorsys.keycloak.config.util.resteasy.JdkHttpClientEngine;
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
 import org.jboss.resteasy.client.jaxrs.ResteasyClient;
 import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
 import org.jboss.resteasy.client.jaxrs.internal.ResteasyClientBuilderImpl;
 
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.Socket;
 import java.net.URL;
+import java.net.http.HttpClient;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509ExtendedTrustManager;
 
 public class ResteasyUtil {
     ResteasyUtil() {
         throw new IllegalStateException("Utility class");
     }
 
-    public static ResteasyClient getClient(boolean sslVerification, URL httpProxy, Duration connectTimeout, Duration readTimeout) {
+    @SuppressWarnings({"java:S107"})
+    public static ResteasyClient getClient(
+            boolean sslVerification,
+            URL httpProxy,
+            Duration connectTimeout,
+            Duration readTimeout,
+            HttpEngine httpEngine,
+            int affinityLanes,
+            ConnectionPool connectionPool,
+            ConnectionPoolStatistics connectionPoolStatistics,
+            List<ClientHttpEngineInterceptor> interceptors
+    ) {
         ResteasyClientBuilder clientBuilder = new ResteasyClientBuilderImpl();
         clientBuilder
-                .connectionPoolSize(10)
+                .connectionPoolSize(connectionPool.getSize())
+                .maxPooledPerRoute(connectionPool.getMaxPerRoute())
+                .connectionTTL(connectionPool.getTtl().toMillis(), TimeUnit.MILLISECONDS)
                 .connectTimeout(connectTimeout.get(ChronoUnit.NANOS), TimeUnit.NANOSECONDS)
                 .readTimeout(readTimeout.get(ChronoUnit.NANOS), TimeUnit.NANOSECONDS);
 
@@ -61,8 +98,119 @@ public class ResteasyUtil {
             );
         }
 
-        clientBuilder.register(new CookieClientFilter());
+        clientBuilder.register(new CookieClientFilter(affinityLanes));
+        clientBuilder.executorService(getAsyncExecutor(connectionPool.getSize()), true);
+
+        ClientHttpEngine engine;
+        if (httpEngine == HttpEngine.JDK) {
+            engine = new JdkHttpClientEngine(
+                    getJdkHttpClient(sslVerification, httpProxy, connectTimeout),
+                    readTimeout,
+                    sslVerification ? (hostname, session) -> true : null
+            );
+        } else {
+            // the engine is built last, it takes over all settings of the client builder
+            engine = new InstrumentedClientHttpEngineBuilder(connectionPoolStatistics, connectionPool.getIdleTimeout())
+                    .resteasyClientBuilder(clientBuilder)
+                    .build();
+        }
+
+        // the first interceptor is the outermost one
+        for (int i = interceptors.size() - 1; i >= 0; i--) {
+            engine = InterceptingClientHttpEngine.wrap(engine, interceptors.get(i));
+        }
+
+        clientBuilder.httpEngine(engine);
 
         return clientBuilder.build();
     }
+
+    // Asynchronous requests block a thread each until the response arrived. More threads than connections would only
+    // wait for a free connection.
+    private static ExecutorService getAsyncExecutor(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "http-async-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static HttpClient getJdkHttpClient(boolean sslVerification, URL httpProxy, Duration connectTimeout) {
+        HttpClient.Builder httpClientBuilder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(connectTimeout);
+
+        if (sslVerification) {
+            httpClientBuilder.sslContext(getTrustAllSslContext());
+        }
+
+        if (httpProxy != null) {
+            httpClientBuilder.proxy(ProxySelector.of(new InetSocketAddress(httpProxy.getHost(), httpProxy.getPort())));
+        } else if (System.getProperty("http.proxyHost") != null) {
+            httpClientBuilder.proxy(ProxySelector.of(new InetSocketAddress(
+                    System.getProperty("http.proxyHost"),
+                    Integer.parseInt(System.getProperty("http.proxyPort", "80"))
+            )));
+        }
+
+        return httpClientBuilder.build();
+    }
+
+    private static SSLContext getTrustAllSslContext() {
+        try {
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, new TrustManager[]{new TrustAllTrustManager()}, null);
+            return sslContext;
+        } catch (GeneralSecurityException e) {
+            throw new KeycloakProviderException(e);
+        }
+    }
+
+    // An extended trust manager is used as is by the JDK, including the hostname verification. A plain X509TrustManager
+    // would be wrapped and the hostname would still be verified.
+    private static class TrustAllTrustManager extends X509ExtendedTrustManager {
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) {
+            // trust all
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+            // trust all
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+            // trust all
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) {
+            // trust all
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+            // trust all
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+            // trust all
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+    }
 }
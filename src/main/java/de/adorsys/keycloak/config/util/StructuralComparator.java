@@ -0,0 +1,372 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.databind.AnnotationIntrospector;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializer;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compares objects like the JSON trees written by the given mapper would compare, without writing the trees.
+ * <p>
+ * Beans are walked with the property writers of their Jackson serializer, so property names, ignored properties and
+ * the inclusion of null values are the same as in the trees. Null values of maps are absent like in the trees of a
+ * mapper with {@code NON_NULL} inclusion. Values the walker can't reproduce exactly, e.g. beans with custom
+ * serializers, type information or any-getters, are compared as trees.
+ */
+final class StructuralComparator {
+    private static final BeanProperties UNSUPPORTED = new BeanProperties(Collections.emptyList());
+
+    private final ObjectMapper mapper;
+    private final Map<Class<?>, BeanProperties> beanProperties = new ConcurrentHashMap<>();
+
+    StructuralComparator(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Compares two objects written as JSON objects, ignoring the given top-level properties.
+     */
+    boolean objectEquals(Object origin, Object other, Set<String> ignoredProperties) {
+        if (origin instanceof Map && other instanceof Map) {
+            return mapEquals((Map<?, ?>) origin, (Map<?, ?>) other, ignoredProperties);
+        }
+
+        BeanProperties originProperties = getBeanProperties(origin.getClass());
+        BeanProperties otherProperties = getBeanProperties(other.getClass());
+
+        if (originProperties == UNSUPPORTED || otherProperties == UNSUPPORTED) {
+            return treeEquals(origin, other, ignoredProperties);
+        }
+
+        return beanEquals(origin, originProperties, other, otherProperties, ignoredProperties);
+    }
+
+    private boolean valueEquals(Object origin, Object other) {
+        if (origin == other) return true;
+        if (origin == null || other == null) return false;
+
+        if (isScalarType(origin.getClass()) && isScalarType(other.getClass())) {
+            // equal scalars are written equally, unequal numbers and enums may still be written equally
+            if (origin.getClass() == other.getClass() && (origin.equals(other) || !(origin instanceof Number || origin instanceof Enum))) {
+                return origin.equals(other);
+            }
+
+            return treeEquals(origin, other);
+        }
+
+        if (origin instanceof Map && other instanceof Map) {
+            return mapEquals((Map<?, ?>) origin, (Map<?, ?>) other, Collections.emptySet());
+        }
+
+        if (isSequence(origin) && isSequence(other)) {
+            return sequenceEquals(origin, other);
+        }
+
+        BeanProperties originProperties = getBeanProperties(origin.getClass());
+        BeanProperties otherProperties = getBeanProperties(other.getClass());
+
+        if (originProperties == UNSUPPORTED || otherProperties == UNSUPPORTED) {
+            return treeEquals(origin, other);
+        }
+
+        return beanEquals(origin, originProperties, other, otherProperties, Collections.emptySet());
+    }
+
+    private boolean beanEquals(
+            Object origin, BeanProperties originProperties,
+            Object other, BeanProperties otherProperties,
+            Set<String> ignoredProperties
+    ) {
+        for (BeanProperty originProperty : originProperties.properties) {
+            if (ignoredProperties.contains(originProperty.name)) continue;
+
+            BeanProperty otherProperty = originProperties == otherProperties ? originProperty : otherProperties.get(originProperty.name);
+
+            Object originValue = originProperty.get(origin);
+            Object otherValue = otherProperty == null ? null : otherProperty.get(other);
+
+            boolean originPresent = originProperty.isPresent(originValue);
+            boolean otherPresent = otherProperty != null && otherProperty.isPresent(otherValue);
+
+            if (originPresent != otherPresent) return false;
+            if (originPresent && !valueEquals(originValue, otherValue)) return false;
+        }
+
+        if (originProperties == otherProperties) return true;
+
+        for (BeanProperty otherProperty : otherProperties.properties) {
+            if (ignoredProperties.contains(otherProperty.name) || originProperties.get(otherProperty.name) != null) continue;
+            if (otherProperty.isPresent(otherProperty.get(other))) return false;
+        }
+
+        return true;
+    }
+
+    private boolean mapEquals(Map<?, ?> origin, Map<?, ?> other, Set<String> ignoredProperties) {
+        // keys of other types are written by key serializers
+        if (!hasStringKeys(origin) || !hasStringKeys(other)) {
+            return treeEquals(origin, other, ignoredProperties);
+        }
+
+        int originEntries = 0;
+        for (Map.Entry<?, ?> entry : origin.entrySet()) {
+            if (entry.getValue() == null || ignoredProperties.contains(entry.getKey())) continue;
+
+            originEntries++;
+            if (!valueEquals(entry.getValue(), other.get(entry.getKey()))) return false;
+        }
+
+        int otherEntries = 0;
+        for (Map.Entry<?, ?> entry : other.entrySet()) {
+            if (entry.getValue() == null || ignoredProperties.contains(entry.getKey())) continue;
+
+            otherEntries++;
+        }
+
+        return originEntries == otherEntries;
+    }
+
+    private boolean sequenceEquals(Object origin, Object other) {
+        Iterator<?> originElements = elements(origin);
+        Iterator<?> otherElements = elements(other);
+
+        while (originElements.hasNext() && otherElements.hasNext()) {
+            if (!valueEquals(originElements.next(), otherElements.next())) return false;
+        }
+
+        return !originElements.hasNext() && !otherElements.hasNext();
+    }
+
+    private boolean treeEquals(Object origin, Object other) {
+        return Objects.equals(mapper.valueToTree(origin), mapper.valueToTree(other));
+    }
+
+    private boolean treeEquals(Object origin, Object other, Set<String> ignoredProperties) {
+        JsonNode originNode = mapper.valueToTree(origin);
+        JsonNode otherNode = mapper.valueToTree(other);
+
+        ((ObjectNode) originNode).remove(ignoredProperties);
+        ((ObjectNode) otherNode).remove(ignoredProperties);
+
+        return Objects.equals(originNode, otherNode);
+    }
+
+    private BeanProperties getBeanProperties(Class<?> type) {
+        return beanProperties.computeIfAbsent(type, this::introspect);
+    }
+
+    private BeanProperties introspect(Class<?> type) {
+        JsonSerializer<Object> serializer;
+        try {
+            serializer = mapper.getSerializerProviderInstance().findTypedValueSerializer(type, true, null);
+        } catch (JsonMappingException e) {
+            // the tree fails the same way
+            return UNSUPPORTED;
+        }
+
+        if (serializer.getClass() != BeanSerializer.class || serializer.usesObjectId()) {
+            return UNSUPPORTED;
+        }
+
+        SerializationConfig config = mapper.getSerializationConfig();
+        AnnotationIntrospector introspector = config.getAnnotationIntrospector();
+        BeanDescription description = config.introspect(config.constructType(type));
+
+        if (
+                description.findAnyGetter() != null
+                        || introspector.findFilterId(description.getClassInfo()) != null
+                        || !description.findPropertyInclusion(JsonInclude.Value.empty()).equals(JsonInclude.Value.empty())
+        ) {
+            return UNSUPPORTED;
+        }
+
+        Map<String, JsonInclude.Value> inclusions = new HashMap<>();
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            if (property.couldSerialize()) {
+                inclusions.put(property.getName(), property.findInclusion());
+            }
+        }
+
+        List<BeanProperty> properties = new ArrayList<>();
+        for (Iterator<PropertyWriter> writers = serializer.properties(); writers.hasNext(); ) {
+            PropertyWriter writer = writers.next();
+
+            if (writer.getClass() != BeanPropertyWriter.class) {
+                return UNSUPPORTED;
+            }
+
+            BeanPropertyWriter propertyWriter = (BeanPropertyWriter) writer;
+            if (
+                    propertyWriter.getTypeSerializer() != null
+                            || propertyWriter.hasNullSerializer()
+                            || propertyWriter.getSerializationType() != null
+                            || hasCustomSerialization(introspector, propertyWriter.getMember())
+            ) {
+                return UNSUPPORTED;
+            }
+
+            JsonInclude.Value inclusion = inclusions.getOrDefault(propertyWriter.getName(), JsonInclude.Value.empty());
+            if (inclusion.equals(JsonInclude.Value.empty())) {
+                properties.add(new BeanProperty(propertyWriter, false));
+                continue;
+            }
+
+            // the inclusion of a property also applies to the null values of maps, only values without content are walked
+            Class<?> propertyType = propertyWriter.getType().getRawClass();
+            boolean emptiable = String.class == propertyType || Collection.class.isAssignableFrom(propertyType) || propertyType.isArray();
+            boolean scalar = propertyType.isPrimitive() || isScalarType(propertyType);
+
+            switch (inclusion.getValueInclusion()) {
+                case NON_EMPTY:
+                    if (!emptiable) return UNSUPPORTED;
+                    properties.add(new BeanProperty(propertyWriter, true));
+                    break;
+                case USE_DEFAULTS:
+                case NON_NULL:
+                case ALWAYS:
+                    if (!emptiable && !scalar) return UNSUPPORTED;
+                    properties.add(new BeanProperty(propertyWriter, false));
+                    break;
+                default:
+                    return UNSUPPORTED;
+            }
+        }
+
+        return new BeanProperties(properties);
+    }
+
+    private static boolean hasCustomSerialization(AnnotationIntrospector introspector, AnnotatedMember member) {
+        if (member.hasAnnotation(JsonRawValue.class)) return true;
+        if (introspector.findSerializer(member) != null) return true;
+        if (introspector.findContentSerializer(member) != null) return true;
+        if (introspector.findKeySerializer(member) != null) return true;
+        if (introspector.findSerializationConverter(member) != null) return true;
+
+        JsonFormat.Value format = introspector.findFormat(member);
+        return format != null && !format.equals(JsonFormat.Value.empty());
+    }
+
+    private static boolean isScalarType(Class<?> type) {
+        return String.class == type || Number.class.isAssignableFrom(type) || Boolean.class == type
+                || Character.class == type || Enum.class.isAssignableFrom(type);
+    }
+
+    private static boolean isSequence(Object value) {
+        return value instanceof Collection || value instanceof Object[];
+    }
+
+    private static Iterator<?> elements(Object sequence) {
+        if (sequence instanceof Collection) {
+            return ((Collection<?>) sequence).iterator();
+        }
+
+        int length = Array.getLength(sequence);
+        List<Object> elements = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            elements.add(Array.get(sequence, i));
+        }
+        return elements.iterator();
+    }
+
+    private static boolean hasStringKeys(Map<?, ?> map) {
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) return false;
+        }
+
+        return true;
+    }
+
+    private static final class BeanProperties {
+        private final List<BeanProperty> properties;
+        private final Map<String, BeanProperty> propertiesByName = new HashMap<>();
+
+        private BeanProperties(List<BeanProperty> properties) {
+            this.properties = properties;
+            properties.forEach(property -> propertiesByName.put(property.name, property));
+        }
+
+        private BeanProperty get(String name) {
+            return propertiesByName.get(name);
+        }
+    }
+
+    private static final class BeanProperty {
+        private final String name;
+        private final BeanPropertyWriter writer;
+        private final boolean suppressNulls;
+        private final boolean suppressEmpty;
+
+        private BeanProperty(BeanPropertyWriter writer, boolean suppressEmpty) {
+            this.name = writer.getName();
+            this.writer = writer;
+            this.suppressNulls = writer.willSuppressNulls();
+            this.suppressEmpty = suppressEmpty;
+        }
+
+        private Object get(Object bean) {
+            try {
+                return writer.get(bean);
+            } catch (Exception e) {
+                throw new ImportProcessingException(e);
+            }
+        }
+
+        private boolean isPresent(Object value) {
+            if (value == null) return !suppressNulls;
+
+            return !suppressEmpty || !isEmpty(value);
+        }
+
+        private static boolean isEmpty(Object value) {
+            if (value instanceof String) return ((String) value).isEmpty();
+            if (value instanceof Collection) return ((Collection<?>) value).isEmpty();
+
+            return Array.getLength(value) == 0;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.BeanDeserializer;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
+import com.fasterxml.jackson.databind.deser.SettableBeanProperty;
+import com.fasterxml.jackson.databind.deser.ValueInstantiator;
+import com.fasterxml.jackson.databind.deser.impl.FieldProperty;
+import com.fasterxml.jackson.databind.deser.impl.MethodProperty;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ser.BeanSerializer;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Patches an object with the non-null properties of another object in one pass: the properties of the patch replace
+ * the ones of the origin in the JSON tree of the origin, which is read into a new object once.
+ * <p>
+ * This is the same as reading the patch into a clone of the origin with an updating reader, as long as the origin is a
+ * plain bean: created by its default constructor, read by setters or fields and without mergeable properties. A patch
+ * of another type has to be a plain bean, too, and has to read each property the origin reads with the same type, so
+ * the clone of the patch doesn't lose any of them. The decision is cached per pair of types.
+ */
+final class StructuralPatcher {
+    private static final Map<String, JavaType> NOT_PLAIN = Map.of();
+
+    private final ObjectMapper writer;
+    private final ObjectMapper reader;
+
+    private final Map<Class<?>, Map<String, JavaType>> readProperties = new ConcurrentHashMap<>();
+    private final Map<Map.Entry<Class<?>, Class<?>>, Boolean> patchable = new ConcurrentHashMap<>();
+
+    StructuralPatcher(ObjectMapper writer, ObjectMapper reader) {
+        this.writer = writer;
+        this.reader = reader;
+    }
+
+    boolean canPatch(Class<?> originType, Class<?> patchType) {
+        return patchable.computeIfAbsent(new SimpleImmutableEntry<>(originType, patchType), types -> introspect(originType, patchType));
+    }
+
+    @SuppressWarnings("unchecked")
+    <S> S patch(S origin, Object patch, String... ignoredProperties) {
+        ObjectNode originNode = writer.valueToTree(origin);
+        ObjectNode patchNode = writer.valueToTree(patch);
+
+        patchNode.remove(Arrays.asList(ignoredProperties));
+        originNode.setAll(patchNode);
+
+        try {
+            return (S) reader.treeToValue(originNode, origin.getClass());
+        } catch (JsonProcessingException e) {
+            throw new ImportProcessingException(e);
+        }
+    }
+
+    private boolean introspect(Class<?> originType, Class<?> patchType) {
+        Map<String, JavaType> originProperties = getReadProperties(originType);
+        if (originProperties == NOT_PLAIN) return false;
+        if (originType == patchType) return true;
+
+        Map<String, JavaType> patchProperties = getReadProperties(patchType);
+        if (patchProperties == NOT_PLAIN) return false;
+
+        JsonSerializer<Object> serializer;
+        try {
+            serializer = writer.getSerializerProviderInstance().findTypedValueSerializer(patchType, true, null);
+        } catch (JsonMappingException e) {
+            return false;
+        }
+
+        if (serializer.getClass() != BeanSerializer.class) return false;
+
+        for (Iterator<PropertyWriter> writers = serializer.properties(); writers.hasNext(); ) {
+            String name = writers.next().getName();
+            JavaType originPropertyType = originProperties.get(name);
+
+            if (originPropertyType != null && !originPropertyType.equals(patchProperties.get(name))) return false;
+        }
+
+        return true;
+    }
+
+    private Map<String, JavaType> getReadProperties(Class<?> type) {
+        return readProperties.computeIfAbsent(type, this::findReadProperties);
+    }
+
+    private Map<String, JavaType> findReadProperties(Class<?> type) {
+        DeserializationConfig config = reader.getDeserializationConfig();
+
+        JsonDeserializer<Object> deserializer;
+        try {
+            deserializer = ((DefaultDeserializationContext) reader.getDeserializationContext())
+                    .createInstance(config, null, null)
+                    .findRootValueDeserializer(config.constructType(type));
+        } catch (JsonMappingException e) {
+            return NOT_PLAIN;
+        }
+
+        if (deserializer.getClass() != BeanDeserializer.class) return NOT_PLAIN;
+
+        BeanDeserializer beanDeserializer = (BeanDeserializer) deserializer;
+        ValueInstantiator instantiator = beanDeserializer.getValueInstantiator();
+
+        if (
+                !instantiator.canCreateUsingDefault()
+                        || instantiator.canCreateFromObjectWith()
+                        || beanDeserializer.getObjectIdReader() != null
+        ) {
+            return NOT_PLAIN;
+        }
+
+        Map<String, JavaType> properties = new HashMap<>();
+        for (Iterator<SettableBeanProperty> it = beanDeserializer.properties(); it.hasNext(); ) {
+            SettableBeanProperty property = it.next();
+
+            // setterless collections are added to and mergeable properties are merged by an updating reader
+            boolean plain = property.getClass() == MethodProperty.class || property.getClass() == FieldProperty.class;
+            if (!plain || property.getMetadata().getMergeInfo() != null) return NOT_PLAIN;
+
+            properties.put(property.getName(), property.getType());
+        }
+
+        return properties;
+    }
+}
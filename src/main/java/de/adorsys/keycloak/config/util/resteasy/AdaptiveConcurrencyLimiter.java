@@ -0,0 +1,268 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.internal.ClientInvocation;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+/**
+ * Limits the number of admin requests in flight with an additive increase, multiplicative decrease (AIMD) scheme.
+ * <p>
+ * The limit grows by one per window of successful requests while their latency stays close to the baseline of the same
+ * kind of request. It's multiplied by {@value #LATENCY_BACKOFF} on latency growth, timeouts or broken connections and
+ * halved on {@code 429 Too Many Requests} or {@code 503 Service Unavailable}. A {@code Retry-After} of such a
+ * response holds back all new requests until it has passed.
+ * <p>
+ * Only admin requests are limited. Other requests, like the ones to the token endpoint, are passed through, a pending
+ * token must never wait behind the admin requests needing it. The slot of a request is released as soon as the
+ * response headers arrived, the response body is read outside.
+ */
+public class AdaptiveConcurrencyLimiter implements ClientHttpEngineInterceptor {
+    static final double LATENCY_BACKOFF = 0.9;
+    static final double OVERLOAD_BACKOFF = 0.5;
+
+    private static final double BASELINE_SMOOTHING = 0.05;
+    // latency growth below this is noise, even if it's a multiple of the baseline of fast requests
+    private static final long MIN_LATENCY_GROWTH_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    // the limit is reduced at most once per interval, the responses to requests sent before are still on their way
+    private static final long DECREASE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_RETRY_AFTER_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final Map<String, Double> baselines = new HashMap<>();
+
+    private double limit;
+    private int inFlight;
+    private long pausedUntilMillis;
+    private long lastDecreaseNanos;
+
+    private double peakLimit;
+    private long requests;
+    private long throttledRequests;
+    private long throttledNanos;
+    private long decreases;
+    private long pauses;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double latencyTolerance) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException(String.format("Invalid concurrency limits %d..%d", minLimit, maxLimit));
+        }
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.peakLimit = this.limit;
+        this.lastDecreaseNanos = System.nanoTime() - DECREASE_INTERVAL_NANOS;
+    }
+
+    /**
+     * Key of the latency baseline of a request, or {@code null} if the request is no admin request and not limited.
+     * Requests with the same method, resource type and path length are expected to have a similar latency, e.g.
+     * {@code GET /admin/realms/{realm}/users/{id}/groups} for all users of all realms.
+     */
+    public static String latencyKey(String method, URI uri) {
+        String[] segments = uri.getPath().split("/");
+
+        int realms = -1;
+        for (int i = 0; i + 1 < segments.length; i++) {
+            if ("admin".equals(segments[i]) && "realms".equals(segments[i + 1])) {
+                realms = i + 1;
+                break;
+            }
+        }
+
+        if (realms < 0) {
+            return null;
+        }
+
+        String resource = realms + 2 < segments.length ? segments[realms + 2] : "";
+        return method + " " + resource + "/" + (segments.length - realms);
+    }
+
+    @Override
+    public Response invoke(Invocation invocation, ClientHttpEngine engine) {
+        ClientInvocation request = (ClientInvocation) invocation;
+        String latencyKey = latencyKey(request.getMethod(), request.getUri());
+        if (latencyKey == null) {
+            return engine.invoke(invocation);
+        }
+
+        try {
+            acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Interrupted while waiting to send " + request.getMethod() + " " + request.getUri(), e);
+        }
+
+        long start = System.nanoTime();
+        int status = -1;
+        long retryAfterMillis = 0;
+        try {
+            Response response = engine.invoke(invocation);
+            status = response.getStatus();
+            retryAfterMillis = RetryAfter.toMillis(response.getHeaderString(HttpHeaders.RETRY_AFTER));
+            return response;
+        } finally {
+            release(latencyKey, System.nanoTime() - start, status, retryAfterMillis);
+        }
+    }
+
+    /**
+     * Waits until the request can be sent without exceeding the limit and no {@code Retry-After} is pending.
+     */
+    public synchronized void acquire() throws InterruptedException {
+        long start = System.nanoTime();
+        boolean throttled = false;
+
+        while (true) {
+            long pause = pausedUntilMillis - System.currentTimeMillis();
+            if (pause > 0) {
+                throttled = true;
+                wait(pause);
+            } else if (inFlight >= (int) limit) {
+                throttled = true;
+                wait();
+            } else {
+                break;
+            }
+        }
+
+        inFlight++;
+        requests++;
+        if (throttled) {
+            throttledRequests++;
+            throttledNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Releases the slot of a request and adapts the limit to its outcome.
+     *
+     * @param status           HTTP status of the response, {@code -1} if the request failed without response
+     * @param retryAfterMillis time to hold back new requests as requested by the server, {@code 0} if none
+     */
+    public synchronized void release(String latencyKey, long latencyNanos, int status, long retryAfterMillis) {
+        boolean limitUsed = inFlight * 2 >= (int) limit;
+        inFlight--;
+
+        if (status == 429 || status == 503) {
+            decrease(OVERLOAD_BACKOFF);
+            pause(retryAfterMillis);
+        } else if (status < 0) {
+            decrease(LATENCY_BACKOFF);
+        } else if (isLatencyGrowing(latencyKey, latencyNanos)) {
+            decrease(LATENCY_BACKOFF);
+        } else if (limitUsed) {
+            // grows by one if all requests of a full window are fine
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+            peakLimit = Math.max(peakLimit, limit);
+        }
+
+        notifyAll();
+    }
+
+    private boolean isLatencyGrowing(String latencyKey, long latencyNanos) {
+        Double baseline = baselines.get(latencyKey);
+        if (baseline == null) {
+            baselines.put(latencyKey, (double) latencyNanos);
+            return false;
+        }
+
+        baselines.put(latencyKey, baseline + (latencyNanos - baseline) * BASELINE_SMOOTHING);
+        return latencyNanos > baseline * latencyTolerance && latencyNanos - baseline > MIN_LATENCY_GROWTH_NANOS;
+    }
+
+    private void decrease(double backoff) {
+        long now = System.nanoTime();
+        if (now - lastDecreaseNanos < DECREASE_INTERVAL_NANOS) {
+            return;
+        }
+
+        lastDecreaseNanos = now;
+        limit = Math.max(minLimit, limit * backoff);
+        decreases++;
+    }
+
+    private void pause(long retryAfterMillis) {
+        if (retryAfterMillis <= 0) {
+            return;
+        }
+
+        long until = System.currentTimeMillis() + Math.min(retryAfterMillis, MAX_RETRY_AFTER_MILLIS);
+        if (until > pausedUntilMillis) {
+            pausedUntilMillis = until;
+            pauses++;
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getPeakLimit() {
+        return (int) peakLimit;
+    }
+
+    public synchronized long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Number of requests which had to wait for a free slot or a {@code Retry-After} to pass.
+     */
+    public synchronized long getThrottledRequests() {
+        return throttledRequests;
+    }
+
+    public synchronized long getDecreases() {
+        return decreases;
+    }
+
+    public synchronized long getPauses() {
+        return pauses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+                "%d requests, %d throttled for %d ms in total, limit %d at the end and %d at peak, %d decreases, %d pauses by Retry-After",
+                requests,
+                throttledRequests,
+                TimeUnit.NANOSECONDS.toMillis(throttledNanos),
+                (int) limit,
+                (int) peakLimit,
+                decreases,
+                pauses
+        );
+    }
+}
@@ -0,0 +1,49 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+/**
+ * The affinity lane of the current thread. Requests of threads on different lanes carry different session cookies, so a
+ * sticky load balancer may route them to different Keycloak nodes, while the requests of one lane stay on one node.
+ * <p>
+ * Lanes are numbered by the thread pools which run the import. The {@link CookieClientFilter} maps them to the number
+ * of configured lanes, threads without a lane use lane 0.
+ */
+public final class AffinityLane {
+    /**
+     * Request property with the lane of a request which is sent by another thread than the one it belongs to.
+     */
+    public static final String PROPERTY = AffinityLane.class.getName();
+
+    private static final ThreadLocal<Integer> LANE = ThreadLocal.withInitial(() -> 0);
+
+    private AffinityLane() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static int current() {
+        return LANE.get();
+    }
+
+    public static void assign(int lane) {
+        LANE.set(lane);
+    }
+}
@@ -0,0 +1,37 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.Response;
+
+/**
+ * Hooks into the sending of a request after all client filters are applied. Unlike a filter, an interceptor sees
+ * failed requests as well and may send a request several times.
+ */
+public interface ClientHttpEngineInterceptor {
+    /**
+     * Sends the request with the given engine, which may be intercepted by further interceptors.
+     */
+    Response invoke(Invocation invocation, ClientHttpEngine engine);
+}
@@ -0,0 +1,167 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.commons.io.output.ProxyOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+// Neither the Apache engine, which is built with content compression disabled, nor the JDK engine decode compressed
+// responses. This filter works on the JAX-RS level, so it behaves the same for both engines.
+public class CompressionClientFilter implements ClientRequestFilter, ClientResponseFilter, WriterInterceptor {
+    private static final String GZIP = "gzip";
+    private static final String DEFLATE = "deflate";
+
+    private final boolean acceptCompressedResponses;
+    private final long requestCompressionThreshold;
+    private final TransferStatistics statistics;
+
+    /**
+     * @param requestCompressionThreshold request bodies of at least this size are sent gzip encoded, a negative value
+     *                                    disables compression of request bodies
+     */
+    public CompressionClientFilter(boolean acceptCompressedResponses, long requestCompressionThreshold, TransferStatistics statistics) {
+        this.acceptCompressedResponses = acceptCompressedResponses;
+        this.requestCompressionThreshold = requestCompressionThreshold;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        if (acceptCompressedResponses && !requestContext.getHeaders().containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+            requestContext.getHeaders().putSingle(HttpHeaders.ACCEPT_ENCODING, GZIP + ", " + DEFLATE);
+        }
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) throws IOException {
+        InputStream entityStream = responseContext.getEntityStream();
+        if (entityStream == null) {
+            statistics.responseReceived(false);
+            return;
+        }
+
+        String encoding = responseContext.getHeaderString(HttpHeaders.CONTENT_ENCODING);
+        encoding = encoding == null ? "" : encoding.trim().toLowerCase(Locale.ROOT);
+
+        InputStream wire = count(entityStream, statistics.getResponseWireByteCounter());
+
+        if (!encoding.equals(GZIP) && !encoding.equals(DEFLATE)) {
+            responseContext.setEntityStream(count(wire, statistics.getResponseByteCounter()));
+            statistics.responseReceived(false);
+            return;
+        }
+
+        // responses without body, e.g. to HEAD requests, may carry the encoding header but no compressed stream
+        PushbackInputStream pushback = new PushbackInputStream(wire);
+        int firstByte = pushback.read();
+        if (firstByte == -1) {
+            responseContext.setEntityStream(pushback);
+            statistics.responseReceived(false);
+            return;
+        }
+        pushback.unread(firstByte);
+
+        InputStream decoded = encoding.equals(GZIP) ? new GZIPInputStream(pushback) : new InflaterInputStream(pushback);
+
+        responseContext.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+        responseContext.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        responseContext.setEntityStream(count(decoded, statistics.getResponseByteCounter()));
+        statistics.responseReceived(true);
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        OutputStream wire = context.getOutputStream();
+
+        // without request compression the body is streamed to the wire as it is written, only its size is counted
+        if (requestCompressionThreshold < 0) {
+            LongAdder bytes = new LongAdder();
+
+            context.setOutputStream(count(wire, bytes));
+            context.proceed();
+            context.setOutputStream(wire);
+
+            statistics.requestSent(bytes.sum(), bytes.sum());
+            return;
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        context.setOutputStream(body);
+        context.proceed();
+
+        // the engines commit the headers after the body is written, so the encoding can still be set here
+        if (body.size() >= requestCompressionThreshold
+                && !context.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.size() / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                body.writeTo(gzip);
+            }
+
+            context.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+            compressed.writeTo(wire);
+            statistics.requestSent(body.size(), compressed.size());
+        } else {
+            body.writeTo(wire);
+            statistics.requestSent(body.size(), body.size());
+        }
+
+        context.setOutputStream(wire);
+    }
+
+    private static OutputStream count(OutputStream outputStream, LongAdder counter) {
+        return new ProxyOutputStream(outputStream) {
+            @Override
+            protected void afterWrite(int n) {
+                counter.add(n);
+            }
+        };
+    }
+
+    private static InputStream count(InputStream inputStream, LongAdder counter) {
+        return new ProxyInputStream(inputStream) {
+            @Override
+            protected void afterRead(int n) {
+                if (n > 0) {
+                    counter.add(n);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,94 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the connection leases of the HTTP connection pool, how long they waited for a free connection and how often
+ * the pool was exhausted when a connection was requested.
+ */
+public class ConnectionPoolStatistics {
+    private final LongAdder leases = new LongAdder();
+    private final LongAdder saturatedLeases = new LongAdder();
+    private final LongAdder leaseWaitNanos = new LongAdder();
+    private final LongAccumulator maxLeaseWaitNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicInteger leased = new AtomicInteger();
+    private final AtomicLong peakLeased = new AtomicLong();
+
+    void leaseRequested(boolean saturated) {
+        if (saturated) {
+            saturatedLeases.increment();
+        }
+    }
+
+    void leased(long waitNanos) {
+        leases.increment();
+        leaseWaitNanos.add(waitNanos);
+        maxLeaseWaitNanos.accumulate(waitNanos);
+        peakLeased.accumulateAndGet(leased.incrementAndGet(), Math::max);
+    }
+
+    void released() {
+        leased.decrementAndGet();
+    }
+
+    public long getLeases() {
+        return leases.sum();
+    }
+
+    /**
+     * Number of connection requests which found no free connection and had to wait for another lease to be released.
+     */
+    public long getSaturatedLeases() {
+        return saturatedLeases.sum();
+    }
+
+    public long getLeaseWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(leaseWaitNanos.sum());
+    }
+
+    public long getMaxLeaseWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLeaseWaitNanos.get());
+    }
+
+    public long getPeakLeased() {
+        return peakLeased.get();
+    }
+
+    @Override
+    public String toString() {
+        long leaseCount = getLeases();
+        return String.format(
+                "%d leases, %d (%.1f%%) waited on a saturated pool, lease wait %d ms in total and %d ms at most, %d connections used at peak",
+                leaseCount,
+                getSaturatedLeases(),
+                leaseCount == 0 ? 0.0 : getSaturatedLeases() * 100.0 / leaseCount,
+                getLeaseWaitMillis(),
+                getMaxLeaseWaitMillis(),
+                getPeakLeased()
+        );
+    }
+}
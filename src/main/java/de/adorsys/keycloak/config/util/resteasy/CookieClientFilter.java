@@ -21,8 +21,9 @@
 package de.adorsys.keycloak.config.util.resteasy;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.ws.rs.client.ClientRequestContext;
 import javax.ws.rs.client.ClientRequestFilter;
 import javax.ws.rs.client.ClientResponseContext;
@@ -33,16 +34,46 @@ import javax.ws.rs.client.ClientResponseFilter;
 // Instead, build the httpEngine from scratch, we are using a RESTeasy filter to grab a re-attach cookie.
 // Currently, this filter does not valide cookie or is able to remove cookies.
 // A cookie managed is required to handle sticky sessions at cookie base
+//
+// Every affinity lane keeps its own cookies, see AffinityLane. Requests run concurrently on the threads of the import,
+// so the cookies are kept in concurrent maps.
 public class CookieClientFilter implements ClientRequestFilter, ClientResponseFilter {
-    private final Map<String, String> cookies = new HashMap<>();
+    private static final String LANE_PROPERTY = CookieClientFilter.class.getName() + ".lane";
+
+    private final List<Map<String, String>> lanes;
+
+    public CookieClientFilter() {
+        this(1);
+    }
+
+    public CookieClientFilter(int lanes) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("At least one affinity lane is required");
+        }
+
+        this.lanes = new ArrayList<>(lanes);
+        for (int i = 0; i < lanes; i++) {
+            this.lanes.add(new ConcurrentHashMap<>());
+        }
+    }
 
     @Override
     public void filter(ClientRequestContext clientRequestContext) {
-        clientRequestContext.getHeaders().put("Cookie", new ArrayList<>(cookies.values()));
+        // the response may be handled on another thread, it has to be stored in the lane of the request
+        Object requestedLane = clientRequestContext.getProperty(AffinityLane.PROPERTY);
+        int lane = Math.floorMod(requestedLane instanceof Integer ? (Integer) requestedLane : AffinityLane.current(), lanes.size());
+        clientRequestContext.setProperty(LANE_PROPERTY, lane);
+
+        Map<String, String> cookies = lanes.get(lane);
+        if (!cookies.isEmpty()) {
+            clientRequestContext.getHeaders().put("Cookie", new ArrayList<>(cookies.values()));
+        }
     }
 
     @Override
     public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+        Object lane = requestContext.getProperty(LANE_PROPERTY);
+        Map<String, String> cookies = lanes.get(lane instanceof Integer ? (Integer) lane : 0);
         responseContext.getCookies().forEach((name, cookie) -> cookies.put(name, String.format("%s=%s",
                 cookie.toCookie().getName(),
                 cookie.toCookie().getValue()
@@ -0,0 +1,62 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.engines.ClientHttpEngineBuilder43;
+
+import java.time.Duration;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+
+// RESTEasy builds the connection pool from the settings of the client builder, but offers no access to it afterwards.
+// This builder hooks into the creation of the engine to wrap the pool before it's handed to the http client.
+public class InstrumentedClientHttpEngineBuilder extends ClientHttpEngineBuilder43 {
+    private final ConnectionPoolStatistics statistics;
+    private final Duration idleTimeout;
+
+    public InstrumentedClientHttpEngineBuilder(ConnectionPoolStatistics statistics, Duration idleTimeout) {
+        this.statistics = statistics;
+        this.idleTimeout = idleTimeout;
+    }
+
+    @Override
+    protected ClientHttpEngine createEngine(
+            HttpClientConnectionManager connectionManager,
+            RequestConfig.Builder requestConfigBuilder,
+            HttpHost defaultProxy,
+            int responseBufferSize,
+            HostnameVerifier hostnameVerifier,
+            SSLContext sslContext
+    ) {
+        return super.createEngine(
+                new InstrumentedConnectionManager(connectionManager, statistics, idleTimeout),
+                requestConfigBuilder,
+                defaultProxy,
+                responseBufferSize,
+                hostnameVerifier,
+                sslContext
+        );
+    }
+}
@@ -0,0 +1,138 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delegates to the connection manager of RESTEasy and records lease statistics. Connections which are idle for longer
+ * than the idle timeout are closed by a background thread, which is stopped together with the connection manager.
+ */
+public class InstrumentedConnectionManager implements HttpClientConnectionManager {
+    private final HttpClientConnectionManager delegate;
+    private final ConnectionPoolStatistics statistics;
+    private final IdleConnectionEvictor idleConnectionEvictor;
+
+    public InstrumentedConnectionManager(HttpClientConnectionManager delegate, ConnectionPoolStatistics statistics, Duration idleTimeout) {
+        this.delegate = delegate;
+        this.statistics = statistics;
+
+        if (idleTimeout.isZero() || idleTimeout.isNegative()) {
+            this.idleConnectionEvictor = null;
+        } else {
+            this.idleConnectionEvictor = new IdleConnectionEvictor(delegate, idleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            this.idleConnectionEvictor.start();
+        }
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        statistics.leaseRequested(isSaturated(route));
+
+        long start = System.nanoTime();
+        ConnectionRequest request = delegate.requestConnection(route, state);
+
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit timeUnit)
+                    throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                HttpClientConnection connection = request.get(timeout, timeUnit);
+                statistics.leased(System.nanoTime() - start);
+                return connection;
+            }
+
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean isSaturated(HttpRoute route) {
+        if (!(delegate instanceof ConnPoolControl)) {
+            return false;
+        }
+
+        ConnPoolControl<HttpRoute> pool = (ConnPoolControl<HttpRoute>) delegate;
+        PoolStats routeStats = pool.getStats(route);
+        if (routeStats.getAvailable() > 0) {
+            return false;
+        }
+
+        PoolStats totalStats = pool.getTotalStats();
+        return routeStats.getLeased() >= routeStats.getMax() || totalStats.getLeased() >= totalStats.getMax();
+    }
+
+    @Override
+    public void releaseConnection(HttpClientConnection connection, Object newState, long validDuration, TimeUnit timeUnit) {
+        // count before the release, it may hand the connection to a waiting request immediately
+        statistics.released();
+        delegate.releaseConnection(connection, newState, validDuration, timeUnit);
+    }
+
+    @Override
+    public void connect(HttpClientConnection connection, HttpRoute route, int connectTimeout, HttpContext context) throws IOException {
+        delegate.connect(connection, route, connectTimeout, context);
+    }
+
+    @Override
+    public void upgrade(HttpClientConnection connection, HttpRoute route, HttpContext context) throws IOException {
+        delegate.upgrade(connection, route, context);
+    }
+
+    @Override
+    public void routeComplete(HttpClientConnection connection, HttpRoute route, HttpContext context) throws IOException {
+        delegate.routeComplete(connection, route, context);
+    }
+
+    @Override
+    public void closeIdleConnections(long idleTime, TimeUnit timeUnit) {
+        delegate.closeIdleConnections(idleTime, timeUnit);
+    }
+
+    @Override
+    public void closeExpiredConnections() {
+        delegate.closeExpiredConnections();
+    }
+
+    @Override
+    public void shutdown() {
+        if (idleConnectionEvictor != null) {
+            idleConnectionEvictor.shutdown();
+        }
+
+        delegate.shutdown();
+    }
+}
@@ -0,0 +1,125 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
+import org.jboss.resteasy.client.jaxrs.engines.ManualClosingApacheHttpClient43Engine;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.Response;
+
+/**
+ * Wraps an engine and sends all requests through a {@link ClientHttpEngineInterceptor}.
+ */
+public class InterceptingClientHttpEngine implements ClientHttpEngine {
+    private final ClientHttpEngine delegate;
+    private final ClientHttpEngineInterceptor interceptor;
+
+    private InterceptingClientHttpEngine(ClientHttpEngine delegate, ClientHttpEngineInterceptor interceptor) {
+        this.delegate = delegate;
+        this.interceptor = interceptor;
+    }
+
+    public static ClientHttpEngine wrap(ClientHttpEngine engine, ClientHttpEngineInterceptor interceptor) {
+        // the Apache engine expects the engine of the client to be an Apache engine as well
+        if (engine instanceof ManualClosingApacheHttpClient43Engine) {
+            return new ApacheEngine((ManualClosingApacheHttpClient43Engine) engine, interceptor);
+        }
+
+        return new InterceptingClientHttpEngine(engine, interceptor);
+    }
+
+    @Override
+    public SSLContext getSslContext() {
+        return delegate.getSslContext();
+    }
+
+    @Override
+    public HostnameVerifier getHostnameVerifier() {
+        return delegate.getHostnameVerifier();
+    }
+
+    @Override
+    public Response invoke(Invocation invocation) {
+        return interceptor.invoke(invocation, delegate);
+    }
+
+    @Override
+    public boolean isFollowRedirects() {
+        return delegate.isFollowRedirects();
+    }
+
+    @Override
+    public void setFollowRedirects(boolean followRedirects) {
+        delegate.setFollowRedirects(followRedirects);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    // shares the http client of the wrapped engine, which keeps its ownership and closes it
+    private static final class ApacheEngine extends ApacheHttpClient43Engine {
+        private final ManualClosingApacheHttpClient43Engine delegate;
+        private final ClientHttpEngineInterceptor interceptor;
+
+        private ApacheEngine(ManualClosingApacheHttpClient43Engine delegate, ClientHttpEngineInterceptor interceptor) {
+            super(delegate.getHttpClient(), false);
+            this.delegate = delegate;
+            this.interceptor = interceptor;
+        }
+
+        @Override
+        public SSLContext getSslContext() {
+            return delegate.getSslContext();
+        }
+
+        @Override
+        public HostnameVerifier getHostnameVerifier() {
+            return delegate.getHostnameVerifier();
+        }
+
+        @Override
+        public Response invoke(Invocation invocation) {
+            return interceptor.invoke(invocation, delegate);
+        }
+
+        @Override
+        public boolean isFollowRedirects() {
+            return delegate.isFollowRedirects();
+        }
+
+        @Override
+        public void setFollowRedirects(boolean followRedirects) {
+            delegate.setFollowRedirects(followRedirects);
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            delegate.close();
+        }
+    }
+}
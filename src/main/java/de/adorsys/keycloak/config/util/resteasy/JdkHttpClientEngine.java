@@ -0,0 +1,179 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.internal.ClientInvocation;
+import org.jboss.resteasy.client.jaxrs.internal.ClientResponse;
+import org.jboss.resteasy.client.jaxrs.internal.FinalizedClientResponse;
+import org.jboss.resteasy.util.CaseInsensitiveMap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+
+/**
+ * RESTEasy engine on top of {@link HttpClient}. Unlike the Apache engine, which sends one request per connection at a
+ * time, the JDK client multiplexes concurrent requests over a single HTTP/2 connection, if the server supports it.
+ * Filters registered at the RESTEasy client, like the {@link CookieClientFilter}, are applied as with any other engine.
+ */
+public class JdkHttpClientEngine implements ClientHttpEngine {
+    // set by the HttpClient itself, it refuses requests which try to set them
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+    private final HostnameVerifier hostnameVerifier;
+
+    public JdkHttpClientEngine(HttpClient httpClient, Duration readTimeout, HostnameVerifier hostnameVerifier) {
+        this.httpClient = httpClient;
+        this.readTimeout = readTimeout;
+        this.hostnameVerifier = hostnameVerifier;
+    }
+
+    @Override
+    public SSLContext getSslContext() {
+        return httpClient.sslContext();
+    }
+
+    @Override
+    public HostnameVerifier getHostnameVerifier() {
+        return hostnameVerifier;
+    }
+
+    @Override
+    public Response invoke(Invocation invocation) {
+        ClientInvocation request = (ClientInvocation) invocation;
+
+        HttpResponse<InputStream> httpResponse;
+        try {
+            httpResponse = httpClient.send(createRequest(request), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            throw new ProcessingException("Unable to invoke request: " + e, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Request interrupted: " + request.getMethod() + " " + request.getUri(), e);
+        }
+
+        return createResponse(request, httpResponse);
+    }
+
+    private HttpRequest createRequest(ClientInvocation request) {
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.noBody();
+
+        // the entity is written before the headers are read, the message body writer may add headers like content-type
+        if (request.getEntity() != null) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            request.getDelegatingOutputStream().setDelegate(buffer);
+
+            try {
+                request.writeRequestBody(request.getEntityStream());
+            } catch (IOException e) {
+                throw new ProcessingException("Unable to write request body: " + e, e);
+            }
+
+            body = HttpRequest.BodyPublishers.ofByteArray(buffer.toByteArray());
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.getUri())
+                .method(request.getMethod(), body);
+
+        if (readTimeout != null && !readTimeout.isZero() && !readTimeout.isNegative()) {
+            builder.timeout(readTimeout);
+        }
+
+        request.getHeaders().asMap().forEach((name, values) -> {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                values.forEach(value -> builder.header(name, value));
+            }
+        });
+
+        return builder.build();
+    }
+
+    private static ClientResponse createResponse(ClientInvocation request, HttpResponse<InputStream> httpResponse) {
+        ClientResponse response = new FinalizedClientResponse(request.getClientConfiguration(), request.getTracingLogger()) {
+            private InputStream stream = httpResponse.body();
+
+            @Override
+            protected InputStream getInputStream() {
+                return stream;
+            }
+
+            @Override
+            protected void setInputStream(InputStream inputStream) {
+                stream = inputStream;
+                resetEntity();
+            }
+
+            @Override
+            public void releaseConnection() throws IOException {
+                releaseConnection(false);
+            }
+
+            @Override
+            public void releaseConnection(boolean consumeInputStream) throws IOException {
+                if (stream == null) {
+                    return;
+                }
+
+                if (consumeInputStream) {
+                    stream.transferTo(OutputStream.nullOutputStream());
+                }
+
+                stream.close();
+            }
+        };
+
+        MultivaluedMap<String, String> headers = new CaseInsensitiveMap<>();
+        httpResponse.headers().map().forEach((name, values) -> {
+            // HTTP/2 pseudo headers like :status are no headers of the response
+            if (!name.startsWith(":")) {
+                headers.addAll(name, values);
+            }
+        });
+
+        response.setProperties(request.getMutableProperties());
+        response.setStatus(httpResponse.statusCode());
+        response.setHeaders(headers);
+        response.setClientConfiguration(request.getClientConfiguration());
+
+        return response;
+    }
+
+    @Override
+    public void close() {
+        // the HttpClient holds no resources which need to be released explicitly, idle connections time out
+    }
+}
@@ -0,0 +1,174 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import net.jodah.failsafe.Failsafe;
+import net.jodah.failsafe.RetryPolicy;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.internal.ClientInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+/**
+ * Retries admin requests which failed for a transient reason, with exponential backoff and jitter.
+ * <p>
+ * Reads and {@code PUT} requests are idempotent and retried on {@code 429}, {@code 502}, {@code 503}, {@code 504} and
+ * on connection failures. Other requests, like {@code POST} and {@code DELETE}, are only retried if they were not
+ * processed for sure: on {@code 429} and {@code 503} or if no connection could be established. A {@code Retry-After}
+ * of the response is honored, a request is not retried if the server asks to wait longer than the maximum delay.
+ */
+public class RetryInterceptor implements ClientHttpEngineInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(RetryInterceptor.class);
+
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "OPTIONS", "PUT");
+    private static final Set<Integer> NOT_PROCESSED_STATUS = Set.of(429, 503);
+    private static final Set<Integer> TRANSIENT_STATUS = Set.of(429, 502, 503, 504);
+    private static final double JITTER = 0.5;
+
+    private final int maxRetries;
+    private final Duration delay;
+    private final Duration maxDelay;
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder recoveredRequests = new LongAdder();
+    private final LongAdder failedRequests = new LongAdder();
+
+    public RetryInterceptor(int maxRetries, Duration delay, Duration maxDelay) {
+        this.maxRetries = maxRetries;
+        this.delay = delay;
+        this.maxDelay = maxDelay;
+    }
+
+    @Override
+    public Response invoke(Invocation invocation, ClientHttpEngine engine) {
+        ClientInvocation request = (ClientInvocation) invocation;
+        if (maxRetries < 1 || !request.getUri().getPath().contains("/admin/")) {
+            return engine.invoke(invocation);
+        }
+
+        String method = request.getMethod();
+        return Failsafe.with(retryPolicy(method, request)).get(() -> engine.invoke(invocation));
+    }
+
+    private RetryPolicy<Response> retryPolicy(String method, ClientInvocation request) {
+        RetryPolicy<Response> retryPolicy = new RetryPolicy<Response>()
+                .handleIf((Response response, Throwable failure) -> shouldRetry(method, response, failure))
+                .abortIf(response -> response != null && retryAfter(response).compareTo(maxDelay) > 0)
+                .withMaxRetries(maxRetries)
+                .withDelay((response, failure, context) -> response != null && !retryAfter(response).isZero() ? retryAfter(response) : null)
+                .onRetry(event -> {
+                    retries.increment();
+                    Response response = event.getLastResult();
+                    if (response != null) {
+                        logger.debug("Retry {} {} after status {}, attempt {}",
+                                method, request.getUri(), response.getStatus(), event.getAttemptCount());
+                        // releases the connection of the failed attempt
+                        response.close();
+                    } else {
+                        logger.debug("Retry {} {} after {}, attempt {}",
+                                method, request.getUri(), event.getLastFailure(), event.getAttemptCount());
+                    }
+                })
+                .onSuccess(event -> {
+                    if (event.getAttemptCount() > 1) {
+                        recoveredRequests.increment();
+                    }
+                })
+                .onRetriesExceeded(event -> failedRequests.increment());
+
+        if (delay.compareTo(maxDelay) < 0) {
+            retryPolicy.withBackoff(delay.toMillis(), maxDelay.toMillis(), ChronoUnit.MILLIS).withJitter(JITTER);
+        } else {
+            retryPolicy.withDelay(delay).withJitter(JITTER);
+        }
+
+        return retryPolicy;
+    }
+
+    static boolean shouldRetry(String method, Response response, Throwable failure) {
+        boolean idempotent = IDEMPOTENT_METHODS.contains(method);
+
+        if (response != null) {
+            Set<Integer> retryableStatus = idempotent ? TRANSIENT_STATUS : NOT_PROCESSED_STATUS;
+            return retryableStatus.contains(response.getStatus());
+        }
+
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (isConnectFailure(cause) || idempotent && cause instanceof IOException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // the request was never sent, if the connection could not be established
+    private static boolean isConnectFailure(Throwable failure) {
+        return failure instanceof ConnectException
+                || failure instanceof ConnectTimeoutException
+                || failure instanceof HttpConnectTimeoutException;
+    }
+
+    private static Duration retryAfter(Response response) {
+        return Duration.ofMillis(RetryAfter.toMillis(response.getHeaderString(HttpHeaders.RETRY_AFTER)));
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * Number of requests which succeeded after at least one retry.
+     */
+    public long getRecoveredRequests() {
+        return recoveredRequests.sum();
+    }
+
+    /**
+     * Number of requests which still failed after all retries.
+     */
+    public long getFailedRequests() {
+        return failedRequests.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%d retries, %d requests recovered, %d requests failed after %d retries",
+                getRetries(),
+                getRecoveredRequests(),
+                getFailedRequests(),
+                maxRetries
+        );
+    }
+}
@@ -0,0 +1,109 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the bytes of request and response bodies, as sent over the wire and after decoding. Without compression
+ * both numbers are the same.
+ */
+public class TransferStatistics {
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder requestWireBytes = new LongAdder();
+    private final LongAdder compressedRequests = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LongAdder responseWireBytes = new LongAdder();
+    private final LongAdder responses = new LongAdder();
+    private final LongAdder compressedResponses = new LongAdder();
+
+    void requestSent(long bytes, long wireBytes) {
+        requestBytes.add(bytes);
+        requestWireBytes.add(wireBytes);
+        if (bytes != wireBytes) {
+            compressedRequests.increment();
+        }
+    }
+
+    void responseReceived(boolean compressed) {
+        responses.increment();
+        if (compressed) {
+            compressedResponses.increment();
+        }
+    }
+
+    LongAdder getResponseByteCounter() {
+        return responseBytes;
+    }
+
+    LongAdder getResponseWireByteCounter() {
+        return responseWireBytes;
+    }
+
+    public long getRequestBytes() {
+        return requestBytes.sum();
+    }
+
+    public long getRequestWireBytes() {
+        return requestWireBytes.sum();
+    }
+
+    public long getCompressedRequests() {
+        return compressedRequests.sum();
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    public long getResponseWireBytes() {
+        return responseWireBytes.sum();
+    }
+
+    public long getResponses() {
+        return responses.sum();
+    }
+
+    public long getCompressedResponses() {
+        return compressedResponses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%d responses %s on the wire, %s decoded (%d compressed), requests %s on the wire, %s before encoding (%d compressed)",
+                getResponses(), formatBytes(getResponseWireBytes()), formatBytes(getResponseBytes()), getCompressedResponses(),
+                formatBytes(getRequestWireBytes()), formatBytes(getRequestBytes()), getCompressedRequests()
+        );
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
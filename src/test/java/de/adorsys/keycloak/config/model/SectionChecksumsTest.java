@@ -0,0 +1,110 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.model;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.yaml.snakeyaml.Yaml;
+
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+@ExtendWith(GithubActionsExtension.class)
+class SectionChecksumsTest {
+    private static final String DOCUMENT = String.join("\n",
+            "realm: test",
+            "clients:",
+            "  - clientId: app",
+            "    redirectUris: ['https://app/*']",
+            "    attributes: {pkce.code.challenge.method: S256}",
+            "roles:",
+            "  realm:",
+            "    - name: admin",
+            "  client:",
+            "    app:",
+            "      - name: viewer",
+            "groups:",
+            "  - name: parent",
+            "    attributes: {team: [a]}",
+            "    subGroups:",
+            "      - name: child"
+    );
+
+    @Test
+    void shouldIgnoreOrderOfMapEntries() {
+        SectionChecksums checksums = read(DOCUMENT);
+        SectionChecksums reordered = read(DOCUMENT.replace(
+                "    redirectUris: ['https://app/*']\n    attributes: {pkce.code.challenge.method: S256}",
+                "    attributes: {pkce.code.challenge.method: S256}\n    redirectUris: ['https://app/*']"
+        ));
+
+        assertThat(reordered.getContent("clients"), is(checksums.getContent("clients")));
+        assertThat(reordered.getContent("roles"), is(checksums.getContent("roles")));
+    }
+
+    @Test
+    void shouldKeepIdentityOnChangedContent() {
+        SectionChecksums checksums = read(DOCUMENT);
+        SectionChecksums changed = read(DOCUMENT
+                .replace("https://app/*", "https://app.example.com/*")
+                .replace("team: [a]", "team: [b]"));
+
+        assertThat(changed.getContent("clients"), is(not(checksums.getContent("clients"))));
+        assertThat(changed.getIdentity("clients"), is(checksums.getIdentity("clients")));
+        assertThat(changed.getContent("groups"), is(not(checksums.getContent("groups"))));
+        assertThat(changed.getIdentity("groups"), is(checksums.getIdentity("groups")));
+        assertThat(changed.getContent("roles"), is(checksums.getContent("roles")));
+    }
+
+    @Test
+    void shouldChangeIdentityOnRenamedEntities() {
+        SectionChecksums checksums = read(DOCUMENT);
+
+        assertThat(read(DOCUMENT.replace("clientId: app", "clientId: other")).getIdentity("clients"),
+                is(not(checksums.getIdentity("clients"))));
+        assertThat(read(DOCUMENT.replace("name: viewer", "name: editor")).getIdentity("roles"),
+                is(not(checksums.getIdentity("roles"))));
+        assertThat(read(DOCUMENT.replace("    app:", "    other:")).getIdentity("roles"),
+                is(not(checksums.getIdentity("roles"))));
+        assertThat(read(DOCUMENT.replace("name: child", "name: renamed")).getIdentity("groups"),
+                is(not(checksums.getIdentity("groups"))));
+    }
+
+    @Test
+    void shouldReturnNullForMissingSections() {
+        SectionChecksums checksums = read(DOCUMENT);
+
+        assertThat(checksums.getContent("realm"), is(notNullValue()));
+        assertThat(checksums.getContent("users"), is(nullValue()));
+        assertThat(checksums.getIdentity("users"), is(nullValue()));
+    }
+
+    private static SectionChecksums read(String document) {
+        Map<String, Object> content = new Yaml().load(document);
+        return new SectionChecksums(content);
+    }
+}
@@ -22,6 +22,7 @@ package de.adorsys.keycloak.config.properties;
 
 import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportManagedProperties.ImportManagedPropertiesValues;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportUsersProperties.ImportUsersBulkPolicy;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +31,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Duration;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
@@ -42,6 +45,9 @@ import static org.hamcrest.Matchers.is;
         "spring.main.log-startup-info=false",
 
         "import.parallel=true",
+        "import.executor.threads=32",
+        "import.executor.phase-concurrency=4",
+        "import.executor.realm-concurrency=2",
         "import.validate=false",
         "import.files.locations=other",
         "import.files.include-hidden-files=true",
@@ -53,6 +59,9 @@ import static org.hamcrest.Matchers.is;
         "import.var-substitution.suffix=}",
         "import.cache.enabled=false",
         "import.cache.key=custom",
+        "import.cache.force=true",
+        "import.cache.full-reconcile-interval=7d",
+        "import.cache.entity-checksums-file=checksums.json",
         "import.remote-state.enabled=false",
         "import.remote-state.encryption-key=password",
         "import.remote-state.encryption-salt=0123456789ABCDEFabcdef",
@@ -72,6 +81,12 @@ import static org.hamcrest.Matchers.is;
         "import.behaviors.sync-user-federation=true",
         "import.behaviors.remove-default-role-from-user=true",
         "import.behaviors.skip-attributes-for-federated-user=true",
+        "import.users.bulk-create=true",
+        "import.users.bulk-size=100",
+        "import.users.bulk-policy=overwrite",
+        "import.users.prefetch-page-size=1000",
+        "import.users.prefetch-concurrency=2",
+        "import.users.prefetch-min-ratio=0.5",
 })
 class ImportConfigPropertiesTest {
 
@@ -83,6 +98,9 @@ class ImportConfigPropertiesTest {
     void shouldPopulateConfigurationProperties() {
         assertThat(properties.isValidate(), is(false));
         assertThat(properties.isParallel(), is(true));
+        assertThat(properties.getExecutor().getThreads(), is(32));
+        assertThat(properties.getExecutor().getPhaseConcurrency(), is(4));
+        assertThat(properties.getExecutor().getRealmConcurrency(), is(2));
         assertThat(properties.getFiles().getLocations(), contains("other"));
         assertThat(properties.getFiles().getExcludes(), contains("exclude1", "exclude2"));
         assertThat(properties.getFiles().isIncludeHiddenFiles(), is(true));
@@ -93,6 +111,9 @@ class ImportConfigPropertiesTest {
         assertThat(properties.getVarSubstitution().getSuffix(), is("}"));
         assertThat(properties.getCache().isEnabled(), is(false));
         assertThat(properties.getCache().getKey(), is("custom"));
+        assertThat(properties.getCache().isForce(), is(true));
+        assertThat(properties.getCache().getFullReconcileInterval(), is(Duration.ofDays(7)));
+        assertThat(properties.getCache().getEntityChecksumsFile(), is("checksums.json"));
         assertThat(properties.getRemoteState().isEnabled(), is(false));
         assertThat(properties.getRemoteState().getEncryptionKey(), is("password"));
         assertThat(properties.getRemoteState().getEncryptionSalt(), is("0123456789ABCDEFabcdef"));
@@ -112,6 +133,12 @@ class ImportConfigPropertiesTest {
         assertThat(properties.getBehaviors().isSyncUserFederation(), is(true));
         assertThat(properties.getBehaviors().isRemoveDefaultRoleFromUser(), is(true));
         assertThat(properties.getBehaviors().isSkipAttributesForFederatedUser(), is(true));
+        assertThat(properties.getUsers().isBulkCreate(), is(true));
+        assertThat(properties.getUsers().getBulkSize(), is(100));
+        assertThat(properties.getUsers().getBulkPolicy(), is(ImportUsersBulkPolicy.OVERWRITE));
+        assertThat(properties.getUsers().getPrefetchPageSize(), is(1000));
+        assertThat(properties.getUsers().getPrefetchConcurrency(), is(2));
+        assertThat(properties.getUsers().getPrefetchMinRatio(), is(0.5));
     }
 
     @EnableConfigurationProperties(ImportConfigProperties.class)
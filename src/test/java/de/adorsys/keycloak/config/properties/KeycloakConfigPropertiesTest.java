@@ -28,6 +28,7 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.unit.DataSize;
 
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -54,7 +55,24 @@ import static org.hamcrest.core.Is.is;
         "keycloak.read-timeout=20s",
         "keycloak.availability-check.enabled=true",
         "keycloak.availability-check.timeout=60s",
-        "keycloak.availability-check.retry-delay=10s"
+        "keycloak.availability-check.retry-delay=10s",
+        "keycloak.http-engine=jdk",
+        "keycloak.affinity-lanes=3",
+        "keycloak.connection-pool.size=20",
+        "keycloak.connection-pool.max-per-route=15",
+        "keycloak.connection-pool.ttl=5m",
+        "keycloak.connection-pool.idle-timeout=10s",
+        "keycloak.compression.enabled=false",
+        "keycloak.compression.request-bodies=true",
+        "keycloak.compression.request-threshold=1MB",
+        "keycloak.adaptive-concurrency.enabled=true",
+        "keycloak.adaptive-concurrency.initial-limit=4",
+        "keycloak.adaptive-concurrency.min-limit=2",
+        "keycloak.adaptive-concurrency.max-limit=32",
+        "keycloak.adaptive-concurrency.latency-tolerance=1.5",
+        "keycloak.retry.max-retries=5",
+        "keycloak.retry.delay=1s",
+        "keycloak.retry.max-delay=30s"
 })
 class KeycloakConfigPropertiesTest {
 
@@ -75,6 +93,23 @@ class KeycloakConfigPropertiesTest {
         assertThat(properties.getAvailabilityCheck().isEnabled(), is(true));
         assertThat(properties.getAvailabilityCheck().getTimeout(), is(Duration.ofSeconds(60L)));
         assertThat(properties.getAvailabilityCheck().getRetryDelay(), is(Duration.ofSeconds(10L)));
+        assertThat(properties.getHttpEngine(), is(KeycloakConfigProperties.HttpEngine.JDK));
+        assertThat(properties.getAffinityLanes(), is(3));
+        assertThat(properties.getConnectionPool().getSize(), is(20));
+        assertThat(properties.getConnectionPool().getMaxPerRoute(), is(15));
+        assertThat(properties.getConnectionPool().getTtl(), is(Duration.ofMinutes(5)));
+        assertThat(properties.getConnectionPool().getIdleTimeout(), is(Duration.ofSeconds(10)));
+        assertThat(properties.getCompression().isEnabled(), is(false));
+        assertThat(properties.getCompression().isRequestBodies(), is(true));
+        assertThat(properties.getCompression().getRequestThreshold(), is(DataSize.ofMegabytes(1)));
+        assertThat(properties.getAdaptiveConcurrency().isEnabled(), is(true));
+        assertThat(properties.getAdaptiveConcurrency().getInitialLimit(), is(4));
+        assertThat(properties.getAdaptiveConcurrency().getMinLimit(), is(2));
+        assertThat(properties.getAdaptiveConcurrency().getMaxLimit(), is(32));
+        assertThat(properties.getAdaptiveConcurrency().getLatencyTolerance(), is(1.5));
+        assertThat(properties.getRetry().getMaxRetries(), is(5));
+        assertThat(properties.getRetry().getDelay(), is(Duration.ofSeconds(1)));
+        assertThat(properties.getRetry().getMaxDelay(), is(Duration.ofSeconds(30)));
     }
 
     @EnableConfigurationProperties(KeycloakConfigProperties.class)
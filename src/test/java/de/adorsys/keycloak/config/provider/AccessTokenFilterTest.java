@@ -0,0 +1,151 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.provider;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.internal.ClientInvocation;
+import org.jboss.resteasy.client.jaxrs.internal.ClientRequestHeaders;
+import org.jboss.resteasy.util.CaseInsensitiveMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(GithubActionsExtension.class)
+class AccessTokenFilterTest {
+    private final AccessTokenManager accessTokenManager = mock(AccessTokenManager.class);
+    private final AccessTokenFilter filter = new AccessTokenFilter(() -> accessTokenManager);
+
+    @Test
+    void shouldReplaceBearerToken() {
+        when(accessTokenManager.getAccessTokenString()).thenReturn("current");
+        ClientRequestContext request = request("Bearer initial");
+
+        filter.filter(request);
+
+        assertThat(request.getHeaders().get(HttpHeaders.AUTHORIZATION), contains("Bearer current"));
+    }
+
+    @Test
+    void shouldKeepOtherAuthorization() {
+        ClientRequestContext request = request("Basic YWRtaW46YWRtaW4=");
+
+        filter.filter(request);
+
+        assertThat(request.getHeaders().get(HttpHeaders.AUTHORIZATION), contains("Basic YWRtaW46YWRtaW4="));
+        verify(accessTokenManager, never()).getAccessTokenString();
+    }
+
+    @Test
+    void shouldRetryRejectedRequestWithNewToken() {
+        when(accessTokenManager.getAccessTokenString()).thenReturn("current");
+        ClientInvocation invocation = invocation("Bearer rejected");
+        Response rejected = response(401);
+        Response accepted = response(200);
+
+        ClientHttpEngine engine = mock(ClientHttpEngine.class);
+        List<Object> sentAuthorizations = new ArrayList<>();
+        when(engine.invoke(invocation)).thenAnswer(call -> {
+            sentAuthorizations.add(invocation.getHeaders().getHeader(HttpHeaders.AUTHORIZATION));
+            return sentAuthorizations.size() == 1 ? rejected : accepted;
+        });
+
+        assertThat(filter.invoke(invocation, engine), is(accepted));
+        assertThat(sentAuthorizations, contains("Bearer rejected", "Bearer current"));
+        verify(accessTokenManager).invalidate("rejected");
+        verify(rejected).close();
+    }
+
+    @Test
+    void shouldNotRetryIfTokenIsUnchanged() {
+        when(accessTokenManager.getAccessTokenString()).thenReturn("rejected");
+        ClientInvocation invocation = invocation("Bearer rejected");
+        Response rejected = response(401);
+
+        ClientHttpEngine engine = mock(ClientHttpEngine.class);
+        when(engine.invoke(invocation)).thenReturn(rejected);
+
+        assertThat(filter.invoke(invocation, engine), is(rejected));
+        verify(engine, times(1)).invoke(invocation);
+    }
+
+    @Test
+    void shouldNotRetryOtherAuthorization() {
+        ClientInvocation invocation = invocation("Basic YWRtaW46YWRtaW4=");
+        Response rejected = response(401);
+
+        ClientHttpEngine engine = mock(ClientHttpEngine.class);
+        when(engine.invoke(invocation)).thenReturn(rejected);
+
+        assertThat(filter.invoke(invocation, engine), is(rejected));
+        verify(engine, times(1)).invoke(invocation);
+        verify(accessTokenManager, never()).invalidate(any());
+    }
+
+    private static ClientInvocation invocation(String authorization) {
+        CaseInsensitiveMap<Object> headers = new CaseInsensitiveMap<>();
+        headers.add(HttpHeaders.AUTHORIZATION, authorization);
+
+        ClientRequestHeaders requestHeaders = mock(ClientRequestHeaders.class);
+        when(requestHeaders.getHeaders()).thenReturn(headers);
+        when(requestHeaders.getHeader(HttpHeaders.AUTHORIZATION))
+                .thenAnswer(call -> headers.getFirst(HttpHeaders.AUTHORIZATION));
+
+        ClientInvocation invocation = mock(ClientInvocation.class);
+        when(invocation.getHeaders()).thenReturn(requestHeaders);
+        when(invocation.getMethod()).thenReturn("GET");
+        when(invocation.getUri()).thenReturn(URI.create("http://localhost/admin/realms/test"));
+        return invocation;
+    }
+
+    private static Response response(int status) {
+        Response response = mock(Response.class);
+        when(response.getStatus()).thenReturn(status);
+        return response;
+    }
+
+    private static ClientRequestContext request(String authorization) {
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        headers.add(HttpHeaders.AUTHORIZATION, authorization);
+
+        ClientRequestContext request = mock(ClientRequestContext.class);
+        when(request.getHeaders()).thenReturn(headers);
+        return request;
+    }
+}
@@ -0,0 +1,139 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.provider;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.jboss.resteasy.client.jaxrs.internal.ResteasyClientBuilderImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.keycloak.admin.client.Config;
+import org.keycloak.admin.client.token.TokenManager;
+import org.keycloak.representations.AccessTokenResponse;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+@ExtendWith(GithubActionsExtension.class)
+class AccessTokenManagerTest {
+    private final ResteasyClient client = new ResteasyClientBuilderImpl().build();
+
+    private AccessTokenManager accessTokenManager;
+
+    @AfterEach
+    void close() {
+        accessTokenManager.close();
+        client.close();
+    }
+
+    @Test
+    void shouldHandOutTokenWithoutWaiting() {
+        FakeTokenManager tokenManager = new FakeTokenManager(client, 300);
+        accessTokenManager = new AccessTokenManager(tokenManager);
+        accessTokenManager.grantToken();
+
+        List<String> tokens = IntStream.range(0, 1000).parallel()
+                .mapToObj(i -> accessTokenManager.getAccessTokenString())
+                .collect(Collectors.toList());
+
+        assertThat(tokens, everyItem(is("token-1")));
+        assertThat(accessTokenManager.getWaits(), is(0L));
+        assertThat(tokenManager.requests.get(), is(1));
+    }
+
+    @Test
+    void shouldRefreshInBackgroundBeforeExpiry() throws InterruptedException {
+        FakeTokenManager tokenManager = new FakeTokenManager(client, 2);
+        accessTokenManager = new AccessTokenManager(tokenManager);
+        accessTokenManager.grantToken();
+
+        // a token valid for 2 seconds is refreshed after one second
+        for (int i = 0; i < 50 && accessTokenManager.getBackgroundRefreshes() == 0; i++) {
+            Thread.sleep(100);
+        }
+
+        assertThat(accessTokenManager.getBackgroundRefreshes(), greaterThanOrEqualTo(1L));
+        assertThat(accessTokenManager.getAccessTokenString().equals("token-1"), is(false));
+        assertThat(accessTokenManager.getWaits(), is(0L));
+    }
+
+    @Test
+    void shouldWaitForNewTokenAfterInvalidation() {
+        FakeTokenManager tokenManager = new FakeTokenManager(client, 300);
+        accessTokenManager = new AccessTokenManager(tokenManager);
+        accessTokenManager.grantToken();
+
+        accessTokenManager.invalidate("token-0");
+        assertThat(accessTokenManager.getAccessTokenString(), is("token-1"));
+
+        accessTokenManager.invalidate("token-1");
+        assertThat(accessTokenManager.getAccessTokenString(), is("token-2"));
+        assertThat(accessTokenManager.getAccessTokenString(), is("token-2"));
+        assertThat(accessTokenManager.getWaits(), is(1L));
+    }
+
+    @Test
+    void shouldRefreshOnDemand() {
+        FakeTokenManager tokenManager = new FakeTokenManager(client, 300);
+        accessTokenManager = new AccessTokenManager(tokenManager);
+        accessTokenManager.grantToken();
+
+        accessTokenManager.refreshToken();
+
+        assertThat(accessTokenManager.getAccessTokenString(), is("token-2"));
+        assertThat(accessTokenManager.getWaits(), is(0L));
+    }
+
+    private static class FakeTokenManager extends TokenManager {
+        private final AtomicInteger requests = new AtomicInteger();
+        private final long expiresIn;
+
+        FakeTokenManager(ResteasyClient client, long expiresIn) {
+            super(new Config("http://localhost", "master", "admin", "admin", "admin-cli", null), client);
+            this.expiresIn = expiresIn;
+        }
+
+        @Override
+        public synchronized AccessTokenResponse getAccessToken() {
+            return newToken();
+        }
+
+        @Override
+        public synchronized AccessTokenResponse refreshToken() {
+            return newToken();
+        }
+
+        private AccessTokenResponse newToken() {
+            AccessTokenResponse response = new AccessTokenResponse();
+            response.setToken("token-" + requests.incrementAndGet());
+            response.setExpiresIn(expiresIn);
+            return response;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.provider;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.ConnectionPool;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.HttpEngine;
+import de.adorsys.keycloak.config.util.ResteasyUtil;
+import de.adorsys.keycloak.config.util.resteasy.ConnectionPoolStatistics;
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(GithubActionsExtension.class)
+class AdminRequestBatchTest {
+    private static final int CONCURRENT_REQUESTS = 4;
+
+    private final Map<String, String> requests = new ConcurrentHashMap<>();
+    private final CountDownLatch allArrived = new CountDownLatch(CONCURRENT_REQUESTS);
+
+    private HttpServer server;
+    private ResteasyClient client;
+
+    @AfterEach
+    void stop() {
+        client.close();
+        server.stop(0);
+    }
+
+    @ParameterizedTest
+    @EnumSource(HttpEngine.class)
+    void shouldKeepAllRequestsInFlight(HttpEngine httpEngine) throws IOException {
+        AdminRequestBatch batch = start(httpEngine);
+
+        // the server answers only after all requests arrived, sequential requests would time out
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            batch.put("users", "user-1", "groups", "concurrent-" + i);
+        }
+        batch.await("join groups");
+
+        assertThat(requests.size(), is(CONCURRENT_REQUESTS));
+        assertThat(requests.get("PUT /admin/realms/test/users/user-1/groups/concurrent-0"), is(""));
+        assertThat(batch.size(), is(0));
+    }
+
+    @ParameterizedTest
+    @EnumSource(HttpEngine.class)
+    void shouldSendEntities(HttpEngine httpEngine) throws IOException {
+        AdminRequestBatch batch = start(httpEngine);
+
+        batch.post(List.of("role-1"), "users", "user-1", "role-mappings", "realm");
+        batch.delete(List.of("role-2"), "users", "user-1", "role-mappings", "realm");
+        batch.delete("users", "user-1", "groups", "group 1");
+        batch.await("update mappings");
+
+        assertThat(requests.get("POST /admin/realms/test/users/user-1/role-mappings/realm"), is("[\"role-1\"]"));
+        assertThat(requests.get("DELETE /admin/realms/test/users/user-1/role-mappings/realm"), is("[\"role-2\"]"));
+        assertThat(requests.get("DELETE /admin/realms/test/users/user-1/groups/group 1"), is(""));
+    }
+
+    @ParameterizedTest
+    @EnumSource(HttpEngine.class)
+    void shouldReportAllFailedRequests(HttpEngine httpEngine) throws IOException {
+        AdminRequestBatch batch = start(httpEngine);
+
+        batch.put("users", "user-1", "groups", "missing-1");
+        batch.put("users", "user-1", "groups", "group-1");
+        batch.put("users", "user-1", "groups", "missing-2");
+
+        ImportProcessingException thrown = assertThrows(ImportProcessingException.class, () -> batch.await("join groups of '%s'", "user"));
+
+        assertThat(thrown.getMessage(), allOf(
+                containsString("join groups of 'user': 2 of 3 requests failed"),
+                containsString("PUT /admin/realms/test/users/user-1/groups/missing-1: HTTP 404 Not Found {\"error\":\"Group not found\"}"),
+                containsString("PUT /admin/realms/test/users/user-1/groups/missing-2: HTTP 404"),
+                not(containsString("group-1"))
+        ));
+    }
+
+    private AdminRequestBatch start(HttpEngine httpEngine) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::respond);
+        server.start();
+
+        client = ResteasyUtil.getClient(
+                false, null, Duration.ofSeconds(10), Duration.ofSeconds(10), httpEngine, 1,
+                new ConnectionPool(10, 10, Duration.ZERO, Duration.ofSeconds(30)), new ConnectionPoolStatistics(), List.of()
+        );
+
+        URI realmUri = URI.create("http://localhost:" + server.getAddress().getPort() + "/admin/realms/test");
+        return new AdminRequestBatch(client, realmUri, "token");
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        requests.put(exchange.getRequestMethod() + " " + path, body);
+
+        if (path.contains("/missing-")) {
+            byte[] error = "{\"error\":\"Group not found\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(404, error.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(error);
+            }
+        } else {
+            boolean arrived = !path.contains("/concurrent-") || awaitAll();
+            boolean authorized = "Bearer token".equals(exchange.getRequestHeaders().getFirst("Authorization"));
+            exchange.sendResponseHeaders(arrived && authorized ? 204 : 500, -1);
+        }
+
+        exchange.close();
+    }
+
+    private boolean awaitAll() {
+        allArrived.countDown();
+
+        try {
+            return allArrived.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service;
+
+import de.adorsys.keycloak.config.AbstractImportIT;
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.model.RealmImport;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestPropertySource(properties = {
+        "import.users.bulk-create=true",
+        "import.users.bulk-size=2",
+})
+class ImportUsersBulkIT extends AbstractImportIT {
+    private static final String REALM_NAME = "realmWithBulkUsers";
+
+    ImportUsersBulkIT() {
+        this.resourcePath = "import-files/users-bulk";
+    }
+
+    @Test
+    @Order(0)
+    void shouldCreateRealmWithUsers() throws IOException {
+        doImport("00_create_realm_with_users.json");
+
+        RealmResource realmResource = keycloakProvider.getInstance().realm(REALM_NAME);
+        assertThat(realmResource.users().list(), hasSize(3));
+
+        UserRepresentation user1 = keycloakRepository.getUser(REALM_NAME, "user1");
+        assertThat(user1.getEmail(), is("user1@mail.de"));
+        assertThat(user1.getFirstName(), is("firstName1"));
+        assertThat(keycloakRepository.getUserRealmLevelRoles(REALM_NAME, "user1"), hasItems("role1", "default-roles-realmwithbulkusers"));
+        assertThat(keycloakRepository.getUserClientLevelRoles(REALM_NAME, "user1", "moped-client"), contains("client_role1"));
+        assertThat(getGroupPaths(user1), contains("/group1"));
+
+        UserRepresentation user2 = keycloakRepository.getUser(REALM_NAME, "user2");
+        assertThat(keycloakRepository.getUserRealmLevelRoles(REALM_NAME, "user2"), allOf(
+                hasItem("default-roles-realmwithbulkusers"), not(hasItem("role1"))
+        ));
+        assertThat(getGroupPaths(user2), contains("/group1/subgroup1"));
+
+        UserRepresentation user3 = keycloakRepository.getUser(REALM_NAME, "user3");
+        assertThat(user3.getLastName(), is("lastName3"));
+        assertThat(getGroupPaths(user3), is(empty()));
+    }
+
+    @Test
+    @Order(1)
+    void shouldUpdateExistingUsersAndCreateNewUsers() throws IOException {
+        doImport("01_update_realm_with_users.json");
+
+        RealmResource realmResource = keycloakProvider.getInstance().realm(REALM_NAME);
+        assertThat(realmResource.users().list(), hasSize(4));
+
+        UserRepresentation user1 = keycloakRepository.getUser(REALM_NAME, "user1");
+        assertThat(user1.getFirstName(), is("changedFirstName1"));
+        assertThat(keycloakRepository.getUserRealmLevelRoles(REALM_NAME, "user1"), allOf(
+                hasItems("role2", "default-roles-realmwithbulkusers"), not(hasItem("role1"))
+        ));
+        assertThat(keycloakRepository.getUserClientLevelRoles(REALM_NAME, "user1", "moped-client"), is(empty()));
+        assertThat(getGroupPaths(user1), contains("/group1"));
+
+        assertThat(keycloakRepository.getUserRealmLevelRoles(REALM_NAME, "user4"), hasItems("role1", "role2", "default-roles-realmwithbulkusers"));
+    }
+
+    @Test
+    @Order(2)
+    void shouldNotCreateUserWithNonExistsRole() throws IOException {
+        RealmImport foundImport = getFirstImport("02_update_realm_try_to_create_user_invalid_role.json");
+
+        ImportProcessingException thrown = assertThrows(ImportProcessingException.class, () -> realmImportService.doImport(foundImport));
+
+        assertThat(thrown.getMessage(), is("Could not find role 'not_exists' in realm 'realmWithBulkUsers'!"));
+        assertThat(keycloakProvider.getInstance().realm(REALM_NAME).users().search("user5"), is(empty()));
+    }
+
+    private List<String> getGroupPaths(UserRepresentation user) {
+        return keycloakProvider.getInstance().realm(REALM_NAME).users().get(user.getId()).groups()
+                .stream().map(GroupRepresentation::getPath)
+                .collect(Collectors.toList());
+    }
+}
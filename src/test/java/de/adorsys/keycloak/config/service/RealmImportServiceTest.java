@@ -0,0 +1,76 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.service.executor.PhaseGraph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(GithubActionsExtension.class)
+class RealmImportServiceTest {
+    // the phases are only declared, none of them runs
+    private final PhaseGraph phases = mock(RealmImportService.class, CALLS_REAL_METHODS)
+            .createPhaseGraph(null, null, null);
+
+    @Test
+    void shouldCreateClientsAfterDefaultClientScopes() {
+        assertThat(dependenciesOf("clients"), hasItem("defaultClientScopes"));
+    }
+
+    @Test
+    void shouldCreateUsersAfterDefaultGroups() {
+        assertThat(dependenciesOf("users"), hasItem("defaultGroups"));
+    }
+
+    @Test
+    void shouldUpdateFlowBindingsAfterRealmRepresentationChanges() {
+        Set<String> dependencies = dependenciesOf("authenticationFlows");
+
+        assertThat(dependencies, hasItem("defaultClientScopes"));
+        assertThat(dependencies, hasItem("defaultGroups"));
+    }
+
+    private Set<String> dependenciesOf(String name) {
+        Set<String> dependencies = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>(phases.getPhase(name).getDependencies());
+
+        while (!pending.isEmpty()) {
+            String dependency = pending.pop();
+
+            if (dependencies.add(dependency)) {
+                pending.addAll(phases.getPhase(dependency).getDependencies());
+            }
+        }
+
+        return dependencies;
+    }
+}
@@ -0,0 +1,134 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportUsersProperties.ImportUsersBulkPolicy;
+import de.adorsys.keycloak.config.provider.AdminRequestBatch;
+import de.adorsys.keycloak.config.repository.ClientRepository;
+import de.adorsys.keycloak.config.repository.GroupRepository;
+import de.adorsys.keycloak.config.repository.RealmRepository;
+import de.adorsys.keycloak.config.repository.RequiredActionRepository;
+import de.adorsys.keycloak.config.repository.RoleRepository;
+import de.adorsys.keycloak.config.repository.UserRepository;
+import de.adorsys.keycloak.config.service.checksum.ChecksumService;
+import de.adorsys.keycloak.config.service.executor.ImportExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(GithubActionsExtension.class)
+class UserImportServiceTest {
+    private static final String REALM = "test";
+    private static final int USERS = 100;
+
+    private final RealmRepository realmRepository = mock(RealmRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ImportConfigProperties importConfigProperties = mock(ImportConfigProperties.class, RETURNS_DEEP_STUBS);
+    private final ImportExecutor importExecutor = mock(ImportExecutor.class);
+    private final ChecksumService checksumService = mock(ChecksumService.class);
+
+    private final List<String> importedUsernames = new ArrayList<>();
+
+    private UserImportService userImportService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RealmRepresentation realm = new RealmRepresentation();
+        realm.setRegistrationEmailAsUsername(true);
+        when(realmRepository.get(REALM)).thenReturn(realm);
+        when(realmRepository.newRequestBatch(REALM)).thenReturn(mock(AdminRequestBatch.class));
+
+        when(importConfigProperties.getUsers().getBulkSize()).thenReturn(10);
+        when(importConfigProperties.getUsers().getBulkPolicy()).thenReturn(ImportUsersBulkPolicy.SKIP);
+
+        when(checksumService.getChangedEntities(any(), eq("users"), anyList(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(2));
+
+        doAnswer(invocation -> {
+            invocation.<Collection<Object>>getArgument(1).forEach(invocation.<Consumer<Object>>getArgument(2));
+            return null;
+        }).when(importExecutor).forEach(anyString(), anyCollection(), any(Consumer.class));
+
+        doAnswer(invocation -> importedUsernames.add(invocation.<UserRepresentation>getArgument(1).getUsername()))
+                .when(userRepository).create(eq(REALM), any());
+        doAnswer(invocation -> {
+            invocation.<List<UserRepresentation>>getArgument(1).forEach(user -> importedUsernames.add(user.getUsername()));
+            return List.of();
+        }).when(userRepository).partialImport(eq(REALM), anyList(), any());
+
+        userImportService = new UserImportService(
+                realmRepository, userRepository, mock(RoleRepository.class), mock(GroupRepository.class),
+                mock(ClientRepository.class), mock(RequiredActionRepository.class), importConfigProperties,
+                importExecutor, checksumService
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void shouldReadEmailAsUsernameOnce(boolean bulkCreate) {
+        when(importConfigProperties.getUsers().isBulkCreate()).thenReturn(bulkCreate);
+
+        List<String> emails = IntStream.range(0, USERS)
+                .mapToObj(i -> "user" + i + "@example.com")
+                .collect(Collectors.toList());
+
+        RealmImport realmImport = new RealmImport();
+        realmImport.setRealm(REALM);
+        realmImport.setUsers(emails.stream().map(email -> {
+            UserRepresentation user = new UserRepresentation();
+            user.setEmail(email);
+            return user;
+        }).collect(Collectors.toList()));
+
+        userImportService.doImport(null, realmImport);
+
+        assertThat(importedUsernames, is(emails));
+        verify(realmRepository, times(1)).get(REALM);
+    }
+}
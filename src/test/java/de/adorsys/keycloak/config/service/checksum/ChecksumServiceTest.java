@@ -0,0 +1,322 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.checksum;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.model.RealmImportContext;
+import de.adorsys.keycloak.config.model.SectionChecksums;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportCacheProperties;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportRemoteStateProperties;
+import de.adorsys.keycloak.config.repository.RealmRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.keycloak.representations.idm.RealmRepresentation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.aMapWithSize;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(GithubActionsExtension.class)
+class ChecksumServiceTest {
+    private static final String PHASE_ATTRIBUTE = "de.adorsys.keycloak.config.import-checksum-default-phase-users";
+    private static final String ENTITIES_ATTRIBUTE = "de.adorsys.keycloak.config.import-checksum-default-entities";
+
+    @TempDir
+    Path tempDir;
+
+    private Path entityChecksumsFile;
+    private RealmRepository realmRepository;
+
+    @BeforeEach
+    void setUp() {
+        entityChecksumsFile = tempDir.resolve("entity-checksums.json");
+        realmRepository = mock(RealmRepository.class);
+    }
+
+    @Test
+    void shouldRunPhaseOnFirstImport() {
+        ChecksumService checksumService = createChecksumService(true, false);
+        RealmImportContext context = createContext(Map.of("users", List.of(Map.of("username", "user1"))), Map.of());
+
+        assertThat(checksumService.isPhaseUnchanged(context, "users", List.of("users"), List.of("roles")), is(false));
+        assertThat(context.getPhaseChecksums(), aMapWithSize(1));
+    }
+
+    @Test
+    void shouldSkipPhaseWithUnchangedSections() {
+        ChecksumService checksumService = createChecksumService(true, false);
+        Map<String, Object> document = Map.of(
+                "users", List.of(Map.of("username", "user1")),
+                "roles", Map.of("realm", List.of(Map.of("name", "role1", "description", "first")))
+        );
+
+        String phaseChecksum = importPhase(checksumService, document);
+        RealmImportContext context = createContext(document, Map.of(PHASE_ATTRIBUTE, phaseChecksum));
+
+        assertThat(checksumService.isPhaseUnchanged(context, "users", List.of("users"), List.of("roles")), is(true));
+    }
+
+    @Test
+    void shouldSkipPhaseIfOnlyContentOfReferencedSectionChanged() {
+        ChecksumService checksumService = createChecksumService(true, false);
+
+        String phaseChecksum = importPhase(checksumService, Map.of(
+                "users", List.of(Map.of("username", "user1")),
+                "roles", Map.of("realm", List.of(Map.of("name", "role1", "description", "first")))
+        ));
+        RealmImportContext context = createContext(Map.of(
+                "users", List.of(Map.of("username", "user1")),
+                "roles", Map.of("realm", List.of(Map.of("name", "role1", "description", "changed")))
+        ), Map.of(PHASE_ATTRIBUTE, phaseChecksum));
+
+        assertThat(checksumService.isPhaseUnchanged(context, "users", List.of("users"), List.of("roles")), is(true));
+    }
+
+    @Test
+    void shouldRunPhaseIfReferencedEntityIsRenamed() {
+        ChecksumService checksumService = createChecksumService(true, false);
+
+        String phaseChecksum = importPhase(checksumService, Map.of(
+                "users", List.of(Map.of("username", "user1")),
+                "roles", Map.of("realm", List.of(Map.of("name", "role1")))
+        ));
+        RealmImportContext context = createContext(Map.of(
+                "users", List.of(Map.of("username", "user1")),
+                "roles", Map.of("realm", List.of(Map.of("name", "role2")))
+        ), Map.of(PHASE_ATTRIBUTE, phaseChecksum));
+
+        assertThat(checksumService.isPhaseUnchanged(context, "users", List.of("users"), List.of("roles")), is(false));
+    }
+
+    @Test
+    void shouldRunPhaseIfForced() {
+        Map<String, Object> document = Map.of("users", List.of(Map.of("username", "user1")));
+        String phaseChecksum = importPhase(createChecksumService(true, false), document);
+
+        RealmImportContext forcedContext = createContext(document, Map.of(PHASE_ATTRIBUTE, phaseChecksum));
+        assertThat(createChecksumService(true, true).isPhaseUnchanged(forcedContext, "users", List.of("users"), List.of()), is(false));
+
+        RealmImportContext uncachedContext = createContext(document, Map.of(PHASE_ATTRIBUTE, phaseChecksum));
+        assertThat(createChecksumService(false, false).isPhaseUnchanged(uncachedContext, "users", List.of("users"), List.of()), is(false));
+    }
+
+    @Test
+    void shouldImportAllEntitiesOnFirstImport() {
+        ChecksumService checksumService = createChecksumService(true, false);
+        List<Map<String, String>> users = List.of(Map.of("username", "user1"), Map.of("username", "user2"));
+        RealmImportContext context = createContext(Map.of("users", users), Map.of());
+        checksumService.isPhaseUnchanged(context, "users", List.of("users"), List.of("roles"));
+
+        assertThat(checksumService.getChangedEntities(context, "users", users, user -> user.get("username")), is(users));
+        assertThat(context.getEntityChecksums().get("users"), aMapWithSize(2));
+    }
+
+    @Test
+    void shouldSkipUnchangedEntities() {
+        ChecksumService checksumService = createChecksumService(true, false);
+        Map<String, String> user1 = Map.of("username", "user1");
+        Map<String, String> user2 = Map.of("username", "user2", "email", "user2@example.com");
+
+        Map<String, String> stateAttributes = importEntities(checksumService, List.of(user1, Map.of("username", "user2")), "role1");
+
+        RealmImportContext context = createContext(
+                Map.of("users", List.of(user1, user2), "roles", Map.of("realm", List.of(Map.of("name", "role1")))),
+                stateAttributes
+        );
+        checksumService.isPhaseUnchanged(context, "users", List.of("users"), List.of("roles"));
+
+        assertThat(checksumService.getChangedEntities(context, "users", List.of(user1, user2), user -> user.get("username")), contains(user2));
+        assertThat(context.getEntityChecksums().get("users"), aMapWithSize(2));
+    }
+
+    @Test
+    void shouldKeepEntityChecksumsOutOfRealmAttributes() {
+        ChecksumService checksumService = createChecksumService(true, false);
+        List<Map<String, String>> users = List.of(Map.of("username", "user1"), Map.of("username", "user2"));
+
+        Map<String, String> stateAttributes = importEntities(checksumService, users, "role1");
+
+        assertThat(stateAttributes.keySet(), contains(ENTITIES_ATTRIBUTE));
+    }
+
+    @Test
+    void shouldKeyEntityChecksumsWithSecretOfFile() throws Exception {
+        List<Map<String, String>> users = List.of(Map.of("username", "user1", "credentials", "secret"));
+
+        ChecksumService checksumService = createChecksumService(true, false);
+        importEntities(checksumService, users, "role1");
+        String checksum = readChecksum("user1");
+
+        Files.delete(entityChecksumsFile);
+        importEntities(createChecksumService(true, false), users, "role1");
+
+        assertThat(readChecksum("user1"), is(not(checksum)));
+    }
+
+    @Test
+    void shouldImportAllEntitiesIfRealmHasOtherToken() {
+        ChecksumService checksumService = createChecksumService(true, false);
+        List<Map<String, String>> users = List.of(Map.of("username", "user1"));
+
+        Map<String, String> stateAttributes = new HashMap<>(importEntities(checksumService, users, "role1"));
+        stateAttributes.put(ENTITIES_ATTRIBUTE, "other");
+
+        RealmImportContext context = createContext(Map.of("users", users, "roles", Map.of("realm", List.of(Map.of("name", "role1")))),
+                stateAttributes);
+        checksumService.isPhaseUnchanged(context, "users", List.of("users"), List.of("roles"));
+
+        assertThat(checksumService.getChangedEntities(context, "users", users, user -> user.get("username")), is(users));
+    }
+
+    @Test
+    void shouldImportAllEntitiesIfReferencedEntityIsRenamed() {
+        ChecksumService checksumService = createChecksumService(true, false);
+        List<Map<String, String>> users = List.of(Map.of("username", "user1"));
+
+        Map<String, String> stateAttributes = importEntities(checksumService, users, "role1");
+
+        RealmImportContext context = createContext(Map.of("users", users, "roles", Map.of("realm", List.of(Map.of("name", "role2")))),
+                stateAttributes);
+        checksumService.isPhaseUnchanged(context, "users", List.of("users"), List.of("roles"));
+
+        assertThat(checksumService.getChangedEntities(context, "users", users, user -> user.get("username")), is(users));
+    }
+
+    @Test
+    void shouldImportEntitiesWithRepeatedKey() {
+        ChecksumService checksumService = createChecksumService(true, false);
+        List<Map<String, String>> users = List.of(
+                Map.of("username", "user1"),
+                Map.of("username", "user1", "email", "user1@example.com"),
+                Map.of("username", "user2")
+        );
+
+        Map<String, String> stateAttributes = importEntities(checksumService, users, "role1");
+
+        RealmImportContext context = createContext(Map.of("users", users, "roles", Map.of("realm", List.of(Map.of("name", "role1")))),
+                stateAttributes);
+        checksumService.isPhaseUnchanged(context, "users", List.of("users"), List.of("roles"));
+
+        assertThat(checksumService.getChangedEntities(context, "users", users, user -> user.get("username")), is(users.subList(0, 2)));
+    }
+
+    @Test
+    void shouldImportAllEntitiesOnFullReconcile() {
+        ChecksumService checksumService = createChecksumService(true, false);
+        List<Map<String, String>> users = List.of(Map.of("username", "user1"));
+
+        Map<String, String> stateAttributes = importEntities(checksumService, users, "role1");
+
+        RealmImportContext context = createContext(Map.of("users", users, "roles", Map.of("realm", List.of(Map.of("name", "role1")))),
+                stateAttributes);
+        context.setFullReconcile(true);
+
+        assertThat(checksumService.isPhaseUnchanged(context, "users", List.of("users"), List.of("roles")), is(false));
+        assertThat(checksumService.getChangedEntities(context, "users", users, user -> user.get("username")), is(users));
+        assertThat(context.getEntityChecksums().get("users"), aMapWithSize(1));
+    }
+
+    @Test
+    void shouldNotComputeEntityChecksumsWithoutFile() {
+        ImportConfigProperties properties = createProperties(true, false, null);
+        ChecksumService checksumService = new ChecksumService(null, new EntityChecksumStore(properties), properties);
+        List<Map<String, String>> users = List.of(Map.of("username", "user1"));
+
+        RealmImportContext context = createContext(Map.of("users", users), Map.of());
+        checksumService.isPhaseUnchanged(context, "users", List.of("users"), List.of("roles"));
+
+        assertThat(checksumService.getChangedEntities(context, "users", users, user -> user.get("username")), is(users));
+        assertThat(context.getEntityChecksums().entrySet(), empty());
+    }
+
+    private Map<String, String> importEntities(ChecksumService checksumService, List<Map<String, String>> users, String role) {
+        Map<String, Object> document = Map.of("users", users, "roles", Map.of("realm", List.of(Map.of("name", role))));
+
+        RealmImportContext context = createContext(document, Map.of());
+        checksumService.isPhaseUnchanged(context, "users", List.of("users"), List.of("roles"));
+        checksumService.getChangedEntities(context, "users", users, user -> user.get("username"));
+
+        RealmRepresentation realm = new RealmRepresentation();
+        realm.setAttributes(new HashMap<>());
+        when(realmRepository.get("test")).thenReturn(realm);
+
+        checksumService.doImport(context);
+
+        // only the checksums of the entities, the import and phase checksums are not needed by these tests
+        realm.getAttributes().keySet().removeIf(key -> !key.equals(ENTITIES_ATTRIBUTE));
+        return realm.getAttributes();
+    }
+
+    private String readChecksum(String username) throws IOException {
+        return new ObjectMapper().readTree(entityChecksumsFile.toFile())
+                .path("realms").path("test").path("phases").path("users").path(username).asText();
+    }
+
+    private static String importPhase(ChecksumService checksumService, Map<String, Object> document) {
+        RealmImportContext context = createContext(document, Map.of());
+        checksumService.isPhaseUnchanged(context, "users", List.of("users"), List.of("roles"));
+
+        return context.getPhaseChecksums().get("users");
+    }
+
+    private ChecksumService createChecksumService(boolean cacheEnabled, boolean force) {
+        ImportConfigProperties properties = createProperties(cacheEnabled, force, entityChecksumsFile.toString());
+
+        return new ChecksumService(realmRepository, new EntityChecksumStore(properties), properties);
+    }
+
+    private static ImportConfigProperties createProperties(boolean cacheEnabled, boolean force, String entityChecksumsFile) {
+        return new ImportConfigProperties(
+                true, false, null, null, null, null,
+                new ImportCacheProperties(cacheEnabled, "default", force, Duration.ZERO, entityChecksumsFile), null,
+                new ImportRemoteStateProperties(true, null, null), null
+        );
+    }
+
+    private static RealmImportContext createContext(Map<String, Object> document, Map<String, String> stateAttributes) {
+        RealmImport realmImport = new RealmImport();
+        realmImport.setRealm("test");
+        realmImport.setSectionChecksums(new SectionChecksums(document));
+
+        RealmImportContext context = new RealmImportContext(realmImport);
+        context.setStateAttributes(new HashMap<>(stateAttributes));
+
+        return context;
+    }
+}
@@ -0,0 +1,268 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.executor;
+
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportExecutorProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(GithubActionsExtension.class)
+class ImportExecutorTest {
+    private ImportExecutor importExecutor;
+
+    @AfterEach
+    void destroy() {
+        importExecutor.destroy();
+    }
+
+    @Test
+    void shouldRunSequentialInOrder() {
+        importExecutor = createImportExecutor(false, 4, 4);
+
+        List<Integer> items = range(100);
+        List<Integer> processed = new ArrayList<>();
+        Thread caller = Thread.currentThread();
+
+        importExecutor.forEach("items", items, item -> {
+            assertThat(Thread.currentThread(), is(caller));
+            processed.add(item);
+        });
+
+        assertThat(processed, is(items));
+    }
+
+    @Test
+    void shouldRunAllItemsWithLimitedConcurrency() {
+        importExecutor = createImportExecutor(true, 8, 3);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+
+        importExecutor.forEach("items", range(60), item -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep();
+            processed.add(item);
+            running.decrementAndGet();
+        });
+
+        assertThat(processed.size(), is(60));
+        assertThat(processed.stream().sorted().collect(Collectors.toList()), is(range(60)));
+        assertThat(maxRunning.get(), lessThanOrEqualTo(3));
+        assertThat(maxRunning.get(), greaterThan(1));
+    }
+
+    @Test
+    void shouldRunWithExplicitConcurrencyIfNotParallel() {
+        importExecutor = createImportExecutor(false, 8, 8);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+
+        importExecutor.forEach("pages", range(30), 2, item -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep();
+            processed.add(item);
+            running.decrementAndGet();
+        });
+
+        assertThat(processed.stream().sorted().collect(Collectors.toList()), is(range(30)));
+        assertThat(maxRunning.get(), is(2));
+    }
+
+    @Test
+    void shouldRethrowFirstFailureAndStopProcessing() {
+        importExecutor = createImportExecutor(true, 4, 4);
+
+        AtomicInteger started = new AtomicInteger();
+
+        ImportProcessingException thrown = assertThrows(ImportProcessingException.class,
+                () -> importExecutor.forEach("items", range(1000), item -> {
+                    started.incrementAndGet();
+                    sleep();
+                    if (item == 5) {
+                        throw new ImportProcessingException("item %d failed", item);
+                    }
+                })
+        );
+
+        assertThat(thrown.getMessage(), is("item 5 failed"));
+        assertThat(started.get(), lessThan(1000));
+    }
+
+    @Test
+    void shouldNotDeadlockOnNestedBatches() {
+        importExecutor = createImportExecutor(true, 1, 4);
+
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+
+        importExecutor.forEach("outer", range(4), outer ->
+                importExecutor.forEach("inner", range(4), inner -> processed.add(outer * 4 + inner))
+        );
+
+        assertThat(processed.stream().sorted().collect(Collectors.toList()), is(range(16)));
+    }
+
+    @Test
+    void shouldUsePoolThreads() {
+        importExecutor = createImportExecutor(true, 4, 4);
+
+        ConcurrentHashMap.KeySetView<String, Boolean> threadNames = ConcurrentHashMap.newKeySet();
+
+        importExecutor.forEach("items", range(40), item -> {
+            sleep();
+            threadNames.add(Thread.currentThread().getName());
+        });
+
+        assertThat(threadNames.stream().filter(name -> name.startsWith("import-")).count(), greaterThan(0L));
+        assertThat(threadNames.size(), lessThanOrEqualTo(4));
+    }
+
+    @Test
+    void shouldRunPhasesSequentialInDeclarationOrder() {
+        importExecutor = createImportExecutor(false, 4, 4);
+
+        List<String> processed = new ArrayList<>();
+
+        importExecutor.run("test", new PhaseGraph()
+                .add("a", () -> processed.add("a"))
+                .add("b", () -> processed.add("b"))
+                .add("c", () -> processed.add("c"), "a")
+        );
+
+        assertThat(processed, contains("a", "b", "c"));
+    }
+
+    @Test
+    void shouldRunPhasesAfterTheirDependencies() {
+        importExecutor = createImportExecutor(true, 4, 4);
+
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch independentPhasesStarted = new CountDownLatch(2);
+
+        importExecutor.run("test", new PhaseGraph()
+                .add("a", () -> {
+                    independentPhasesStarted.countDown();
+                    await(independentPhasesStarted);
+                    processed.add("a");
+                })
+                .add("b", () -> {
+                    independentPhasesStarted.countDown();
+                    await(independentPhasesStarted);
+                    processed.add("b");
+                })
+                .add("c", () -> processed.add("c"), "a", "b")
+                .add("d", () -> processed.add("d"), "c")
+        );
+
+        assertThat(processed, containsInAnyOrder("a", "b", "c", "d"));
+        assertThat(processed.subList(2, 4), contains("c", "d"));
+    }
+
+    @Test
+    void shouldSkipDependentPhasesAfterFailure() {
+        importExecutor = createImportExecutor(true, 4, 4);
+
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+
+        ImportProcessingException thrown = assertThrows(ImportProcessingException.class,
+                () -> importExecutor.run("test", new PhaseGraph()
+                        .add("a", () -> {
+                            throw new ImportProcessingException("phase a failed");
+                        })
+                        .add("b", () -> processed.add("b"), "a")
+                        .add("c", () -> processed.add("c"), "b")
+                )
+        );
+
+        assertThat(thrown.getMessage(), is("phase a failed"));
+        assertThat(processed, empty());
+    }
+
+    @Test
+    void shouldNotDeadlockOnBatchesInPhases() {
+        importExecutor = createImportExecutor(true, 1, 4);
+
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+
+        importExecutor.run("test", new PhaseGraph()
+                .add("a", () -> importExecutor.forEach("a", range(4), processed::add))
+                .add("b", () -> importExecutor.forEach("b", range(4), item -> processed.add(item + 4)))
+                .add("c", () -> importExecutor.forEach("c", range(4), item -> processed.add(item + 8)), "a", "b")
+        );
+
+        assertThat(processed.stream().sorted().collect(Collectors.toList()), is(range(12)));
+    }
+
+    private static ImportExecutor createImportExecutor(boolean parallel, int threads, int phaseConcurrency) {
+        ImportConfigProperties properties = new ImportConfigProperties(
+                true, parallel, new ImportExecutorProperties(threads, phaseConcurrency, 1),
+                null, null, null, null, null, null, null
+        );
+
+        return new ImportExecutor(properties);
+    }
+
+    private static List<Integer> range(int size) {
+        return IntStream.range(0, size).boxed().collect(Collectors.toList());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.executor;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(GithubActionsExtension.class)
+class PhaseGraphTest {
+    private static final Runnable NOOP = () -> {
+    };
+
+    @Test
+    void shouldDescribeDependencies() {
+        PhaseGraph graph = new PhaseGraph()
+                .add("a", NOOP)
+                .add("b", NOOP)
+                .add("c", NOOP, "a", "b");
+
+        assertThat(graph.toString(), is("a, b, c <- [a, b]"));
+    }
+
+    @Test
+    void shouldRejectUnknownDependency() {
+        PhaseGraph graph = new PhaseGraph().add("a", NOOP);
+
+        assertThrows(IllegalArgumentException.class, () -> graph.add("b", NOOP, "c"));
+    }
+
+    @Test
+    void shouldReturnPhaseByName() {
+        PhaseGraph graph = new PhaseGraph()
+                .add("a", NOOP)
+                .add("b", NOOP, "a");
+
+        assertThat(graph.getPhase("b").getDependencies(), contains("a"));
+        assertThrows(IllegalArgumentException.class, () -> graph.getPhase("c"));
+    }
+
+    @Test
+    void shouldRejectDuplicatePhase() {
+        PhaseGraph graph = new PhaseGraph().add("a", NOOP);
+
+        assertThrows(IllegalArgumentException.class, () -> graph.add("a", NOOP));
+    }
+}
@@ -21,9 +21,19 @@
 package de.adorsys.keycloak.config.util;
 
 import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.ConnectionPool;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.HttpEngine;
+import de.adorsys.keycloak.config.util.resteasy.ConnectionPoolStatistics;
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.time.Duration;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @ExtendWith(GithubActionsExtension.class)
@@ -32,4 +42,19 @@ class ResteasyUtilTest {
     void shouldThrowOnNew() {
         assertThrows(IllegalStateException.class, ResteasyUtil::new);
     }
+
+    @Test
+    void shouldBuildClientWithConnectionPool() {
+        ConnectionPool connectionPool = new ConnectionPool(20, 5, Duration.ofMinutes(1), Duration.ofSeconds(30));
+
+        ResteasyClient client = ResteasyUtil.getClient(
+                false, null, Duration.ofSeconds(10), Duration.ofSeconds(10), HttpEngine.APACHE, 1, connectionPool, new ConnectionPoolStatistics(), List.of()
+        );
+
+        try {
+            assertThat(client.httpEngine(), instanceOf(ApacheHttpClient43Engine.class));
+        } finally {
+            client.close();
+        }
+    }
 }
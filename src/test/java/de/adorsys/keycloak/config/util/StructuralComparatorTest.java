@@ -0,0 +1,367 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.keycloak.common.util.MultivaluedHashMap;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.ComponentExportRepresentation;
+import org.keycloak.representations.idm.ComponentRepresentation;
+import org.keycloak.representations.idm.CredentialRepresentation;
+import org.keycloak.representations.idm.ProtocolMapperRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.keycloak.representations.idm.authorization.PolicyRepresentation;
+import org.keycloak.representations.idm.authorization.ResourceRepresentation;
+import org.keycloak.representations.idm.authorization.ScopeRepresentation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@ExtendWith(GithubActionsExtension.class)
+class StructuralComparatorTest {
+    private static final ObjectMapper mapper = new ObjectMapper().setSerializationInclusion(Include.NON_NULL);
+
+    private final StructuralComparator comparator = new StructuralComparator(mapper);
+
+    @Test
+    void shouldCompareUsersLikeTrees() {
+        assertSameResultsAsTrees(variants(StructuralComparatorTest::user,
+                user -> user.setEmail("changed@example.com"),
+                user -> user.setEmail(null),
+                user -> user.setEnabled(false),
+                user -> user.setEnabled(null),
+                user -> user.setRealmRoles(null),
+                user -> user.setRealmRoles(new ArrayList<>()),
+                user -> user.setRealmRoles(List.of("role2", "role1")),
+                user -> user.setRealmRoles(Arrays.asList("role1", null)),
+                user -> user.setCreatedTimestamp(1L),
+                user -> user.getAttributes().put("empty", null),
+                user -> user.getAttributes().put("locale", List.of("de")),
+                user -> user.setAttributes(new HashMap<>()),
+                user -> user.setAttributes(null),
+                user -> user.setClientRoles(Map.of("client", List.of("role"))),
+                user -> user.setCredentials(List.of(credential("secret"))),
+                user -> user.setCredentials(List.of(credential("other")))
+        ), "id", "access");
+    }
+
+    @Test
+    void shouldCompareClientsLikeTrees() {
+        assertSameResultsAsTrees(variants(StructuralComparatorTest::client,
+                client -> client.setRedirectUris(List.of("https://other.example.com/*")),
+                client -> client.setPublicClient(true),
+                client -> client.getAttributes().put("pkce.code.challenge.method", "S256"),
+                client -> client.getAttributes().put("pkce.code.challenge.method", null),
+                client -> client.getProtocolMappers().get(0).getConfig().put("claim.name", "other"),
+                client -> client.getProtocolMappers().get(0).setId("id"),
+                client -> client.setProtocolMappers(null),
+                client -> client.setDefaultClientScopes(List.of()),
+                client -> client.setNodeReRegistrationTimeout(-1)
+        ), "id", "access", "protocolMappers");
+    }
+
+    @Test
+    void shouldCompareAuthorizationResourcesLikeTrees() {
+        assertSameResultsAsTrees(variants(StructuralComparatorTest::resource,
+                resource -> resource.setScopes(new LinkedHashSet<>()),
+                resource -> resource.setScopes(null),
+                resource -> resource.setScopes(Set.of(new ScopeRepresentation("other"))),
+                resource -> resource.setUris(Set.of("/other")),
+                resource -> resource.setUris(new HashSet<>()),
+                resource -> resource.setOwnerManagedAccess(true),
+                resource -> resource.setAttributes(Map.of("key", List.of("value")))
+        ), "id");
+
+        assertSameResultsAsTrees(variants(StructuralComparatorTest::policy,
+                policy -> policy.setConfig(Map.of("roles", "[]")),
+                policy -> policy.setResources(Set.of()),
+                policy -> policy.setResources(Set.of("resource")),
+                policy -> policy.setDescription("changed")
+        ), "id");
+    }
+
+    @Test
+    void shouldCompareComponentsLikeTrees() {
+        assertSameResultsAsTrees(variants(StructuralComparatorTest::component,
+                component -> component.getConfig().putSingle("priority", "100"),
+                component -> component.getConfig().put("keySize", new ArrayList<>()),
+                component -> component.getSubComponents().add("sub", subComponent("other")),
+                component -> component.setSubComponents(new MultivaluedHashMap<>())
+        ));
+    }
+
+    @Test
+    void shouldCompareDifferentTypesLikeTrees() {
+        ComponentRepresentation component = new ComponentRepresentation();
+        component.setName("rsa");
+        component.setProviderId("rsa-generated");
+        component.setConfig(new MultivaluedHashMap<>(Map.of("priority", List.of("100"))));
+
+        ComponentExportRepresentation exportedComponent = component();
+        exportedComponent.setSubComponents(null);
+
+        assertSameResultsAsTrees(List.of(component, exportedComponent, component()));
+        assertSameResultsAsTrees(Stream.of(1, 1L, 1.0, (short) 1, "1", true, Include.ALWAYS, "ALWAYS", List.of(1), new int[]{1})
+                .map(value -> Map.of("value", value))
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void shouldCompareUnsupportedTypesLikeTrees() {
+        assertSameResultsAsTrees(variants(() -> new Annotated("value", List.of("a", "b")),
+                annotated -> annotated.value = null,
+                annotated -> annotated.values = List.of(),
+                annotated -> annotated.values = null,
+                annotated -> annotated.dynamic.put("key", "value"),
+                annotated -> annotated.dynamic.put("key", null),
+                annotated -> annotated.described = new Described("other"),
+                annotated -> annotated.serialized = new Described("other"),
+                annotated -> annotated.unsupported = new ClassInclusion(),
+                annotated -> {
+                    annotated.unsupported = new ClassInclusion();
+                    annotated.unsupported.map.put("key", null);
+                }
+        ));
+    }
+
+    @Test
+    void shouldWalkRepresentationsWithoutTrees() {
+        AtomicInteger trees = new AtomicInteger();
+        ObjectMapper countingMapper = new ObjectMapper() {
+            @Override
+            public <T extends JsonNode> T valueToTree(Object fromValue) {
+                trees.incrementAndGet();
+                return super.valueToTree(fromValue);
+            }
+        };
+        StructuralComparator walkingComparator = new StructuralComparator(countingMapper.setSerializationInclusion(Include.NON_NULL));
+
+        UserRepresentation changedUser = user();
+        changedUser.setEmail("changed@example.com");
+        ClientRepresentation changedClient = client();
+        changedClient.getProtocolMappers().get(0).getConfig().put("claim.name", "other");
+
+        assertThat(walkingComparator.objectEquals(user(), user(), Set.of()), is(true));
+        assertThat(walkingComparator.objectEquals(user(), changedUser, Set.of()), is(false));
+        assertThat(walkingComparator.objectEquals(client(), client(), Set.of()), is(true));
+        assertThat(walkingComparator.objectEquals(client(), changedClient, Set.of()), is(false));
+        assertThat(walkingComparator.objectEquals(resource(), resource(), Set.of()), is(true));
+        assertThat(walkingComparator.objectEquals(policy(), policy(), Set.of()), is(true));
+        assertThat(walkingComparator.objectEquals(component(), component(), Set.of()), is(true));
+        assertThat(trees.get(), is(0));
+    }
+
+    @Test
+    void shouldCompareMapsWithIgnoredProperties() {
+        Map<String, Object> origin = new LinkedHashMap<>(Map.of("id", "1", "name", "name"));
+        Map<String, Object> other = new LinkedHashMap<>(Map.of("id", "2", "name", "name"));
+        other.put("absent", null);
+
+        assertThat(comparator.objectEquals(origin, other, Set.of("id")), is(true));
+        assertThat(comparator.objectEquals(origin, other, Set.of()), is(false));
+    }
+
+    private void assertSameResultsAsTrees(List<?> objects, String... ignoredProperties) {
+        for (Object origin : objects) {
+            for (Object other : objects) {
+                boolean expected = treeEquals(origin, other, ignoredProperties);
+
+                assertThat(String.format("%s == %s", mapper.valueToTree(origin), mapper.valueToTree(other)),
+                        comparator.objectEquals(origin, other, Set.of(ignoredProperties)), is(expected));
+            }
+        }
+    }
+
+    private static boolean treeEquals(Object origin, Object other, String... ignoredProperties) {
+        JsonNode originNode = mapper.valueToTree(origin);
+        JsonNode otherNode = mapper.valueToTree(other);
+
+        if (originNode instanceof ObjectNode && otherNode instanceof ObjectNode) {
+            ((ObjectNode) originNode).remove(Arrays.asList(ignoredProperties));
+            ((ObjectNode) otherNode).remove(Arrays.asList(ignoredProperties));
+        }
+
+        return Objects.equals(originNode, otherNode);
+    }
+
+    // the unchanged object, a copy of it and one object per change
+    @SafeVarargs
+    private static <T> List<T> variants(Supplier<T> factory, Consumer<T>... changes) {
+        List<T> variants = new ArrayList<>();
+        variants.add(factory.get());
+        variants.add(factory.get());
+
+        for (Consumer<T> change : changes) {
+            T variant = factory.get();
+            change.accept(variant);
+            variants.add(variant);
+        }
+
+        return variants;
+    }
+
+    private static UserRepresentation user() {
+        UserRepresentation user = new UserRepresentation();
+        user.setUsername("user1");
+        user.setEmail("user1@example.com");
+        user.setEnabled(true);
+        user.setRealmRoles(List.of("role1", "role2"));
+        user.setAttributes(new HashMap<>(Map.of("locale", List.of("en"))));
+        user.setGroups(List.of("/group1"));
+        return user;
+    }
+
+    private static CredentialRepresentation credential(String value) {
+        CredentialRepresentation credential = new CredentialRepresentation();
+        credential.setType(CredentialRepresentation.PASSWORD);
+        credential.setValue(value);
+        credential.setTemporary(false);
+        return credential;
+    }
+
+    private static ClientRepresentation client() {
+        ProtocolMapperRepresentation protocolMapper = new ProtocolMapperRepresentation();
+        protocolMapper.setName("mapper");
+        protocolMapper.setProtocol("openid-connect");
+        protocolMapper.setProtocolMapper("oidc-usermodel-attribute-mapper");
+        protocolMapper.setConfig(new HashMap<>(Map.of("claim.name", "claim")));
+
+        ClientRepresentation client = new ClientRepresentation();
+        client.setClientId("client");
+        client.setRedirectUris(List.of("https://example.com/*"));
+        client.setPublicClient(false);
+        client.setAttributes(new HashMap<>(Map.of("post.logout.redirect.uris", "+")));
+        client.setProtocolMappers(List.of(protocolMapper));
+        client.setDefaultClientScopes(List.of("profile", "email"));
+        return client;
+    }
+
+    private static ResourceRepresentation resource() {
+        ResourceRepresentation resource = new ResourceRepresentation("resource", new LinkedHashSet<>(List.of(new ScopeRepresentation("view"))));
+        resource.setUris(new LinkedHashSet<>(List.of("/resource")));
+        resource.setType("urn:resource");
+        return resource;
+    }
+
+    private static PolicyRepresentation policy() {
+        PolicyRepresentation policy = new PolicyRepresentation();
+        policy.setName("policy");
+        policy.setType("role");
+        policy.setConfig(Map.of("roles", "[{\"id\":\"role1\"}]"));
+        return policy;
+    }
+
+    private static ComponentExportRepresentation component() {
+        ComponentExportRepresentation component = new ComponentExportRepresentation();
+        component.setName("rsa");
+        component.setProviderId("rsa-generated");
+        component.setConfig(new MultivaluedHashMap<>(Map.of("priority", List.of("100"))));
+        component.getConfig().putSingle("priority", "100");
+        component.getSubComponents().add("sub", subComponent("sub"));
+        return component;
+    }
+
+    private static ComponentExportRepresentation subComponent(String name) {
+        ComponentExportRepresentation component = new ComponentExportRepresentation();
+        component.setName(name);
+        return component;
+    }
+
+    @SuppressWarnings("unused")
+    public static class Annotated {
+        @JsonInclude(Include.ALWAYS)
+        public String value;
+
+        @JsonInclude(Include.NON_EMPTY)
+        public List<String> values;
+
+        @JsonInclude(Include.NON_NULL)
+        public Map<String, String> dynamic = new HashMap<>();
+
+        public Described described = new Described("value");
+
+        @JsonSerialize(using = ToStringSerializer.class)
+        public Described serialized = new Described("value");
+
+        public ClassInclusion unsupported;
+
+        public Annotated(String value, List<String> values) {
+            this.value = value;
+            this.values = values;
+        }
+    }
+
+    public static class Described {
+        private final String description;
+
+        public Described(String description) {
+            this.description = description;
+        }
+
+        @JsonValue
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public String toString() {
+            return "described";
+        }
+    }
+
+    @JsonInclude(Include.NON_NULL)
+    @SuppressWarnings("unused")
+    public static class ClassInclusion {
+        public Map<String, String> map = new HashMap<>();
+
+        @JsonAnyGetter
+        public Map<String, String> getAny() {
+            return Map.of("any", "value");
+        }
+    }
+}
@@ -0,0 +1,336 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonMerge;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.adorsys.keycloak.config.assets.TestObject;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.keycloak.common.util.MultivaluedHashMap;
+import org.keycloak.representations.idm.AuthenticationExecutionExportRepresentation;
+import org.keycloak.representations.idm.AuthenticationFlowRepresentation;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.ComponentExportRepresentation;
+import org.keycloak.representations.idm.ComponentRepresentation;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.IdentityProviderRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+@ExtendWith(GithubActionsExtension.class)
+class StructuralPatcherTest {
+    private static final ObjectMapper nonNullMapper = new ObjectMapper().setSerializationInclusion(Include.NON_NULL);
+    private static final ObjectMapper nonFailingMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    static {
+        nonNullMapper.setDefaultMergeable(true);
+    }
+
+    private final StructuralPatcher patcher = new StructuralPatcher(nonNullMapper, nonFailingMapper);
+
+    @Test
+    void shouldPatchUsersLikeUpdatingReader() {
+        assertSameResultsAsUpdatingReader(variants(StructuralPatcherTest::user,
+                user -> user.setEmail("changed@example.com"),
+                user -> user.setEmail(null),
+                user -> user.setEnabled(null),
+                user -> user.setRealmRoles(List.of("role3")),
+                user -> user.setRealmRoles(new ArrayList<>()),
+                user -> user.setAttributes(new HashMap<>(Map.of("other", List.of("value")))),
+                user -> user.setClientRoles(Map.of("client", List.of("role"))),
+                user -> user.setId("id")
+        ), "realmRoles", "clientRoles");
+    }
+
+    @Test
+    void shouldPatchClientsLikeUpdatingReader() {
+        assertSameResultsAsUpdatingReader(variants(StructuralPatcherTest::client,
+                client -> client.setRedirectUris(List.of("https://other.example.com/*")),
+                client -> client.setPublicClient(true),
+                client -> client.setAttributes(Map.of("pkce.code.challenge.method", "S256")),
+                client -> client.setAuthenticationFlowBindingOverrides(Map.of("browser", "flow")),
+                client -> client.setDefaultClientScopes(null)
+        ), "authenticationFlowBindingOverrides", "authorizationSettings");
+    }
+
+    @Test
+    void shouldPatchGroupsAndRolesLikeUpdatingReader() {
+        assertSameResultsAsUpdatingReader(variants(StructuralPatcherTest::group,
+                group -> group.setSubGroups(List.of()),
+                group -> group.setSubGroups(null),
+                group -> group.getSubGroups().get(0).setAttributes(Map.of("key", List.of("value"))),
+                group -> group.setPath("/other")
+        ));
+
+        assertSameResultsAsUpdatingReader(variants(StructuralPatcherTest::role,
+                role -> role.setComposite(true),
+                role -> role.setComposites(new RoleRepresentation.Composites()),
+                role -> role.setDescription(null),
+                role -> role.setAttributes(Map.of())
+        ), "composites");
+    }
+
+    @Test
+    void shouldPatchFlowsAndIdentityProvidersLikeUpdatingReader() {
+        assertSameResultsAsUpdatingReader(variants(StructuralPatcherTest::flow,
+                flow -> flow.setTopLevel(false),
+                flow -> flow.setAuthenticationExecutions(List.of()),
+                flow -> flow.getAuthenticationExecutions().get(0).setPriority(20)
+        ));
+
+        assertSameResultsAsUpdatingReader(variants(StructuralPatcherTest::identityProvider,
+                identityProvider -> identityProvider.setConfig(Map.of("clientId", "other")),
+                identityProvider -> identityProvider.setEnabled(false),
+                identityProvider -> identityProvider.setInternalId("id")
+        ));
+    }
+
+    @Test
+    void shouldPatchWithOtherTypeLikeUpdatingReader() {
+        List<ComponentRepresentation> origins = variants(StructuralPatcherTest::component,
+                component -> component.setConfig(new MultivaluedHashMap<>(Map.of("priority", List.of("0")))),
+                component -> component.setSubType("sub")
+        );
+        List<ComponentExportRepresentation> patches = variants(StructuralPatcherTest::exportedComponent,
+                component -> component.getConfig().putSingle("priority", "200"),
+                component -> component.getSubComponents().add("sub", new ComponentExportRepresentation()),
+                component -> component.setId("id")
+        );
+
+        assertThat(patcher.canPatch(ComponentRepresentation.class, ComponentExportRepresentation.class), is(true));
+
+        for (ComponentRepresentation origin : origins) {
+            for (ComponentExportRepresentation patch : patches) {
+                assertSamePatch(origin, patch, "id");
+            }
+        }
+    }
+
+    @Test
+    void shouldPatchOtherBeansWithUpdatingReader() {
+        assertThat(patcher.canPatch(TestObject.class, TestObject.class), is(false));
+        assertThat(patcher.canPatch(SetterlessObject.class, SetterlessObject.class), is(false));
+        assertThat(patcher.canPatch(MergedObject.class, MergedObject.class), is(false));
+        assertThat(patcher.canPatch(UserRepresentation.class, ClientRepresentation.class), is(false));
+
+        SetterlessObject origin = new SetterlessObject();
+        origin.getValues().add("origin");
+        SetterlessObject patch = new SetterlessObject();
+        patch.getValues().add("patch");
+
+        // the updating reader adds to collections without setter
+        assertThat(CloneUtil.patch(origin, patch).getValues(), contains("origin", "patch"));
+    }
+
+    @Test
+    void shouldNotShareValuesWithOriginOrPatch() {
+        UserRepresentation origin = user();
+        UserRepresentation patch = new UserRepresentation();
+        patch.setGroups(new ArrayList<>(List.of("/group2")));
+
+        UserRepresentation patched = CloneUtil.patch(origin, patch);
+        patched.getAttributes().put("other", List.of("value"));
+        patched.getGroups().add("/group3");
+
+        assertThat(origin.getAttributes().containsKey("other"), is(false));
+        assertThat(patch.getGroups(), contains("/group2"));
+        assertThat(CloneUtil.patch(origin, null), sameInstance(origin));
+    }
+
+    private <T> void assertSameResultsAsUpdatingReader(List<T> objects, String... ignoredProperties) {
+        assertThat(patcher.canPatch(objects.get(0).getClass(), objects.get(0).getClass()), is(true));
+
+        for (T origin : objects) {
+            for (T patch : objects) {
+                assertSamePatch(origin, patch, ignoredProperties);
+            }
+        }
+    }
+
+    private void assertSamePatch(Object origin, Object patch, String... ignoredProperties) {
+        Object expected = patchWithUpdatingReader(origin, patch, ignoredProperties);
+        Object patched = patcher.patch(origin, patch, ignoredProperties);
+
+        assertThat(patched.getClass(), is(sameInstance(expected.getClass())));
+        assertThat(String.format("%s patched with %s", toTree(origin), toTree(patch)), toTree(patched), is(toTree(expected)));
+    }
+
+    // the patch of CloneUtil before the structural patcher
+    private static Object patchWithUpdatingReader(Object origin, Object patch, String... ignoredProperties) {
+        try {
+            Object clonedOrigin = nonFailingMapper.treeToValue(nonNullMapper.valueToTree(origin), origin.getClass());
+
+            ObjectNode patchNode = nonNullMapper.valueToTree(patch);
+            patchNode.remove(Arrays.asList(ignoredProperties));
+            Object clonedPatch = nonFailingMapper.treeToValue(patchNode, patch.getClass());
+
+            JsonNode clonedPatchNode = nonNullMapper.valueToTree(clonedPatch);
+            return nonFailingMapper.readerForUpdating(clonedOrigin).readValue(clonedPatchNode);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static JsonNode toTree(Object object) {
+        return nonNullMapper.valueToTree(object);
+    }
+
+    // the unchanged object, an empty one and one object per change
+    @SafeVarargs
+    private static <T> List<T> variants(Supplier<T> factory, Consumer<T>... changes) {
+        List<T> variants = new ArrayList<>();
+        variants.add(factory.get());
+
+        for (Consumer<T> change : changes) {
+            T variant = factory.get();
+            change.accept(variant);
+            variants.add(variant);
+        }
+
+        try {
+            @SuppressWarnings("unchecked")
+            T empty = (T) variants.get(0).getClass().getConstructor().newInstance();
+            variants.add(empty);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return variants;
+    }
+
+    private static UserRepresentation user() {
+        UserRepresentation user = new UserRepresentation();
+        user.setUsername("user1");
+        user.setEmail("user1@example.com");
+        user.setEnabled(true);
+        user.setRealmRoles(List.of("role1", "role2"));
+        user.setAttributes(new HashMap<>(Map.of("locale", List.of("en"))));
+        user.setGroups(List.of("/group1"));
+        return user;
+    }
+
+    private static ClientRepresentation client() {
+        ClientRepresentation client = new ClientRepresentation();
+        client.setClientId("client");
+        client.setRedirectUris(List.of("https://example.com/*"));
+        client.setPublicClient(false);
+        client.setAttributes(new HashMap<>(Map.of("post.logout.redirect.uris", "+")));
+        client.setDefaultClientScopes(List.of("profile", "email"));
+        return client;
+    }
+
+    private static GroupRepresentation group() {
+        GroupRepresentation subGroup = new GroupRepresentation();
+        subGroup.setName("sub");
+        subGroup.setPath("/group/sub");
+
+        GroupRepresentation group = new GroupRepresentation();
+        group.setName("group");
+        group.setPath("/group");
+        group.setRealmRoles(List.of("role1"));
+        group.setSubGroups(new ArrayList<>(List.of(subGroup)));
+        return group;
+    }
+
+    private static RoleRepresentation role() {
+        RoleRepresentation role = new RoleRepresentation("role", "description", false);
+        role.setAttributes(Map.of("key", List.of("value")));
+        return role;
+    }
+
+    private static AuthenticationFlowRepresentation flow() {
+        AuthenticationExecutionExportRepresentation execution = new AuthenticationExecutionExportRepresentation();
+        execution.setAuthenticator("auth-cookie");
+        execution.setRequirement("ALTERNATIVE");
+        execution.setPriority(10);
+
+        AuthenticationFlowRepresentation flow = new AuthenticationFlowRepresentation();
+        flow.setAlias("flow");
+        flow.setProviderId("basic-flow");
+        flow.setTopLevel(true);
+        flow.setAuthenticationExecutions(new ArrayList<>(List.of(execution)));
+        return flow;
+    }
+
+    private static IdentityProviderRepresentation identityProvider() {
+        IdentityProviderRepresentation identityProvider = new IdentityProviderRepresentation();
+        identityProvider.setAlias("idp");
+        identityProvider.setProviderId("oidc");
+        identityProvider.setConfig(new HashMap<>(Map.of("clientId", "client")));
+        return identityProvider;
+    }
+
+    private static ComponentRepresentation component() {
+        ComponentRepresentation component = new ComponentRepresentation();
+        component.setId("existing");
+        component.setName("rsa");
+        component.setProviderId("rsa-generated");
+        component.setProviderType("org.keycloak.keys.KeyProvider");
+        component.setConfig(new MultivaluedHashMap<>(Map.of("priority", List.of("100"), "keySize", List.of("2048"))));
+        return component;
+    }
+
+    private static ComponentExportRepresentation exportedComponent() {
+        ComponentExportRepresentation component = new ComponentExportRepresentation();
+        component.setName("rsa");
+        component.setProviderId("rsa-generated");
+        component.setConfig(new MultivaluedHashMap<>(Map.of("priority", List.of("100"))));
+        return component;
+    }
+
+    @SuppressWarnings("unused")
+    public static class SetterlessObject {
+        // not named like the property, otherwise the final field would be set instead
+        private final List<String> items = new ArrayList<>();
+
+        public List<String> getValues() {
+            return items;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public static class MergedObject {
+        @JsonMerge
+        public Set<String> values;
+    }
+}
@@ -0,0 +1,199 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.net.URI;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+@ExtendWith(GithubActionsExtension.class)
+class AdaptiveConcurrencyLimiterTest {
+    private static final String KEY = "GET users/5";
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    void shouldGrowWhileLatencyIsFlat() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 4, 2.0);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire();
+            limiter.acquire();
+            limiter.release(KEY, FAST, 200, 0);
+            limiter.release(KEY, FAST, 200, 0);
+        }
+
+        assertThat(limiter.getLimit(), is(4));
+        assertThat(limiter.getPeakLimit(), is(4));
+        assertThat(limiter.getDecreases(), is(0L));
+    }
+
+    @Test
+    void shouldNotGrowIfLimitIsNotUsed() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 64, 2.0);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire();
+            limiter.release(KEY, FAST, 200, 0);
+        }
+
+        assertThat(limiter.getLimit(), is(8));
+    }
+
+    @Test
+    void shouldHalveOnOverload() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 64, 2.0);
+
+        limiter.acquire();
+        limiter.release(KEY, FAST, 503, 0);
+
+        assertThat(limiter.getLimit(), is(4));
+        assertThat(limiter.getDecreases(), is(1L));
+    }
+
+    @Test
+    void shouldDecreaseOncePerInterval() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 64, 2.0);
+
+        limiter.acquire();
+        limiter.acquire();
+        limiter.release(KEY, FAST, 429, 0);
+        limiter.release(KEY, FAST, 429, 0);
+
+        assertThat(limiter.getLimit(), is(4));
+        assertThat(limiter.getDecreases(), is(1L));
+    }
+
+    @Test
+    void shouldBackOffOnLatencyGrowth() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 64, 2.0);
+
+        limiter.acquire();
+        limiter.release(KEY, FAST, 200, 0);
+        limiter.acquire();
+        limiter.release("GET groups/3", SLOW, 200, 0);
+
+        assertThat("the first request of a kind sets its baseline", limiter.getLimit(), is(10));
+
+        limiter.acquire();
+        limiter.release(KEY, SLOW, 200, 0);
+
+        assertThat(limiter.getLimit(), is(9));
+        assertThat(limiter.getDecreases(), is(1L));
+    }
+
+    @Test
+    void shouldBackOffOnFailedRequest() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 64, 2.0);
+
+        limiter.acquire();
+        limiter.release(KEY, SLOW, -1, 0);
+
+        assertThat(limiter.getLimit(), is(9));
+    }
+
+    @Test
+    void shouldNotDecreaseBelowMinimum() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(3, 2, 64, 2.0);
+
+        limiter.acquire();
+        limiter.release(KEY, FAST, 503, 0);
+
+        assertThat(limiter.getLimit(), is(2));
+    }
+
+    @Test
+    void shouldWaitForFreeSlot() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 2.0);
+
+        limiter.acquire();
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> acquire(limiter));
+
+        Thread.sleep(100);
+        assertThat(second.isDone(), is(false));
+
+        limiter.release(KEY, FAST, 200, 0);
+        second.get(10, TimeUnit.SECONDS);
+
+        assertThat(limiter.getRequests(), is(2L));
+        assertThat(limiter.getThrottledRequests(), is(1L));
+    }
+
+    @Test
+    void shouldHoldBackRequestsOnRetryAfter() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 64, 2.0);
+
+        limiter.acquire();
+        limiter.release(KEY, FAST, 429, 300);
+
+        long start = System.nanoTime();
+        limiter.acquire();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), greaterThanOrEqualTo(250L));
+        assertThat(limiter.getPauses(), is(1L));
+        assertThat(limiter.getThrottledRequests(), is(1L));
+    }
+
+    @Test
+    void shouldDeriveLatencyKeyOfAdminRequests() {
+        assertThat(AdaptiveConcurrencyLimiter.latencyKey("GET", URI.create("http://localhost/admin/realms/test/users/1/groups")),
+                is("GET users/5"));
+        assertThat(AdaptiveConcurrencyLimiter.latencyKey("GET", URI.create("http://localhost/auth/admin/realms/other/users/2/groups")),
+                is("GET users/5"));
+        assertThat(AdaptiveConcurrencyLimiter.latencyKey("PUT", URI.create("http://localhost/admin/realms/test")),
+                is("PUT /2"));
+        assertThat(AdaptiveConcurrencyLimiter.latencyKey("POST", URI.create("http://localhost/realms/master/protocol/openid-connect/token")),
+                nullValue());
+    }
+
+    @Test
+    void shouldParseRetryAfter() {
+        String inTenSeconds = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now().plusSeconds(10));
+
+        assertThat(RetryAfter.toMillis("3"), is(3000L));
+        assertThat(RetryAfter.toMillis(inTenSeconds), allOf(greaterThan(5000L), lessThanOrEqualTo(10000L)));
+        assertThat(RetryAfter.toMillis("Wed, 21 Oct 2015 07:28:00 GMT"), is(0L));
+        assertThat(RetryAfter.toMillis("soon"), is(0L));
+        assertThat(RetryAfter.toMillis(null), is(0L));
+    }
+
+    private static void acquire(AdaptiveConcurrencyLimiter limiter) {
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
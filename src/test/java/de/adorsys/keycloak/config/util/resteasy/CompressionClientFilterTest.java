@@ -0,0 +1,209 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.ConnectionPool;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.HttpEngine;
+import de.adorsys.keycloak.config.util.ResteasyUtil;
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(GithubActionsExtension.class)
+class CompressionClientFilterTest {
+    private static final String LARGE_BODY = "{\"users\":[" + "{\"username\":\"user\",\"enabled\":true},".repeat(1000) + "{}]}";
+
+    private final Map<String, List<String>> requestHeaders = new ConcurrentHashMap<>();
+    private final TransferStatistics statistics = new TransferStatistics();
+
+    private HttpServer server;
+    private ResteasyClient client;
+
+    @AfterEach
+    void stop() {
+        if (client == null) return;
+
+        client.close();
+        server.stop(0);
+    }
+
+    @ParameterizedTest
+    @EnumSource(HttpEngine.class)
+    void shouldDecodeCompressedResponse(HttpEngine httpEngine) throws IOException {
+        start(httpEngine, -1);
+
+        Response response = client.target(getUrl()).request().put(Entity.entity(LARGE_BODY, MediaType.APPLICATION_JSON));
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.getHeaderString("Content-Encoding"), nullValue());
+        assertThat(response.readEntity(String.class), is(LARGE_BODY));
+        assertThat(requestHeaders.get("Accept-encoding"), contains("gzip, deflate"));
+        assertThat(requestHeaders.get("Content-encoding"), nullValue());
+
+        assertThat(statistics.getResponses(), is(1L));
+        assertThat(statistics.getCompressedResponses(), is(1L));
+        assertThat(statistics.getResponseBytes(), is((long) LARGE_BODY.length()));
+        assertThat(statistics.getResponseWireBytes(), lessThan(statistics.getResponseBytes()));
+        assertThat(statistics.getRequestWireBytes(), is((long) LARGE_BODY.length()));
+    }
+
+    @ParameterizedTest
+    @EnumSource(HttpEngine.class)
+    void shouldCompressLargeRequestBodies(HttpEngine httpEngine) throws IOException {
+        start(httpEngine, 1024);
+
+        Response response = client.target(getUrl()).request().put(Entity.entity(LARGE_BODY, MediaType.APPLICATION_JSON));
+
+        assertThat(response.readEntity(String.class), is(LARGE_BODY));
+        assertThat(requestHeaders.get("Content-encoding"), contains("gzip"));
+        assertThat(statistics.getCompressedRequests(), is(1L));
+        assertThat(statistics.getRequestBytes(), is((long) LARGE_BODY.length()));
+        assertThat(statistics.getRequestWireBytes(), lessThan(statistics.getRequestBytes()));
+
+        response = client.target(getUrl()).request().put(Entity.entity("{}", MediaType.APPLICATION_JSON));
+
+        assertThat(response.readEntity(String.class), is("{}"));
+        assertThat(requestHeaders.get("Content-encoding"), nullValue());
+        assertThat(statistics.getCompressedRequests(), is(1L));
+    }
+
+    @Test
+    void shouldStreamRequestBodyWithoutRequestCompression() throws IOException {
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        AtomicReference<OutputStream> outputStream = new AtomicReference<>(wire);
+        List<Integer> wireBytesDuringWrite = new ArrayList<>();
+
+        WriterInterceptorContext context = mock(WriterInterceptorContext.class);
+        when(context.getOutputStream()).thenAnswer(invocation -> outputStream.get());
+        doAnswer(invocation -> {
+            outputStream.set(invocation.getArgument(0));
+            return null;
+        }).when(context).setOutputStream(any());
+        doAnswer(invocation -> {
+            outputStream.get().write(LARGE_BODY.getBytes());
+            wireBytesDuringWrite.add(wire.size());
+            return null;
+        }).when(context).proceed();
+
+        new CompressionClientFilter(true, -1, statistics).aroundWriteTo(context);
+
+        assertThat(wireBytesDuringWrite, contains(LARGE_BODY.length()));
+        assertThat(outputStream.get(), is(wire));
+        assertThat(statistics.getRequestWireBytes(), is((long) LARGE_BODY.length()));
+        assertThat(statistics.getCompressedRequests(), is(0L));
+    }
+
+    @ParameterizedTest
+    @EnumSource(HttpEngine.class)
+    void shouldHandleEmptyCompressedResponse(HttpEngine httpEngine) throws IOException {
+        start(httpEngine, -1);
+
+        Response response = client.target(getUrl()).request().get();
+
+        assertThat(response.getStatus(), is(204));
+        response.close();
+
+        assertThat(statistics.getResponses(), is(1L));
+        assertThat(statistics.getCompressedResponses(), is(0L));
+    }
+
+    private void start(HttpEngine httpEngine, long requestCompressionThreshold) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", this::echo);
+        server.start();
+
+        client = ResteasyUtil.getClient(
+                false, null, Duration.ofSeconds(10), Duration.ofSeconds(10), httpEngine, 1,
+                new ConnectionPool(10, 10, Duration.ZERO, Duration.ofSeconds(30)), new ConnectionPoolStatistics(), List.of()
+        );
+        client.register(new CompressionClientFilter(true, requestCompressionThreshold, statistics));
+    }
+
+    // answers with the decoded request body, compressed if the client accepts gzip
+    private void echo(HttpExchange exchange) throws IOException {
+        requestHeaders.clear();
+        requestHeaders.putAll(exchange.getRequestHeaders());
+
+        InputStream requestBody = exchange.getRequestBody();
+        if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            requestBody = new GZIPInputStream(requestBody);
+        }
+        byte[] body = requestBody.readAllBytes();
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+
+        if (body.length == 0) {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+            return;
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        }
+
+        exchange.sendResponseHeaders(200, compressed.size());
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            compressed.writeTo(responseBody);
+        }
+        exchange.close();
+    }
+
+    private String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/echo";
+    }
+}
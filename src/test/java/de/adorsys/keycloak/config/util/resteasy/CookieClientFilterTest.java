@@ -0,0 +1,155 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.NewCookie;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(GithubActionsExtension.class)
+class CookieClientFilterTest {
+    @AfterEach
+    void resetLane() {
+        AffinityLane.assign(0);
+    }
+
+    @Test
+    void shouldKeepCookiesPerLane() {
+        CookieClientFilter filter = new CookieClientFilter(2);
+
+        AffinityLane.assign(0);
+        exchange(filter, "node-1");
+
+        AffinityLane.assign(1);
+        exchange(filter, "node-2");
+
+        AffinityLane.assign(0);
+        assertThat(exchange(filter, null), contains("AUTH_SESSION_ID=node-1"));
+
+        AffinityLane.assign(1);
+        assertThat(exchange(filter, null), contains("AUTH_SESSION_ID=node-2"));
+
+        // lanes wrap around the configured number of lanes
+        AffinityLane.assign(3);
+        assertThat(exchange(filter, null), contains("AUTH_SESSION_ID=node-2"));
+    }
+
+    @Test
+    void shouldShareCookiesWithSingleLane() {
+        CookieClientFilter filter = new CookieClientFilter();
+
+        AffinityLane.assign(0);
+        assertThat(exchange(filter, "node-1"), nullValue());
+
+        AffinityLane.assign(5);
+        assertThat(exchange(filter, null), contains("AUTH_SESSION_ID=node-1"));
+    }
+
+    @Test
+    void shouldStoreCookieInLaneOfRequest() throws Exception {
+        CookieClientFilter filter = new CookieClientFilter(2);
+
+        AffinityLane.assign(1);
+        ClientRequestContext request = request();
+        filter.filter(request);
+
+        // the response is handled by a thread of another lane
+        CompletableFuture.runAsync(() -> {
+            AffinityLane.assign(0);
+            filter.filter(request, response("node-2"));
+        }).get();
+
+        AffinityLane.assign(0);
+        assertThat(exchange(filter, null), nullValue());
+
+        AffinityLane.assign(1);
+        assertThat(exchange(filter, null), contains("AUTH_SESSION_ID=node-2"));
+    }
+
+    @Test
+    void shouldUseLaneRequestedByProperty() {
+        CookieClientFilter filter = new CookieClientFilter(2);
+
+        AffinityLane.assign(1);
+        exchange(filter, "node-2");
+
+        // sent by a thread of lane 0 on behalf of lane 1
+        AffinityLane.assign(0);
+        ClientRequestContext request = request();
+        request.setProperty(AffinityLane.PROPERTY, 1);
+        filter.filter(request);
+
+        assertThat(request.getHeaders().get("Cookie"), contains("AUTH_SESSION_ID=node-2"));
+    }
+
+    private static List<Object> exchange(CookieClientFilter filter, String node) {
+        ClientRequestContext request = request();
+        filter.filter(request);
+        filter.filter(request, response(node));
+
+        return request.getHeaders().get("Cookie");
+    }
+
+    private static ClientRequestContext request() {
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        Map<String, Object> properties = new HashMap<>();
+
+        ClientRequestContext request = mock(ClientRequestContext.class);
+        when(request.getHeaders()).thenReturn(headers);
+        when(request.getProperty(anyString())).thenAnswer(invocation -> properties.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> properties.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(request).setProperty(anyString(), any());
+
+        return request;
+    }
+
+    private static ClientResponseContext response(String node) {
+        Map<String, NewCookie> cookies = new HashMap<>();
+        if (node != null) {
+            cookies.put("AUTH_SESSION_ID", new NewCookie("AUTH_SESSION_ID", node));
+        }
+
+        ClientResponseContext response = mock(ClientResponseContext.class);
+        when(response.getCookies()).thenReturn(cookies);
+
+        return response;
+    }
+}
@@ -0,0 +1,111 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+@ExtendWith(GithubActionsExtension.class)
+class InstrumentedConnectionManagerTest {
+    private static final HttpRoute ROUTE = new HttpRoute(new HttpHost("localhost", 8080));
+
+    private final ConnectionPoolStatistics statistics = new ConnectionPoolStatistics();
+    private PoolingHttpClientConnectionManager pool;
+    private InstrumentedConnectionManager connectionManager;
+
+    @AfterEach
+    void shutdown() {
+        connectionManager.shutdown();
+    }
+
+    @Test
+    void shouldCountLeasesOfFreePool() throws Exception {
+        connectionManager = createConnectionManager(2);
+
+        HttpClientConnection first = lease();
+        HttpClientConnection second = lease();
+        release(first);
+        release(second);
+
+        assertThat(statistics.getLeases(), is(2L));
+        assertThat(statistics.getSaturatedLeases(), is(0L));
+        assertThat(statistics.getPeakLeased(), is(2L));
+    }
+
+    @Test
+    void shouldRecordWaitOnSaturatedPool() throws Exception {
+        connectionManager = createConnectionManager(1);
+
+        HttpClientConnection first = lease();
+        CompletableFuture<HttpClientConnection> second = CompletableFuture.supplyAsync(this::leaseUnchecked);
+
+        while (pool.getTotalStats().getPending() == 0) {
+            Thread.sleep(10);
+        }
+
+        Thread.sleep(50);
+        release(first);
+        release(second.get(10, TimeUnit.SECONDS));
+
+        assertThat(statistics.getLeases(), is(2L));
+        assertThat(statistics.getSaturatedLeases(), is(1L));
+        assertThat(statistics.getMaxLeaseWaitMillis(), greaterThanOrEqualTo(40L));
+        assertThat(statistics.getPeakLeased(), is(1L));
+    }
+
+    private InstrumentedConnectionManager createConnectionManager(int size) {
+        pool = new PoolingHttpClientConnectionManager();
+        pool.setMaxTotal(size);
+        pool.setDefaultMaxPerRoute(size);
+
+        return new InstrumentedConnectionManager(pool, statistics, Duration.ofSeconds(30));
+    }
+
+    private HttpClientConnection lease() throws Exception {
+        return connectionManager.requestConnection(ROUTE, null).get(10, TimeUnit.SECONDS);
+    }
+
+    private HttpClientConnection leaseUnchecked() {
+        try {
+            return lease();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void release(HttpClientConnection connection) {
+        connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,153 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.ConnectionPool;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.HttpEngine;
+import de.adorsys.keycloak.config.util.ResteasyUtil;
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Response;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@ExtendWith(GithubActionsExtension.class)
+class InterceptingClientHttpEngineTest {
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 64, 2.0);
+    private final RetryInterceptor retryInterceptor = new RetryInterceptor(3, Duration.ofMillis(10), Duration.ofMillis(50));
+
+    private HttpServer server;
+    private ResteasyClient client;
+
+    @AfterEach
+    void stop() {
+        client.close();
+        server.stop(0);
+    }
+
+    @ParameterizedTest
+    @EnumSource(HttpEngine.class)
+    void shouldLimitAdminRequestsOnly(HttpEngine httpEngine) throws IOException {
+        start(httpEngine, List.of(limiter));
+
+        Response token = get("/realms/master/protocol/openid-connect/token");
+        Response users = get("/admin/realms/test/busy");
+
+        assertThat(token.getStatus(), is(204));
+        assertThat(users.getStatus(), is(503));
+        assertThat(limiter.getRequests(), is(1L));
+        assertThat(limiter.getLimit(), is(4));
+        assertThat(limiter.getPauses(), is(1L));
+    }
+
+    @ParameterizedTest
+    @EnumSource(HttpEngine.class)
+    void shouldRetryTransientFailures(HttpEngine httpEngine) throws IOException {
+        start(httpEngine, List.of(retryInterceptor, limiter));
+
+        Response response = get("/admin/realms/test/flaky");
+
+        assertThat(response.getStatus(), is(204));
+        assertThat(requests.get("/admin/realms/test/flaky").get(), is(3));
+        assertThat(retryInterceptor.getRetries(), is(2L));
+        assertThat(retryInterceptor.getRecoveredRequests(), is(1L));
+        assertThat("each attempt passes the limiter", limiter.getRequests(), is(3L));
+    }
+
+    @ParameterizedTest
+    @EnumSource(HttpEngine.class)
+    void shouldNotRetryPostAfterBadGateway(HttpEngine httpEngine) throws IOException {
+        start(httpEngine, List.of(retryInterceptor));
+
+        Response response = client.target(url("/admin/realms/test/flaky")).request().post(Entity.json("{}"));
+        response.close();
+
+        assertThat(response.getStatus(), is(502));
+        assertThat(requests.get("/admin/realms/test/flaky").get(), is(1));
+        assertThat(retryInterceptor.getRetries(), is(0L));
+    }
+
+    @ParameterizedTest
+    @EnumSource(HttpEngine.class)
+    void shouldNotRetryIfServerAsksToWaitLonger(HttpEngine httpEngine) throws IOException {
+        start(httpEngine, List.of(retryInterceptor));
+
+        Response response = get("/admin/realms/test/busy");
+
+        assertThat(response.getStatus(), is(503));
+        assertThat(requests.get("/admin/realms/test/busy").get(), is(1));
+    }
+
+    private void start(HttpEngine httpEngine, List<ClientHttpEngineInterceptor> interceptors) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::respond);
+        server.start();
+
+        client = ResteasyUtil.getClient(
+                false, null, Duration.ofSeconds(10), Duration.ofSeconds(10), httpEngine, 1,
+                new ConnectionPool(10, 10, Duration.ZERO, Duration.ofSeconds(30)), new ConnectionPoolStatistics(), interceptors
+        );
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        int count = requests.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+        exchange.getRequestBody().readAllBytes();
+
+        if (path.endsWith("/busy")) {
+            exchange.getResponseHeaders().add("Retry-After", "1");
+            exchange.sendResponseHeaders(503, -1);
+        } else if (path.endsWith("/flaky") && count < 3) {
+            exchange.sendResponseHeaders(502, -1);
+        } else {
+            exchange.sendResponseHeaders(204, -1);
+        }
+
+        exchange.close();
+    }
+
+    private Response get(String path) {
+        Response response = client.target(url(path)).request().get();
+        response.close();
+        return response;
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+}
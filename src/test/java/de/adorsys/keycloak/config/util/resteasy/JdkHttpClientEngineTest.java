@@ -0,0 +1,130 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import com.sun.net.httpserver.HttpServer;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.ConnectionPool;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.HttpEngine;
+import de.adorsys.keycloak.config.util.ResteasyUtil;
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+@ExtendWith(GithubActionsExtension.class)
+class JdkHttpClientEngineTest {
+    private final Map<String, List<String>> requestHeaders = new ConcurrentHashMap<>();
+
+    private HttpServer server;
+    private ResteasyClient client;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            exchange.getRequestHeaders().forEach(requestHeaders::put);
+
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.getResponseHeaders().add("Set-Cookie", "AUTH_SESSION_ID=node-1");
+            exchange.getResponseHeaders().add("X-Method", exchange.getRequestMethod());
+
+            if (body.length == 0) {
+                exchange.sendResponseHeaders(204, -1);
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream responseBody = exchange.getResponseBody()) {
+                    responseBody.write(body);
+                }
+            }
+
+            exchange.close();
+        });
+        server.start();
+
+        client = ResteasyUtil.getClient(
+                false, null, Duration.ofSeconds(10), Duration.ofSeconds(10), HttpEngine.JDK, 1,
+                new ConnectionPool(10, 10, Duration.ZERO, Duration.ofSeconds(30)), new ConnectionPoolStatistics(), List.of()
+        );
+    }
+
+    @AfterEach
+    void stop() {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    void shouldUseJdkEngine() {
+        assertThat(client.httpEngine(), instanceOf(JdkHttpClientEngine.class));
+    }
+
+    @Test
+    void shouldSendEntityAndReadResponse() {
+        Response response = client.target(getUrl()).request().put(Entity.entity("{\"realm\":\"test\"}", MediaType.APPLICATION_JSON));
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.getHeaderString("x-method"), is("PUT"));
+        assertThat(response.readEntity(String.class), is("{\"realm\":\"test\"}"));
+        assertThat(requestHeaders.get("Content-type"), contains(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void shouldHandleEmptyResponse() {
+        Response response = client.target(getUrl()).request().get();
+
+        assertThat(response.getStatus(), is(204));
+        assertThat(response.getHeaderString("X-Method"), is("GET"));
+        response.close();
+    }
+
+    @Test
+    void shouldSendCookiesOfPreviousResponse() {
+        client.target(getUrl()).request().get().close();
+        assertThat(requestHeaders.get("Cookie"), nullValue());
+
+        client.target(getUrl()).request().get().close();
+        assertThat(requestHeaders.get("Cookie"), contains("AUTH_SESSION_ID=node-1"));
+    }
+
+    private String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/echo";
+    }
+}
@@ -0,0 +1,65 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.Response;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@ExtendWith(GithubActionsExtension.class)
+class RetryInterceptorTest {
+    @Test
+    void shouldRetryIdempotentRequestsOnTransientStatus() {
+        assertThat(RetryInterceptor.shouldRetry("GET", Response.status(502).build(), null), is(true));
+        assertThat(RetryInterceptor.shouldRetry("PUT", Response.status(504).build(), null), is(true));
+        assertThat(RetryInterceptor.shouldRetry("GET", Response.status(500).build(), null), is(false));
+        assertThat(RetryInterceptor.shouldRetry("GET", Response.status(404).build(), null), is(false));
+        assertThat(RetryInterceptor.shouldRetry("GET", Response.ok().build(), null), is(false));
+    }
+
+    @Test
+    void shouldRetryOtherRequestsOnlyIfNotProcessed() {
+        assertThat(RetryInterceptor.shouldRetry("POST", Response.status(503).build(), null), is(true));
+        assertThat(RetryInterceptor.shouldRetry("POST", Response.status(429).build(), null), is(true));
+        assertThat(RetryInterceptor.shouldRetry("POST", Response.status(502).build(), null), is(false));
+        assertThat(RetryInterceptor.shouldRetry("DELETE", Response.status(504).build(), null), is(false));
+    }
+
+    @Test
+    void shouldRetryOnConnectionFailures() {
+        ProcessingException refused = new ProcessingException(new ConnectException("Connection refused"));
+        ProcessingException timeout = new ProcessingException(new SocketTimeoutException("Read timed out"));
+
+        assertThat(RetryInterceptor.shouldRetry("GET", null, refused), is(true));
+        assertThat(RetryInterceptor.shouldRetry("POST", null, refused), is(true));
+        assertThat(RetryInterceptor.shouldRetry("GET", null, timeout), is(true));
+        assertThat(RetryInterceptor.shouldRetry("POST", null, timeout), is(false));
+        assertThat(RetryInterceptor.shouldRetry("GET", null, new IllegalStateException()), is(false));
+    }
+}